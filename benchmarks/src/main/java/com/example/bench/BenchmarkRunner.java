@@ -0,0 +1,45 @@
+package com.example.bench;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * 基准入口，接受JMH的全部命令行参数
+ * 未指定 -rf/-rff 时结果以JSON写入 benchmarks/results/jmh-{时间}.json，便于提交后对比优化前后的结果。
+ * 结果目录按jar所在位置（benchmarks/target）确定，与从哪个目录启动无关。
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+        if (!commandLine.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+        }
+        if (!commandLine.getResult().hasValue()) {
+            File results = resultsDirectory();
+            if (!results.isDirectory() && !results.mkdirs()) {
+                throw new IllegalStateException("Cannot create result directory " + results.getAbsolutePath());
+            }
+            String timestamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+            options.result(new File(results, "jmh-" + timestamp + ".json").getPath());
+        }
+        new Runner(options.build()).run();
+    }
+
+    private static File resultsDirectory() throws URISyntaxException {
+        // benchmarks/target/benchmarks.jar 或 IDE中的 benchmarks/target/classes
+        File location = new File(BenchmarkRunner.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        File target = location.getParentFile();
+        File module = target == null ? null : target.getParentFile();
+        return module == null ? new File("results") : new File(module, "results");
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.bench;
+
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+
+/**
+ * 给Spring注入的私有字段赋值，基准中不启动Spring容器
+ */
+public final class Fields {
+
+    private Fields() {
+    }
+
+    public static void set(Object target, String name, Object value) {
+        ReflectionUtils.setField(field(target, name), target, value);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> T get(Object target, String name) {
+        return (T) ReflectionUtils.getField(field(target, name), target);
+    }
+
+    private static Field field(Object target, String name) {
+        Field field = ReflectionUtils.findField(target.getClass(), name);
+        if (field == null) {
+            throw new IllegalArgumentException("No field " + name + " on " + target.getClass().getName());
+        }
+        ReflectionUtils.makeAccessible(field);
+        return field;
+    }
+}
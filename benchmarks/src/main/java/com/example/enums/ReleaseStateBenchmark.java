@@ -0,0 +1,56 @@
+package com.example.enums;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 发布状态枚举的判断和解析，每条消息和每次状态通知都会经过
+ * valueOf作为fromStateName的对照。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ReleaseStateBenchmark {
+
+    @Param({"GRAY_CONSUMER", "PRD_CONSUMER"})
+    private String nodeType;
+
+    @Param({"GRAY_ACCESSABLE", "ALL_ACCESSABLE"})
+    private String stateName;
+
+    private ReleaseState state;
+
+    @Setup
+    public void setup() {
+        state = ReleaseState.valueOf(stateName);
+    }
+
+    @Benchmark
+    public boolean shouldConsume() {
+        return state.shouldConsume(nodeType);
+    }
+
+    @Benchmark
+    public ReleaseState fromStateName() {
+        return ReleaseState.fromStateName(stateName);
+    }
+
+    @Benchmark
+    public ReleaseState valueOf() {
+        return ReleaseState.valueOf(stateName);
+    }
+}
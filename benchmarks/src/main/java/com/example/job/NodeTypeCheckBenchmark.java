@@ -0,0 +1,60 @@
+package com.example.job;
+
+import com.example.enums.ReleaseState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 作业执行判断中的节点类型检查
+ * isEligible每次调用都对节点类型做toUpperCase().contains("GRAY")；cachedNodeType预先算好是否灰度节点，
+ * 两者之差即缓存判断结果能省下的开销。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class NodeTypeCheckBenchmark {
+
+    @Param({"GRAY_CONSUMER", "PRD_CONSUMER", "gray"})
+    private String nodeType;
+
+    @Param({"GRAY_ACCESSABLE", "PROD_ACCESSABLE"})
+    private ReleaseState state;
+
+    private boolean grayNode;
+
+    @Setup
+    public void setup() {
+        grayNode = nodeType.toUpperCase().contains("GRAY");
+    }
+
+    @Benchmark
+    public boolean isEligible() {
+        return AbstractGrayControlledJob.isEligible(state, nodeType);
+    }
+
+    @Benchmark
+    public boolean cachedNodeType() {
+        switch (state) {
+            case GRAY_ACCESSABLE:
+                return grayNode;
+            case PROD_ACCESSABLE:
+                return !grayNode;
+            default:
+                return true;
+        }
+    }
+}
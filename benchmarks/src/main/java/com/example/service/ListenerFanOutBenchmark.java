@@ -0,0 +1,128 @@
+package com.example.service;
+
+import com.example.bench.Fields;
+import com.example.config.ZookeeperProperties;
+import com.example.enums.ReleaseState;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.retry.RetryOneTime;
+import org.apache.curator.test.TestingServer;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * 发布状态通知的监听器扇出
+ * 同一服务注册N个监听器（MQ消费者、作业节点、路由等），写入新状态后等到每个监听器都收到为止。
+ * 附加计数callbacks为每次切换实际触发的监听器回调次数，理想情况等于监听器数。
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ListenerFanOutBenchmark {
+
+    private static final String SERVICE = "bench-service";
+    private static final long TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    @Param({"1", "4", "16"})
+    private int listeners;
+
+    private TestingServer server;
+    private CuratorFramework client;
+    private ServiceAwareReleaseStateService releaseStateService;
+    private final List<Consumer<ReleaseState>> registered = new ArrayList<>();
+    private AtomicReferenceArray<ReleaseState> seen;
+    private final AtomicLong callbacks = new AtomicLong();
+    private ReleaseState next = ReleaseState.GRAY_ACCESSABLE;
+
+    /**
+     * 每次切换的附加计数，结果中与耗时一起输出
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Counters {
+        public long callbacks;
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        server = new TestingServer(true);
+        client = CuratorFrameworkFactory.newClient(server.getConnectString(), new RetryOneTime(100));
+        client.start();
+        client.blockUntilConnected();
+        ZookeeperProperties zookeeperProperties = new ZookeeperProperties();
+        zookeeperProperties.setReleaseStatePath("/release");
+        releaseStateService = new ServiceAwareReleaseStateService();
+        Fields.set(releaseStateService, "curatorFramework", client);
+        Fields.set(releaseStateService, "zookeeperProperties", zookeeperProperties);
+        releaseStateService.updateServiceReleaseState(SERVICE, ReleaseState.ALL_ACCESSABLE);
+
+        seen = new AtomicReferenceArray<>(listeners);
+        for (int i = 0; i < listeners; i++) {
+            int index = i;
+            Consumer<ReleaseState> listener = state -> {
+                callbacks.incrementAndGet();
+                seen.set(index, state);
+            };
+            registered.add(listener);
+            releaseStateService.addServiceStateChangeListener(SERVICE, listener);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        for (Consumer<ReleaseState> listener : registered) {
+            releaseStateService.removeServiceStateChangeListener(SERVICE, listener);
+        }
+        registered.clear();
+        client.close();
+        server.close();
+    }
+
+    @Benchmark
+    public void flip(Counters counters) {
+        ReleaseState target = next;
+        next = target == ReleaseState.GRAY_ACCESSABLE ? ReleaseState.PROD_ACCESSABLE : ReleaseState.GRAY_ACCESSABLE;
+        long before = callbacks.get();
+        releaseStateService.updateServiceReleaseState(SERVICE, target);
+        long deadline = System.nanoTime() + TIMEOUT_NANOS;
+        while (!allSeen(target)) {
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("Listeners did not observe " + target + " within 10s");
+            }
+            LockSupport.parkNanos(10_000);
+        }
+        counters.callbacks += callbacks.get() - before;
+    }
+
+    private boolean allSeen(ReleaseState target) {
+        for (int i = 0; i < seen.length(); i++) {
+            if (seen.get(i) != target) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.service;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.example.bench.Fields;
+import org.apache.rocketmq.client.consumer.listener.ConsumeConcurrentlyStatus;
+import org.apache.rocketmq.common.message.MessageExt;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 消费者处理一批消息：解码消息体、分发处理、记录耗时和计数
+ * logLevel=INFO与线上默认配置一致（日志写到target/benchmark.log），WARN时可看出日志之外的开销。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MessageDispatchBenchmark {
+
+    @Param({"1", "32"})
+    private int batchSize;
+
+    @Param({"64", "1024"})
+    private int bodyBytes;
+
+    @Param({"INFO", "WARN"})
+    private String logLevel;
+
+    private MQConsumerService mqConsumerService;
+
+    private List<MessageExt> messages;
+
+    @Setup
+    public void setup() {
+        ((Logger) LoggerFactory.getLogger(MQConsumerService.class)).setLevel(Level.toLevel(logLevel));
+        mqConsumerService = new MQConsumerService();
+        Fields.set(mqConsumerService, "nodeType", "GRAY_CONSUMER");
+
+        char[] text = new char[bodyBytes];
+        Arrays.fill(text, 'x');
+        byte[] body = new String(text).getBytes(StandardCharsets.UTF_8);
+        messages = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            MessageExt message = new MessageExt();
+            message.setTopic("PRD_TOPIC");
+            message.setBody(body);
+            messages.add(message);
+        }
+    }
+
+    @Benchmark
+    public ConsumeConcurrentlyStatus consumeBatch() {
+        return mqConsumerService.consumeMessages(messages);
+    }
+}
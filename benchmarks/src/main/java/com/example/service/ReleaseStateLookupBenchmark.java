@@ -0,0 +1,65 @@
+package com.example.service;
+
+import com.example.bench.Fields;
+import com.example.enums.ReleaseState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 读取服务的发布状态缓存，作业每次执行、流式作业每页拉取都会调用
+ * 缓存中有若干其他服务，分别测已缓存和未缓存（返回默认值）的服务，以及多线程并发读取。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReleaseStateLookupBenchmark {
+
+    @Param({"1", "64"})
+    private int services;
+
+    private ServiceAwareReleaseStateService releaseStateService;
+
+    private String cachedService;
+
+    @Setup
+    public void setup() {
+        releaseStateService = new ServiceAwareReleaseStateService();
+        Map<String, ReleaseState> serviceStates = Fields.get(releaseStateService, "serviceStates");
+        for (int i = 0; i < services; i++) {
+            serviceStates.put("service-" + i, ReleaseState.values()[i % ReleaseState.values().length]);
+        }
+        cachedService = "service-" + (services - 1);
+    }
+
+    @Benchmark
+    public ReleaseState cached() {
+        return releaseStateService.getServiceReleaseState(cachedService);
+    }
+
+    @Benchmark
+    public ReleaseState notCached() {
+        return releaseStateService.getServiceReleaseState("unknown-service");
+    }
+
+    @Benchmark
+    @Threads(4)
+    public ReleaseState cachedConcurrent() {
+        return releaseStateService.getServiceReleaseState(cachedService);
+    }
+}
@@ -0,0 +1,338 @@
+package com.example.canary;
+
+import com.dangdang.ddframe.job.lite.api.strategy.JobInstance;
+import com.example.config.CanaryProperties;
+import com.example.config.ZookeeperProperties;
+import com.example.enums.CanaryAction;
+import com.example.enums.CanaryVerdict;
+import com.example.enums.ReleaseState;
+import com.example.service.ServiceAwareReleaseStateService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.recipes.leader.LeaderLatch;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 金丝雀分析
+ * 由选主产生的一个消费者节点执行：每个窗口汇总所有节点的采样，按泳道比较灰度和生产的错误率（单侧双比例z检验）、
+ * p50/p99耗时和MQ处理吞吐。连续通过若干窗口且阶段停留足够久后推进到下一发布阶段，连续失败若干窗口则回滚。
+ * 当前状态下生产侧没有流量时（如GRAY_ACCESSABLE），用最近一个样本充足的生产窗口作为基线。
+ */
+@Slf4j
+@Service
+public class CanaryAnalyzer {
+
+    private static final String DUBBO = "dubbo";
+    private static final String MQ = "mq";
+
+    @Autowired
+    private CuratorFramework curatorFramework;
+
+    @Autowired
+    private ZookeeperProperties zookeeperProperties;
+
+    @Autowired
+    private CanaryProperties properties;
+
+    @Autowired
+    private ServiceAwareReleaseStateService releaseStateService;
+
+    @Autowired
+    private CanarySampler sampler;
+
+    @Autowired
+    private CanaryAuditLog auditLog;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final String analyzerId = new JobInstance().getJobInstanceId();
+    private final Consumer<ReleaseState> stateChangeListener = this::onReleaseStateChanged;
+    // 来源 -> 最近一个样本充足的生产窗口
+    private final Map<String, WindowStats> baselines = new ConcurrentHashMap<>();
+
+    private LeaderLatch leaderLatch;
+    private ScheduledExecutorService executor;
+    private volatile boolean paused;
+    private volatile long stageStartTime = System.currentTimeMillis();
+    private volatile int consecutivePasses;
+    private volatile int consecutiveFailures;
+    private volatile CanaryDecision lastDecision;
+
+    /**
+     * 单项检查结果
+     */
+    private static final class Check {
+        final CanaryVerdict verdict;
+        final String detail;
+
+        Check(String name, CanaryVerdict verdict, String detail) {
+            this.verdict = verdict;
+            this.detail = name + " " + verdict + " " + detail;
+        }
+    }
+
+    @PostConstruct
+    public void init() throws Exception {
+        String serviceName = properties.getServiceName();
+        releaseStateService.addServiceStateChangeListener(serviceName, stateChangeListener);
+        leaderLatch = new LeaderLatch(curatorFramework,
+                zookeeperProperties.getReleaseStatePath() + "/" + serviceName + "/canary-leader", analyzerId);
+        leaderLatch.start();
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "canary-analyzer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 错开半个窗口，读取各节点刚发布的采样
+        long interval = properties.getIntervalMs();
+        executor.scheduleAtFixedRate(this::analyze, interval + interval / 2, interval, TimeUnit.MILLISECONDS);
+    }
+
+    private void onReleaseStateChanged(ReleaseState state) {
+        // 无论是本节点推进还是人工修改，新阶段都重新计数
+        stageStartTime = System.currentTimeMillis();
+        consecutivePasses = 0;
+        consecutiveFailures = 0;
+    }
+
+    private void analyze() {
+        try {
+            if (!leaderLatch.hasLeadership()) {
+                return;
+            }
+            // 发布开始前生产侧有流量，不论是否在发布流程中都汇总采样，保持基线最新
+            Map<String, Map<String, WindowStats>> lanes = aggregate(loadSamples());
+            updateBaselines(lanes);
+            if (!properties.isEnabled() || paused) {
+                return;
+            }
+            String serviceName = properties.getServiceName();
+            ReleaseState state = releaseStateService.getServiceReleaseState(serviceName);
+            List<ReleaseState> stages = properties.getStages();
+            int stage = stages.indexOf(state);
+            if (stage < 0 || stage == stages.size() - 1) {
+                // 不在发布流程中或已到最后阶段
+                return;
+            }
+
+            List<Check> checks = evaluate(lanes);
+            CanaryVerdict verdict = overall(checks);
+            if (verdict == CanaryVerdict.FAIL) {
+                consecutiveFailures++;
+                consecutivePasses = 0;
+            } else if (verdict == CanaryVerdict.PASS) {
+                consecutivePasses++;
+                consecutiveFailures = 0;
+            }
+
+            CanaryAction action = CanaryAction.HOLD;
+            ReleaseState target = state;
+            if (consecutiveFailures >= properties.getRollbackAfterWindows()) {
+                action = CanaryAction.ROLLBACK;
+                target = properties.getRollbackState();
+            } else if (consecutivePasses >= properties.getPromoteAfterWindows()
+                    && System.currentTimeMillis() - stageStartTime >= properties.getMinStageDurationMs()) {
+                action = CanaryAction.PROMOTE;
+                target = stages.get(stage + 1);
+            }
+
+            CanaryDecision decision = new CanaryDecision();
+            decision.setTimestamp(System.currentTimeMillis());
+            decision.setServiceName(serviceName);
+            decision.setAnalyzer(analyzerId);
+            decision.setState(state);
+            decision.setVerdict(verdict);
+            decision.setAction(action);
+            decision.setTargetState(target);
+            decision.setConsecutivePasses(consecutivePasses);
+            decision.setConsecutiveFailures(consecutiveFailures);
+            checks.forEach(check -> decision.getChecks().add(check.detail));
+            auditLog.record(decision);
+            lastDecision = decision;
+
+            if (action != CanaryAction.HOLD) {
+                log.info("Canary {} for service {}: {} -> {}", action, serviceName, state, target);
+                releaseStateService.updateServiceReleaseState(serviceName, target);
+                onReleaseStateChanged(target);
+            }
+        } catch (Exception e) {
+            log.warn("Canary analysis failed", e);
+        }
+    }
+
+    /**
+     * 读取最近两个窗口内发布的各节点采样
+     */
+    private List<CanaryNodeSample> loadSamples() throws Exception {
+        String path = sampler.samplesPath();
+        List<CanaryNodeSample> samples = new ArrayList<>();
+        if (curatorFramework.checkExists().forPath(path) == null) {
+            return samples;
+        }
+        long oldest = System.currentTimeMillis() - 2 * properties.getIntervalMs();
+        for (String child : curatorFramework.getChildren().forPath(path)) {
+            byte[] data = curatorFramework.getData().forPath(path + "/" + child);
+            CanaryNodeSample sample = objectMapper.readValue(data, CanaryNodeSample.class);
+            if (sample.getTimestamp() >= oldest) {
+                samples.add(sample);
+            }
+        }
+        return samples;
+    }
+
+    /**
+     * 按来源和泳道汇总各节点采样：来源 -> 泳道 -> 窗口统计
+     */
+    private static Map<String, Map<String, WindowStats>> aggregate(List<CanaryNodeSample> samples) {
+        Map<String, WindowStats> dubbo = new HashMap<>();
+        Map<String, WindowStats> mq = new HashMap<>();
+        for (CanaryNodeSample sample : samples) {
+            sample.getDubbo().forEach((lane, stats) -> dubbo.computeIfAbsent(lane, k -> new WindowStats()).merge(stats));
+            String lane = CanarySampler.laneOf(sample.getNodeType());
+            if (lane != null) {
+                mq.computeIfAbsent(lane, k -> new WindowStats()).merge(sample.getMq());
+            }
+        }
+        Map<String, Map<String, WindowStats>> lanes = new HashMap<>();
+        lanes.put(DUBBO, dubbo);
+        lanes.put(MQ, mq);
+        return lanes;
+    }
+
+    private void updateBaselines(Map<String, Map<String, WindowStats>> lanes) {
+        lanes.forEach((source, bySource) -> {
+            WindowStats prod = bySource.get(CanarySampler.PRD);
+            if (prod != null && prod.getCount() >= properties.getMinSamples()) {
+                baselines.put(source, prod);
+            }
+        });
+    }
+
+    private List<Check> evaluate(Map<String, Map<String, WindowStats>> lanes) {
+        Map<String, WindowStats> dubbo = lanes.get(DUBBO);
+        Map<String, WindowStats> mq = lanes.get(MQ);
+        List<Check> checks = new ArrayList<>();
+        if (properties.isDubboEnabled()) {
+            compare(DUBBO, dubbo.get(CanarySampler.GRAY), checks);
+        }
+        if (properties.isMqEnabled()) {
+            compare(MQ, mq.get(CanarySampler.GRAY), checks);
+            compareThroughput(mq.get(CanarySampler.GRAY), mq.get(CanarySampler.PRD), checks);
+        }
+        return checks;
+    }
+
+    /**
+     * 与生产基线比较，基线为本窗口的生产统计，生产侧本窗口样本不足时为最近一个样本充足的窗口
+     */
+    private void compare(String source, WindowStats gray, List<Check> checks) {
+        long minSamples = properties.getMinSamples();
+        WindowStats prod = baselines.get(source);
+        if (gray == null || gray.getCount() < minSamples || prod == null) {
+            checks.add(new Check(source, CanaryVerdict.INCONCLUSIVE, "gray=" + (gray == null ? 0 : gray.getCount())
+                    + " prd=" + (prod == null ? 0 : prod.getCount()) + " samples"));
+            return;
+        }
+        checks.add(compareErrorRate(source, gray, prod));
+        checks.add(compareLatency(source + ".p50", gray.percentileMs(0.50), prod.percentileMs(0.50),
+                properties.getMaxP50Ratio()));
+        checks.add(compareLatency(source + ".p99", gray.percentileMs(0.99), prod.percentileMs(0.99),
+                properties.getMaxP99Ratio()));
+    }
+
+    private Check compareErrorRate(String source, WindowStats gray, WindowStats prod) {
+        double grayRate = gray.errorRate();
+        double prodRate = prod.errorRate();
+        double pooled = (gray.getErrors() + prod.getErrors()) / (double) (gray.getCount() + prod.getCount());
+        double se = Math.sqrt(pooled * (1 - pooled) * (1.0 / gray.getCount() + 1.0 / prod.getCount()));
+        double z = se == 0 ? (grayRate > prodRate ? Double.POSITIVE_INFINITY : 0) : (grayRate - prodRate) / se;
+        boolean worse = z > properties.getErrorRateZThreshold()
+                && grayRate - prodRate > properties.getMinErrorRateIncrease();
+        return new Check(source + ".errorRate", worse ? CanaryVerdict.FAIL : CanaryVerdict.PASS,
+                String.format("gray=%.4f prd=%.4f z=%.2f", grayRate, prodRate, z));
+    }
+
+    private Check compareLatency(String name, double grayMs, double prodMs, double maxRatio) {
+        boolean worse = grayMs > prodMs * maxRatio && grayMs - prodMs > properties.getMinLatencyIncreaseMs();
+        return new Check(name, worse ? CanaryVerdict.FAIL : CanaryVerdict.PASS,
+                String.format("gray=%.2fms prd=%.2fms", grayMs, prodMs));
+    }
+
+    /**
+     * 只在双方同一窗口都在消费时比较，两个消费组各自收到全量消息，吞吐应当接近
+     */
+    private void compareThroughput(WindowStats gray, WindowStats prod, List<Check> checks) {
+        long minSamples = properties.getMinSamples();
+        if (gray == null || prod == null || prod.getCount() < minSamples) {
+            return;
+        }
+        double grayTps = gray.ratePerSecond();
+        double prodTps = prod.ratePerSecond();
+        boolean worse = grayTps < prodTps * properties.getMinThroughputRatio();
+        checks.add(new Check(MQ + ".throughput", worse ? CanaryVerdict.FAIL : CanaryVerdict.PASS,
+                String.format("gray=%.1f/s prd=%.1f/s", grayTps, prodTps)));
+    }
+
+    private static CanaryVerdict overall(List<Check> checks) {
+        boolean passed = false;
+        for (Check check : checks) {
+            if (check.verdict == CanaryVerdict.FAIL) {
+                return CanaryVerdict.FAIL;
+            }
+            passed |= check.verdict == CanaryVerdict.PASS;
+        }
+        return passed ? CanaryVerdict.PASS : CanaryVerdict.INCONCLUSIVE;
+    }
+
+    public void setPaused(boolean paused) {
+        this.paused = paused;
+        log.info("Canary analysis for service {} {}", properties.getServiceName(), paused ? "paused" : "resumed");
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("serviceName", properties.getServiceName());
+        snapshot.put("enabled", properties.isEnabled());
+        snapshot.put("paused", paused);
+        snapshot.put("leader", leaderLatch != null && leaderLatch.hasLeadership());
+        snapshot.put("state", releaseStateService.getServiceReleaseState(properties.getServiceName()));
+        snapshot.put("stages", properties.getStages());
+        snapshot.put("stageStartTime", stageStartTime);
+        snapshot.put("consecutivePasses", consecutivePasses);
+        snapshot.put("consecutiveFailures", consecutiveFailures);
+        snapshot.put("baselines", baselines.keySet());
+        snapshot.put("lastDecision", lastDecision);
+        return snapshot;
+    }
+
+    @PreDestroy
+    public void destroy() {
+        releaseStateService.removeServiceStateChangeListener(properties.getServiceName(), stateChangeListener);
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        try {
+            if (leaderLatch != null) {
+                leaderLatch.close();
+            }
+        } catch (Exception e) {
+            log.warn("Failed to close canary leader latch", e);
+        }
+    }
+}
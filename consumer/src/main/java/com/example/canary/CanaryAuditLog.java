@@ -0,0 +1,107 @@
+package com.example.canary;
+
+import com.example.config.CanaryProperties;
+import com.example.config.ZookeeperProperties;
+import com.example.enums.CanaryAction;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.zookeeper.CreateMode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * 金丝雀决策审计
+ * 每个窗口的决策都写入独立的 CANARY_AUDIT 日志并保留在内存中；切换发布状态的决策另外以顺序节点持久化到
+ * {release-state-path}/{service}/canary-audit，分析节点切换或重启后仍可查询。
+ */
+@Slf4j
+@Component
+public class CanaryAuditLog {
+
+    private static final Logger AUDIT = LoggerFactory.getLogger("CANARY_AUDIT");
+    private static final int RECENT_CAPACITY = 200;
+
+    @Autowired
+    private CuratorFramework curatorFramework;
+
+    @Autowired
+    private ZookeeperProperties zookeeperProperties;
+
+    @Autowired
+    private CanaryProperties properties;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final ArrayDeque<CanaryDecision> recent = new ArrayDeque<>();
+
+    public void record(CanaryDecision decision) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(decision);
+        } catch (Exception e) {
+            json = decision.toString();
+        }
+        AUDIT.info(json);
+        synchronized (recent) {
+            recent.addFirst(decision);
+            while (recent.size() > RECENT_CAPACITY) {
+                recent.removeLast();
+            }
+        }
+        if (decision.getAction() != CanaryAction.HOLD) {
+            try {
+                curatorFramework.create().creatingParentsIfNeeded().withMode(CreateMode.PERSISTENT_SEQUENTIAL)
+                        .forPath(auditPath() + "/decision-", json.getBytes("UTF-8"));
+            } catch (Exception e) {
+                log.error("Failed to persist canary decision for service {}", decision.getServiceName(), e);
+            }
+        }
+    }
+
+    /**
+     * 本节点最近的决策（含HOLD），新的在前
+     */
+    public List<CanaryDecision> recent(int limit) {
+        List<CanaryDecision> result = new ArrayList<>();
+        synchronized (recent) {
+            Iterator<CanaryDecision> iterator = recent.iterator();
+            while (iterator.hasNext() && result.size() < limit) {
+                result.add(iterator.next());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 持久化的状态切换决策，新的在前
+     */
+    public List<CanaryDecision> history(int limit) throws Exception {
+        String path = auditPath();
+        if (curatorFramework.checkExists().forPath(path) == null) {
+            return Collections.emptyList();
+        }
+        List<String> children = new ArrayList<>(curatorFramework.getChildren().forPath(path));
+        // 顺序节点名按序号递增，倒序即新的在前
+        children.sort(Collections.reverseOrder());
+        List<CanaryDecision> result = new ArrayList<>();
+        for (String child : children.subList(0, Math.min(limit, children.size()))) {
+            byte[] data = curatorFramework.getData().forPath(path + "/" + child);
+            result.add(objectMapper.readValue(data, CanaryDecision.class));
+        }
+        return result;
+    }
+
+    private String auditPath() {
+        return zookeeperProperties.getReleaseStatePath() + "/" + properties.getServiceName() + "/canary-audit";
+    }
+}
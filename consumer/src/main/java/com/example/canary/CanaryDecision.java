@@ -0,0 +1,31 @@
+package com.example.canary;
+
+import com.example.enums.CanaryAction;
+import com.example.enums.CanaryVerdict;
+import com.example.enums.ReleaseState;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 一个分析窗口的决策及依据
+ */
+@Data
+public class CanaryDecision {
+
+    private long timestamp;
+    private String serviceName;
+    private String analyzer;
+    private ReleaseState state;
+    private CanaryVerdict verdict;
+    private CanaryAction action;
+    private ReleaseState targetState;
+    private int consecutivePasses;
+    private int consecutiveFailures;
+
+    /**
+     * 各检查项的结论，如 "mq.errorRate FAIL gray=0.0300 prd=0.0010 z=4.12"
+     */
+    private List<String> checks = new ArrayList<>();
+}
@@ -0,0 +1,26 @@
+package com.example.canary;
+
+import lombok.Data;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 单个消费者节点一个窗口的采样，发布在 {release-state-path}/{service}/canary/{jobInstanceId}
+ */
+@Data
+public class CanaryNodeSample {
+
+    private String nodeType;
+    private long timestamp;
+
+    /**
+     * 本节点发出的Dubbo调用，按提供者泳道（GRAY/PRD）分组
+     */
+    private Map<String, WindowStats> dubbo = new HashMap<>();
+
+    /**
+     * 本节点的MQ消息处理，泳道即本节点类型
+     */
+    private WindowStats mq = new WindowStats();
+}
@@ -0,0 +1,156 @@
+package com.example.canary;
+
+import com.dangdang.ddframe.job.lite.api.strategy.JobInstance;
+import com.example.config.CanaryProperties;
+import com.example.config.ZookeeperProperties;
+import com.example.job.AbstractGrayControlledJob;
+import com.example.metrics.DubboMetricsRegistry;
+import com.example.metrics.LatencyHistogram;
+import com.example.service.MQConsumerService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.recipes.nodes.PersistentEphemeralNode;
+import org.apache.curator.utils.ZKPaths;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 金丝雀采样
+ * 每个窗口把本节点的Dubbo调用（按提供者泳道）和MQ消息处理统计与上一窗口相减，
+ * 发布到 {release-state-path}/{service}/canary/{jobInstanceId} 临时节点，由 {@link CanaryAnalyzer} 汇总。
+ */
+@Slf4j
+@Service
+public class CanarySampler {
+
+    public static final String GRAY = "GRAY";
+    public static final String PRD = "PRD";
+
+    @Autowired
+    private CuratorFramework curatorFramework;
+
+    @Autowired
+    private ZookeeperProperties zookeeperProperties;
+
+    @Autowired
+    private CanaryProperties properties;
+
+    @Autowired
+    private MQConsumerService mqConsumerService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final String nodeType = AbstractGrayControlledJob.localNodeType();
+
+    // 泳道 -> 上一窗口的累计值
+    private Map<String, WindowStats> previousDubbo = new HashMap<>();
+    private WindowStats previousMq = new WindowStats();
+    private long previousTime;
+
+    private PersistentEphemeralNode node;
+    private ScheduledExecutorService executor;
+
+    /**
+     * 节点类型所属泳道，未知节点类型返回null
+     */
+    public static String laneOf(String nodeType) {
+        if (nodeType == null || DubboMetricsRegistry.UNKNOWN.equals(nodeType)) {
+            return null;
+        }
+        return nodeType.toUpperCase().contains(GRAY) ? GRAY : PRD;
+    }
+
+    /**
+     * 采样节点所在目录
+     */
+    String samplesPath() {
+        return zookeeperProperties.getReleaseStatePath() + "/" + properties.getServiceName() + "/canary";
+    }
+
+    @PostConstruct
+    public void init() throws Exception {
+        previousTime = System.currentTimeMillis();
+        previousDubbo = cumulativeDubbo();
+        previousMq = cumulativeMq();
+        node = new PersistentEphemeralNode(curatorFramework, PersistentEphemeralNode.Mode.EPHEMERAL,
+                ZKPaths.makePath(samplesPath(), new JobInstance().getJobInstanceId()),
+                objectMapper.writeValueAsBytes(new CanaryNodeSample()));
+        node.start();
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "canary-sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleAtFixedRate(this::sample, properties.getIntervalMs(), properties.getIntervalMs(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    private void sample() {
+        try {
+            long now = System.currentTimeMillis();
+            long duration = now - previousTime;
+            Map<String, WindowStats> dubbo = cumulativeDubbo();
+            WindowStats mq = cumulativeMq();
+
+            CanaryNodeSample sample = new CanaryNodeSample();
+            sample.setNodeType(nodeType);
+            sample.setTimestamp(now);
+            dubbo.forEach((lane, current) -> sample.getDubbo().put(lane, WindowStats.delta(current.getCount(),
+                    current.getErrors(), current.getBuckets(),
+                    previousDubbo.getOrDefault(lane, new WindowStats()), duration)));
+            sample.setMq(WindowStats.delta(mq.getCount(), mq.getErrors(), mq.getBuckets(), previousMq, duration));
+
+            previousDubbo = dubbo;
+            previousMq = mq;
+            previousTime = now;
+            node.setData(objectMapper.writeValueAsBytes(sample));
+        } catch (Exception e) {
+            log.warn("Failed to publish canary sample", e);
+        }
+    }
+
+    private static Map<String, WindowStats> cumulativeDubbo() {
+        Map<String, WindowStats> lanes = new HashMap<>();
+        DubboMetricsRegistry.forEachByNodeType((providerNodeType, histogram) -> {
+            String lane = laneOf(providerNodeType);
+            if (lane != null) {
+                lanes.computeIfAbsent(lane, k -> new WindowStats()).merge(cumulativeOf(histogram));
+            }
+        });
+        return lanes;
+    }
+
+    private WindowStats cumulativeMq() {
+        return cumulativeOf(mqConsumerService.getProcessingHistogram());
+    }
+
+    private static WindowStats cumulativeOf(LatencyHistogram histogram) {
+        // 先读桶再读总数，并发记录时总数可能略大于桶之和，不影响分位数
+        long[] buckets = histogram.bucketCounts();
+        return WindowStats.cumulative(histogram.getCount(), histogram.getErrors(), buckets);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        try {
+            if (node != null) {
+                node.close();
+            }
+        } catch (Exception e) {
+            log.warn("Failed to close canary sample node", e);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.canary;
+
+import lombok.Data;
+
+/**
+ * 一个窗口内的调用统计，桶的划分与 {@link com.example.metrics.LatencyHistogram} 相同
+ * 由累计值相减得到，可跨节点合并，序列化后发布到ZooKeeper。
+ */
+@Data
+public class WindowStats {
+
+    private long count;
+    private long errors;
+    private long durationMs;
+    private long[] buckets = new long[0];
+
+    /**
+     * 两次累计快照之差
+     */
+    static WindowStats delta(long count, long errors, long[] buckets, WindowStats previous, long durationMs) {
+        WindowStats stats = new WindowStats();
+        stats.count = Math.max(0, count - previous.count);
+        stats.errors = Math.max(0, errors - previous.errors);
+        stats.durationMs = durationMs;
+        stats.buckets = new long[buckets.length];
+        for (int i = 0; i < buckets.length; i++) {
+            long before = i < previous.buckets.length ? previous.buckets[i] : 0;
+            stats.buckets[i] = Math.max(0, buckets[i] - before);
+        }
+        return stats;
+    }
+
+    static WindowStats cumulative(long count, long errors, long[] buckets) {
+        WindowStats stats = new WindowStats();
+        stats.count = count;
+        stats.errors = errors;
+        stats.buckets = buckets;
+        return stats;
+    }
+
+    /**
+     * 合并另一窗口，持续时间取较长者（各节点窗口并行）
+     */
+    void merge(WindowStats other) {
+        count += other.count;
+        errors += other.errors;
+        durationMs = Math.max(durationMs, other.durationMs);
+        if (other.buckets.length > buckets.length) {
+            long[] grown = new long[other.buckets.length];
+            System.arraycopy(buckets, 0, grown, 0, buckets.length);
+            buckets = grown;
+        }
+        for (int i = 0; i < other.buckets.length; i++) {
+            buckets[i] += other.buckets[i];
+        }
+    }
+
+    double errorRate() {
+        return count == 0 ? 0 : errors / (double) count;
+    }
+
+    double ratePerSecond() {
+        return durationMs <= 0 ? 0 : count * 1000.0 / durationMs;
+    }
+
+    /**
+     * 分位数（毫秒），在桶内按线性插值估算，比直接取桶上界更能区分相近的耗时
+     */
+    double percentileMs(double percentile) {
+        long total = 0;
+        for (long bucket : buckets) {
+            total += bucket;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        double rank = total * percentile;
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            if (buckets[i] > 0 && seen + buckets[i] >= rank) {
+                // 第i个桶覆盖[2^(i-1), 2^i)微秒，第0个桶为0
+                double lower = i == 0 ? 0 : 1L << (i - 1);
+                double upper = i == 0 ? 1 : 1L << i;
+                return (lower + (upper - lower) * (rank - seen) / buckets[i]) / 1000.0;
+            }
+            seen += buckets[i];
+        }
+        return (1L << (buckets.length - 1)) / 1000.0;
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.cluster;
+
+import org.apache.dubbo.rpc.RpcException;
+import org.apache.dubbo.rpc.cluster.Directory;
+import org.apache.dubbo.rpc.cluster.support.AbstractClusterInvoker;
+import org.apache.dubbo.rpc.cluster.support.wrapper.AbstractCluster;
+
+/**
+ * 对冲调用集群，引用上配置 cluster = "hedging" 启用
+ */
+public class HedgingCluster extends AbstractCluster {
+
+    public static final String NAME = "hedging";
+
+    @Override
+    protected <T> AbstractClusterInvoker<T> doJoin(Directory<T> directory) throws RpcException {
+        return new HedgingClusterInvoker<>(directory);
+    }
+}
@@ -0,0 +1,242 @@
+package com.example.cluster;
+
+import com.example.config.HedgingProperties;
+import com.example.filter.ConsumerMetricsFilter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.dubbo.remoting.TimeoutException;
+import org.apache.dubbo.rpc.AppResponse;
+import org.apache.dubbo.rpc.AsyncRpcResult;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.InvokeMode;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.Result;
+import org.apache.dubbo.rpc.RpcContext;
+import org.apache.dubbo.rpc.RpcException;
+import org.apache.dubbo.rpc.RpcInvocation;
+import org.apache.dubbo.rpc.cluster.Directory;
+import org.apache.dubbo.rpc.cluster.LoadBalance;
+import org.apache.dubbo.rpc.cluster.support.AbstractClusterInvoker;
+import org.apache.dubbo.rpc.protocol.dubbo.FutureAdapter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对冲调用：首个请求超过最近耗时分位数仍未返回时，向同一节点类型的另一个提供者再发一次，先返回的结果生效
+ * 只对方法参数hedge=true的方法生效，其余方法与failfast一致。两次请求都以FUTURE模式发出，不占用调用线程；
+ * 对冲请求受 {@link HedgingPolicy} 的预算限制，首个请求在对冲前失败时直接返回失败。
+ */
+@Slf4j
+public class HedgingClusterInvoker<T> extends AbstractClusterInvoker<T> {
+
+    public static final String HEDGE_KEY = "hedge";
+
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "dubbo-hedging-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public HedgingClusterInvoker(Directory<T> directory) {
+        super(directory);
+    }
+
+    @Override
+    protected Result doInvoke(Invocation invocation, List<Invoker<T>> invokers, LoadBalance loadbalance)
+            throws RpcException {
+        checkInvokers(invokers, invocation);
+        Invoker<T> primary = select(loadbalance, invocation, invokers, null);
+        HedgingProperties properties = HedgingRegistry.getProperties();
+        String methodName = invocation.getMethodName();
+        if (!properties.isEnabled() || !(invocation instanceof RpcInvocation) || invokers.size() < 2
+                || !getUrl().getMethodParameter(methodName, HEDGE_KEY, false)) {
+            return invokeFailfast(primary, invocation);
+        }
+
+        RpcInvocation original = (RpcInvocation) invocation;
+        HedgingPolicy policy = HedgingRegistry.policy(getInterface().getName(), methodName);
+        policy.onRequest(properties);
+        HedgedCall call = new HedgedCall(policy, properties);
+        call.launch(primary, original, false);
+        if (!call.winner.isDone()) {
+            call.timer = TIMER.schedule(() -> hedge(call, original, invokers, loadbalance, primary),
+                    policy.hedgeDelayMs(properties), TimeUnit.MILLISECONDS);
+        }
+
+        if (original.getInvokeMode() == InvokeMode.SYNC) {
+            // 每个请求都有自己的超时，等待不会超过 对冲延迟 + 超时
+            try {
+                call.winner.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RpcException("Interrupted while waiting for hedged call " + methodName, e);
+            } catch (ExecutionException e) {
+                throw toRpcException(e.getCause());
+            }
+        } else if (original.getInvokeMode() == InvokeMode.FUTURE) {
+            // 首个请求已把自己的Future放入上下文，替换为合并后的结果
+            RpcContext.getServiceContext().setFuture(new FutureAdapter<>(call.winner));
+        }
+        return new AsyncRpcResult(call.winner, invocation);
+    }
+
+    private Result invokeFailfast(Invoker<T> invoker, Invocation invocation) {
+        try {
+            return invokeWithContext(invoker, invocation);
+        } catch (Throwable e) {
+            throw toRpcException(e);
+        }
+    }
+
+    private void hedge(HedgedCall call, RpcInvocation original, List<Invoker<T>> invokers,
+                       LoadBalance loadbalance, Invoker<T> primary) {
+        if (call.winner.isDone()) {
+            return;
+        }
+        try {
+            List<Invoker<T>> candidates = sameLane(invokers, primary);
+            if (candidates.isEmpty()) {
+                call.policy.onNoAlternative();
+                return;
+            }
+            if (!call.policy.tryAcquireHedge()) {
+                return;
+            }
+            Invoker<T> hedge = select(loadbalance, original, candidates, null);
+            call.policy.onHedgeSent();
+            log.debug("Hedging {}.{} to {} after primary {} stayed silent", getInterface().getSimpleName(),
+                    original.getMethodName(), hedge.getUrl().getAddress(), primary.getUrl().getAddress());
+            call.launch(hedge, original, true);
+        } catch (Exception e) {
+            log.warn("Failed to send hedged request for {}", original.getMethodName(), e);
+        }
+    }
+
+    /**
+     * 与首个请求节点类型相同的其他可用提供者，避免对冲请求跨越灰度泳道
+     */
+    private List<Invoker<T>> sameLane(List<Invoker<T>> invokers, Invoker<T> primary) {
+        String lane = primary.getUrl().getParameter(ConsumerMetricsFilter.NODE_TYPE_KEY);
+        List<Invoker<T>> candidates = new ArrayList<>(invokers.size());
+        for (Invoker<T> invoker : invokers) {
+            if (invoker != primary && invoker.isAvailable()
+                    && Objects.equals(lane, invoker.getUrl().getParameter(ConsumerMetricsFilter.NODE_TYPE_KEY))) {
+                candidates.add(invoker);
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * 每次请求使用独立的Invocation：attributes不能共享，否则两个请求的Filter会互相覆盖计时等状态
+     */
+    private static RpcInvocation copyOf(RpcInvocation original) {
+        return new RpcInvocation(original.getTargetServiceUniqueName(), original.getServiceModel(),
+                original.getMethodName(), original.getServiceName(), original.getProtocolServiceKey(),
+                original.getParameterTypes(), original.getArguments(), original.copyObjectAttachments(),
+                original.getInvoker(), new HashMap<>(original.getAttributes()), InvokeMode.FUTURE);
+    }
+
+    private static RpcException toRpcException(Throwable t) {
+        Throwable cause = t;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof RpcException) {
+            return (RpcException) cause;
+        }
+        if (cause instanceof TimeoutException) {
+            return new RpcException(RpcException.TIMEOUT_EXCEPTION, cause.getMessage(), cause);
+        }
+        return new RpcException(cause.getMessage(), cause);
+    }
+
+    private static CompletableFuture<AppResponse> responseOf(Result result) {
+        if (result instanceof AsyncRpcResult) {
+            return ((AsyncRpcResult) result).getResponseFuture();
+        }
+        AppResponse response = result instanceof AppResponse ? (AppResponse) result : new AppResponse(result.getValue());
+        if (!(result instanceof AppResponse) && result.hasException()) {
+            response.setException(result.getException());
+        }
+        return CompletableFuture.completedFuture(response);
+    }
+
+    /**
+     * 一次对冲调用的状态，先返回的结果完成winner，全部请求失败时以最后一个失败结束
+     */
+    private final class HedgedCall {
+
+        private final HedgingPolicy policy;
+        private final HedgingProperties properties;
+        private final CompletableFuture<AppResponse> winner = new CompletableFuture<>();
+        private volatile ScheduledFuture<?> timer;
+        private int inFlight;
+        private boolean finished;
+
+        HedgedCall(HedgingPolicy policy, HedgingProperties properties) {
+            this.policy = policy;
+            this.properties = properties;
+            winner.whenComplete((response, t) -> {
+                ScheduledFuture<?> pending = timer;
+                if (pending != null) {
+                    pending.cancel(false);
+                }
+            });
+        }
+
+        void launch(Invoker<T> invoker, RpcInvocation original, boolean hedge) {
+            synchronized (this) {
+                if (finished) {
+                    return;
+                }
+                inFlight++;
+            }
+            long start = System.nanoTime();
+            CompletableFuture<AppResponse> response;
+            try {
+                response = responseOf(invokeWithContext(invoker, copyOf(original)));
+            } catch (Throwable e) {
+                onFailure(toRpcException(e));
+                return;
+            }
+            response.whenComplete((appResponse, t) -> {
+                if (t != null) {
+                    onFailure(toRpcException(t));
+                    return;
+                }
+                if (!appResponse.hasException()) {
+                    policy.recordLatency(System.nanoTime() - start, properties);
+                }
+                // 业务异常也是提供者的有效应答，同样结束本次调用
+                synchronized (this) {
+                    finished = true;
+                }
+                if (winner.complete(appResponse) && hedge) {
+                    policy.onHedgeWon();
+                }
+            });
+        }
+
+        private void onFailure(RpcException e) {
+            synchronized (this) {
+                inFlight--;
+                if (inFlight > 0 || finished) {
+                    return;
+                }
+                finished = true;
+            }
+            winner.completeExceptionally(e);
+        }
+    }
+}
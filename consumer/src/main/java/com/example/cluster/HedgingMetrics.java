@@ -0,0 +1,43 @@
+package com.example.cluster;
+
+import com.example.config.HedgingProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * 将配置注入 {@link HedgingRegistry}，并把每个方法的对冲次数注册为Micrometer指标
+ */
+@Component
+public class HedgingMetrics implements MeterBinder {
+
+    @Autowired
+    private HedgingProperties properties;
+
+    @PostConstruct
+    public void init() {
+        HedgingRegistry.configure(properties);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        HedgingRegistry.onPolicyCreated(policy -> bind(registry, policy));
+    }
+
+    private void bind(MeterRegistry registry, HedgingPolicy policy) {
+        Tags tags = Tags.of("interface", policy.getInterfaceName(), "method", policy.getMethodName());
+        FunctionCounter.builder("dubbo.consumer.hedging.requests", policy, HedgingPolicy::getRequests)
+                .tags(tags).register(registry);
+        FunctionCounter.builder("dubbo.consumer.hedging.sent", policy, HedgingPolicy::getHedgesSent)
+                .tags(tags).register(registry);
+        FunctionCounter.builder("dubbo.consumer.hedging.won", policy, HedgingPolicy::getHedgesWon)
+                .tags(tags).register(registry);
+        FunctionCounter.builder("dubbo.consumer.hedging.budget.exhausted", policy, HedgingPolicy::getBudgetExhausted)
+                .tags(tags).register(registry);
+    }
+}
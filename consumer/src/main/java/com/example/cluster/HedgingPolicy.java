@@ -0,0 +1,157 @@
+package com.example.cluster;
+
+import com.example.config.HedgingProperties;
+import com.example.metrics.LatencyHistogram;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个方法的对冲策略：最近耗时分位数决定对冲延迟，令牌桶限制对冲请求比例
+ * 每个正常请求存入budgetRatio个令牌，每次对冲消耗一个，令牌以千分之一为单位存放以避免浮点CAS。
+ */
+public class HedgingPolicy {
+
+    private static final long TOKEN = 1000;
+
+    private final String interfaceName;
+    private final String methodName;
+    private final AtomicLong budgetMilliTokens = new AtomicLong();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder hedgesSent = new LongAdder();
+    private final LongAdder hedgesWon = new LongAdder();
+    private final LongAdder budgetExhausted = new LongAdder();
+    private final LongAdder noAlternative = new LongAdder();
+
+    private volatile LatencyHistogram current = new LatencyHistogram();
+    private volatile LatencyHistogram previous;
+    private volatile long windowStartMillis = System.currentTimeMillis();
+
+    HedgingPolicy(String interfaceName, String methodName) {
+        this.interfaceName = interfaceName;
+        this.methodName = methodName;
+    }
+
+    /**
+     * 记录一次正常请求，并按比例补充对冲预算
+     */
+    void onRequest(HedgingProperties properties) {
+        requests.increment();
+        long deposit = (long) (properties.getBudgetRatio() * TOKEN);
+        long cap = Math.max(1, properties.getBudgetBurst()) * TOKEN;
+        long tokens;
+        do {
+            tokens = budgetMilliTokens.get();
+            if (tokens >= cap) {
+                return;
+            }
+        } while (!budgetMilliTokens.compareAndSet(tokens, Math.min(cap, tokens + deposit)));
+    }
+
+    /**
+     * 尝试为一次对冲扣减预算
+     */
+    boolean tryAcquireHedge() {
+        long tokens;
+        do {
+            tokens = budgetMilliTokens.get();
+            if (tokens < TOKEN) {
+                budgetExhausted.increment();
+                return false;
+            }
+        } while (!budgetMilliTokens.compareAndSet(tokens, tokens - TOKEN));
+        return true;
+    }
+
+    /**
+     * 记录一次成功调用的耗时，作为后续对冲延迟的依据
+     */
+    void recordLatency(long elapsedNanos, HedgingProperties properties) {
+        rotateIfNeeded(properties);
+        current.record(elapsedNanos, false);
+    }
+
+    /**
+     * 当前的对冲延迟：优先使用上一个完整窗口，样本不足时退回当前窗口或默认值
+     */
+    long hedgeDelayMs(HedgingProperties properties) {
+        rotateIfNeeded(properties);
+        LatencyHistogram histogram = previous;
+        if (histogram == null || histogram.getCount() < properties.getMinSamples()) {
+            histogram = current;
+        }
+        if (histogram.getCount() < properties.getMinSamples()) {
+            return Math.max(properties.getMinDelayMs(), properties.getDefaultDelayMs());
+        }
+        long delay = (long) Math.ceil(histogram.percentileMs(properties.getPercentile()));
+        return Math.max(properties.getMinDelayMs(), delay);
+    }
+
+    private void rotateIfNeeded(HedgingProperties properties) {
+        long now = System.currentTimeMillis();
+        long windowMillis = TimeUnit.SECONDS.toMillis(Math.max(1, properties.getWindowSeconds()));
+        if (now - windowStartMillis < windowMillis) {
+            return;
+        }
+        synchronized (this) {
+            if (now - windowStartMillis >= windowMillis) {
+                previous = current;
+                current = new LatencyHistogram();
+                windowStartMillis = now;
+            }
+        }
+    }
+
+    void onHedgeSent() {
+        hedgesSent.increment();
+    }
+
+    void onHedgeWon() {
+        hedgesWon.increment();
+    }
+
+    void onNoAlternative() {
+        noAlternative.increment();
+    }
+
+    public String getInterfaceName() {
+        return interfaceName;
+    }
+
+    public String getMethodName() {
+        return methodName;
+    }
+
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    public long getHedgesSent() {
+        return hedgesSent.sum();
+    }
+
+    public long getHedgesWon() {
+        return hedgesWon.sum();
+    }
+
+    public long getBudgetExhausted() {
+        return budgetExhausted.sum();
+    }
+
+    Map<String, Object> toMap(HedgingProperties properties) {
+        long calls = getRequests();
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("requests", calls);
+        map.put("hedgesSent", getHedgesSent());
+        map.put("hedgesWon", getHedgesWon());
+        map.put("hedgeRate", calls == 0 ? 0 : getHedgesSent() / (double) calls);
+        map.put("budgetExhausted", getBudgetExhausted());
+        map.put("noAlternative", noAlternative.sum());
+        map.put("budgetTokens", budgetMilliTokens.get() / (double) TOKEN);
+        map.put("hedgeDelayMs", hedgeDelayMs(properties));
+        return map;
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.cluster;
+
+import com.example.config.HedgingProperties;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * 对冲策略注册表，按 接口 -> 方法 保存 {@link HedgingPolicy}
+ * Cluster由Dubbo SPI创建，配置和指标绑定由Spring组件在启动时注入。
+ */
+public final class HedgingRegistry {
+
+    private static final Map<String, Map<String, HedgingPolicy>> POLICIES = new ConcurrentHashMap<>();
+    private static final List<Consumer<HedgingPolicy>> LISTENERS = new CopyOnWriteArrayList<>();
+    private static volatile HedgingProperties properties = new HedgingProperties();
+
+    private HedgingRegistry() {
+    }
+
+    public static void configure(HedgingProperties newProperties) {
+        properties = newProperties;
+    }
+
+    public static HedgingProperties getProperties() {
+        return properties;
+    }
+
+    public static HedgingPolicy policy(String interfaceName, String methodName) {
+        Map<String, HedgingPolicy> methods = POLICIES.get(interfaceName);
+        if (methods == null) {
+            methods = POLICIES.computeIfAbsent(interfaceName, k -> new ConcurrentHashMap<>());
+        }
+        HedgingPolicy policy = methods.get(methodName);
+        if (policy == null) {
+            boolean[] created = {false};
+            policy = methods.computeIfAbsent(methodName, k -> {
+                created[0] = true;
+                return new HedgingPolicy(interfaceName, methodName);
+            });
+            if (created[0]) {
+                for (Consumer<HedgingPolicy> listener : LISTENERS) {
+                    listener.accept(policy);
+                }
+            }
+        }
+        return policy;
+    }
+
+    /**
+     * 注册新建HedgingPolicy的回调，并对已存在的立即回调一次
+     */
+    public static void onPolicyCreated(Consumer<HedgingPolicy> listener) {
+        LISTENERS.add(listener);
+        POLICIES.values().forEach(methods -> methods.values().forEach(listener));
+    }
+
+    public static Map<String, Object> snapshot() {
+        HedgingProperties current = properties;
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        POLICIES.forEach((interfaceName, methods) -> {
+            Map<String, Object> methodMap = new LinkedHashMap<>();
+            methods.forEach((methodName, policy) -> methodMap.put(methodName, policy.toMap(current)));
+            snapshot.put(interfaceName, methodMap);
+        });
+        return snapshot;
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.config;
+
+import com.example.enums.ReleaseState;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "canary")
+public class CanaryProperties {
+
+    /**
+     * 是否由分析结果自动切换发布状态，关闭时各节点仍上报采样，只是不做决策
+     */
+    private boolean enabled = false;
+
+    /**
+     * 被分析并切换发布状态的服务
+     */
+    private String serviceName;
+
+    /**
+     * 采样和分析的窗口长度
+     */
+    private long intervalMs = 30000;
+
+    /**
+     * 是否比较Dubbo调用（按提供者节点类型区分灰度和生产）
+     */
+    private boolean dubboEnabled = true;
+
+    /**
+     * 是否比较MQ消息处理（按消费者节点类型区分灰度和生产）
+     */
+    private boolean mqEnabled = true;
+
+    /**
+     * 发布阶段顺序，通过分析后依次推进，最后一个阶段不再分析
+     */
+    private List<ReleaseState> stages = Arrays.asList(ReleaseState.GRAY_ACCESSABLE, ReleaseState.ALL_ACCESSABLE,
+            ReleaseState.PROD_ACCESSABLE);
+
+    /**
+     * 回滚时切换到的状态
+     */
+    private ReleaseState rollbackState = ReleaseState.PROD_ACCESSABLE;
+
+    /**
+     * 连续多少个窗口通过后进入下一阶段
+     */
+    private int promoteAfterWindows = 3;
+
+    /**
+     * 连续多少个窗口失败后回滚
+     */
+    private int rollbackAfterWindows = 2;
+
+    /**
+     * 每个阶段至少停留的时间
+     */
+    private long minStageDurationMs = 120000;
+
+    /**
+     * 一侧窗口内少于该调用数时该项不下结论
+     */
+    private long minSamples = 50;
+
+    /**
+     * 错误率单侧双比例z检验的阈值，2.33约对应99%置信度
+     */
+    private double errorRateZThreshold = 2.33;
+
+    /**
+     * 灰度错误率至少比生产高出该值才判定失败，避免样本很大时微小差异也显著
+     */
+    private double minErrorRateIncrease = 0.005;
+
+    /**
+     * 灰度p50超过生产的倍数上限
+     */
+    private double maxP50Ratio = 1.3;
+
+    /**
+     * 灰度p99超过生产的倍数上限
+     */
+    private double maxP99Ratio = 1.5;
+
+    /**
+     * 耗时差小于该值（毫秒）时不判定失败
+     */
+    private double minLatencyIncreaseMs = 5;
+
+    /**
+     * 双方同时消费时，灰度消息处理吞吐不得低于生产的比例
+     */
+    private double minThroughputRatio = 0.8;
+}
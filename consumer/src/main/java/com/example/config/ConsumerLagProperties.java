@@ -0,0 +1,31 @@
+package com.example.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "mq.lag")
+public class ConsumerLagProperties {
+
+    /**
+     * 是否定时拉取消费组的消费进度
+     */
+    private boolean enabled = true;
+
+    /**
+     * 拉取间隔
+     */
+    private long refreshIntervalMs = 10000;
+
+    /**
+     * 连续这么多个拉取间隔没有成功拉取时，缓存的结果视为过期，堆积按未知处理
+     */
+    private int staleAfterIntervals = 3;
+
+    /**
+     * 本节点应当消费时，总堆积超过该值健康检查报告DEGRADED
+     */
+    private long degradedThreshold = 10000;
+}
@@ -0,0 +1,59 @@
+package com.example.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 消费者侧自适应限流与熔断配置，按 接口 + 提供者节点类型 分别生效
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "dubbo-demo.protection")
+public class ConsumerProtectionProperties {
+
+    /**
+     * 是否启用限流与熔断
+     */
+    private boolean enabled = true;
+
+    /**
+     * 初始并发上限
+     */
+    private int initialLimit = 20;
+
+    /**
+     * 并发上限的下限
+     */
+    private int minLimit = 1;
+
+    /**
+     * 并发上限的上限
+     */
+    private int maxLimit = 200;
+
+    /**
+     * 触发熔断的失败率
+     */
+    private double failureRateThreshold = 0.5;
+
+    /**
+     * 统计窗口内至少多少次调用才判断失败率
+     */
+    private int minimumCalls = 20;
+
+    /**
+     * 失败率统计窗口（秒）
+     */
+    private int windowSeconds = 10;
+
+    /**
+     * 熔断打开后多久进入半开
+     */
+    private long openDurationMs = 5000;
+
+    /**
+     * 半开状态放行的探测调用数
+     */
+    private int halfOpenProbes = 5;
+}
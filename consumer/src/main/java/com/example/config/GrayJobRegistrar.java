@@ -0,0 +1,171 @@
+package com.example.config;
+
+import com.dangdang.ddframe.job.api.ElasticJob;
+import com.dangdang.ddframe.job.config.JobCoreConfiguration;
+import com.dangdang.ddframe.job.config.JobTypeConfiguration;
+import com.dangdang.ddframe.job.config.dataflow.DataflowJobConfiguration;
+import com.dangdang.ddframe.job.config.simple.SimpleJobConfiguration;
+import com.dangdang.ddframe.job.lite.api.JobScheduler;
+import com.dangdang.ddframe.job.lite.api.listener.ElasticJobListener;
+import com.dangdang.ddframe.job.lite.config.LiteJobConfiguration;
+import com.dangdang.ddframe.job.lite.spring.api.SpringJobScheduler;
+import com.dangdang.ddframe.job.reg.zookeeper.ZookeeperRegistryCenter;
+import com.example.job.AbstractGrayControlledDataflowJob;
+import com.example.job.AbstractGrayControlledJob;
+import com.example.job.GrayAwareShardingStrategy;
+import com.example.job.GrayJob;
+import com.example.job.JobExecutionRecorder;
+import com.example.service.JobNodeRegistry;
+import com.example.service.JobShardScaler;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 注册所有标注了 {@link GrayJob} 的作业
+ * 所有作业共用一个注册中心，分片只分配给当前发布状态下可执行的节点。
+ * 调度器直接使用容器中的作业Bean执行，作业可以依赖注入和销毁回调，不会再由Elastic-Job按类名反射创建第二个实例。
+ * 各作业的JobScheduler.init需要多次访问注册中心，并行初始化，启动耗时不随作业数线性增长；任一作业失败则启动失败。
+ */
+@Slf4j
+@Component
+public class GrayJobRegistrar implements SmartInitializingSingleton {
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private ZookeeperRegistryCenter regCenter;
+
+    @Autowired
+    private JobNodeRegistry jobNodeRegistry;
+
+    @Autowired
+    private JobShardScaler jobShardScaler;
+
+    @Value("${job.init-threads:8}")
+    private int initThreads;
+
+    // 作业名 -> 调度器
+    private final Map<String, JobScheduler> schedulers = new LinkedHashMap<>();
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        Map<String, LiteJobConfiguration> configs = new LinkedHashMap<>();
+        for (Object bean : applicationContext.getBeansWithAnnotation(GrayJob.class).values()) {
+            LiteJobConfiguration config = createLiteJobConfiguration(ClassUtils.getUserClass(bean));
+            String jobName = config.getJobName();
+            if (configs.put(jobName, config) != null) {
+                throw new IllegalStateException("Duplicate job name: " + jobName);
+            }
+            jobNodeRegistry.track(jobName);
+            JobExecutionRecorder.registerSchedule(jobName, config.getTypeConfig().getCoreConfig().getCron());
+            // 流式作业自身监听每次触发的开始和结束，按触发开始和结束一轮处理
+            ElasticJobListener[] listeners = bean instanceof ElasticJobListener
+                    ? new ElasticJobListener[]{(ElasticJobListener) bean} : new ElasticJobListener[0];
+            schedulers.put(jobName, new SpringJobScheduler((ElasticJob) bean, regCenter, config, listeners));
+        }
+        if (schedulers.isEmpty()) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        AtomicInteger threadIndex = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(initThreads, schedulers.size())),
+                r -> new Thread(r, "job-init-" + threadIndex.incrementAndGet()));
+        try {
+            Map<String, Future<?>> futures = new LinkedHashMap<>();
+            schedulers.forEach((jobName, scheduler) -> futures.put(jobName, executor.submit(() -> {
+                scheduler.init();
+                JobExecutionRecorder.trackFireTimes(jobName);
+            })));
+            List<String> failed = new ArrayList<>();
+            for (Map.Entry<String, Future<?>> entry : futures.entrySet()) {
+                try {
+                    entry.getValue().get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while initializing jobs", e);
+                } catch (ExecutionException e) {
+                    log.error("Failed to initialize job {}", entry.getKey(), e.getCause());
+                    failed.add(entry.getKey());
+                }
+            }
+            if (!failed.isEmpty()) {
+                throw new IllegalStateException("Failed to initialize jobs: " + failed);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        log.info("Initialized {} jobs in {} ms", schedulers.size(), System.currentTimeMillis() - start);
+    }
+
+    public Map<String, JobScheduler> getSchedulers() {
+        return Collections.unmodifiableMap(schedulers);
+    }
+
+    private LiteJobConfiguration createLiteJobConfiguration(final Class<?> jobClass) {
+        GrayJob annotation = jobClass.getAnnotation(GrayJob.class);
+        String jobName = annotation.name().isEmpty() ? jobClass.getName() : resolve(annotation.name());
+        String shardingItemParameters = resolve(annotation.shardingItemParameters());
+        if (Boolean.parseBoolean(resolve(annotation.autoScale()))) {
+            // 分片总数随可执行实例数变化，由JobShardScaler计算并在变化时更新
+            return jobShardScaler.register(jobName, new JobShardScaler.Spec(
+                    Integer.parseInt(resolve(annotation.shardsPerInstance())),
+                    Integer.parseInt(resolve(annotation.minShardingTotalCount())),
+                    Integer.parseInt(resolve(annotation.maxShardingTotalCount())),
+                    shardingItemParameters,
+                    (total, parameters) -> createLiteJobConfiguration(jobClass, annotation, jobName, total, parameters)));
+        }
+        return createLiteJobConfiguration(jobClass, annotation, jobName,
+                Integer.parseInt(resolve(annotation.shardingTotalCount())), shardingItemParameters);
+    }
+
+    private LiteJobConfiguration createLiteJobConfiguration(final Class<?> jobClass, final GrayJob annotation,
+                                                            final String jobName, final int shardingTotalCount,
+                                                            final String shardingItemParameters) {
+        // 定义作业核心配置
+        JobCoreConfiguration coreConfig = JobCoreConfiguration.newBuilder(jobName, resolve(annotation.cron()),
+                shardingTotalCount)
+                .shardingItemParameters(shardingItemParameters)
+                .description(resolve(annotation.description())).build();
+        JobTypeConfiguration jobTypeConfig;
+        if (AbstractGrayControlledJob.class.isAssignableFrom(jobClass)) {
+            // 定义SIMPLE类型配置
+            jobTypeConfig = new SimpleJobConfiguration(coreConfig, jobClass.getCanonicalName());
+        } else if (AbstractGrayControlledDataflowJob.class.isAssignableFrom(jobClass)) {
+            // 定义DATAFLOW类型配置
+            jobTypeConfig = new DataflowJobConfiguration(coreConfig, jobClass.getCanonicalName(),
+                    annotation.streamingProcess());
+        } else {
+            throw new IllegalStateException("@GrayJob requires a gray-controlled job type: " + jobClass.getName());
+        }
+        // 定义Lite作业根配置，分片只分配给当前发布状态下可执行的节点
+        return LiteJobConfiguration.newBuilder(jobTypeConfig)
+                .jobShardingStrategyClass(GrayAwareShardingStrategy.class.getName())
+                .overwrite(true).build();
+    }
+
+    private String resolve(String value) {
+        return environment.resolveRequiredPlaceholders(value);
+    }
+}
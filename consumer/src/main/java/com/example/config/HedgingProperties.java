@@ -0,0 +1,54 @@
+package com.example.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 对冲请求配置，仅对引用上cluster="hedging"且方法参数hedge=true的幂等方法生效
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "dubbo-demo.hedging")
+public class HedgingProperties {
+
+    /**
+     * 是否发送对冲请求，关闭后按failfast调用
+     */
+    private boolean enabled = true;
+
+    /**
+     * 首个请求超过最近耗时的该分位数仍未返回时发送对冲请求
+     */
+    private double percentile = 0.95;
+
+    /**
+     * 对冲请求占正常请求的比例上限
+     */
+    private double budgetRatio = 0.05;
+
+    /**
+     * 预算允许的突发对冲请求数
+     */
+    private int budgetBurst = 10;
+
+    /**
+     * 对冲延迟下限，避免耗时很低时几乎每次都对冲
+     */
+    private long minDelayMs = 5;
+
+    /**
+     * 样本不足时使用的对冲延迟
+     */
+    private long defaultDelayMs = 50;
+
+    /**
+     * 计算分位数所需的最少样本数
+     */
+    private int minSamples = 100;
+
+    /**
+     * 耗时统计窗口（秒），分位数取自上一个完整窗口
+     */
+    private int windowSeconds = 30;
+}
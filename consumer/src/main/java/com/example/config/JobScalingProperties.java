@@ -0,0 +1,16 @@
+package com.example.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "job.scaling")
+public class JobScalingProperties {
+
+    /**
+     * 节点或发布状态变化后等待多久再调整分片数，发布期间节点陆续上下线时合并为一次调整
+     */
+    private long debounceMs = 2000;
+}
@@ -0,0 +1,16 @@
+package com.example.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "job.telemetry")
+public class JobTelemetryProperties {
+
+    /**
+     * 内存中保留的最近执行记录条数
+     */
+    private int recentCapacity = 200;
+}
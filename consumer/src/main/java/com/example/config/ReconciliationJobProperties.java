@@ -0,0 +1,25 @@
+package com.example.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "job.reconciliation")
+public class ReconciliationJobProperties {
+    /**
+     * 每次拉取的条数
+     */
+    private int pageSize = 100;
+
+    /**
+     * 每个分片的并行处理线程数
+     */
+    private int workerThreads = 4;
+
+    /**
+     * 每个分片每轮模拟产生的待处理条数
+     */
+    private int itemsPerRun = 500;
+}
@@ -0,0 +1,68 @@
+package com.example.controller;
+
+import com.example.canary.CanaryAnalyzer;
+import com.example.canary.CanaryAuditLog;
+import com.example.canary.CanaryDecision;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 金丝雀分析控制器
+ * 查看分析状态和决策审计，发布期间需要人工介入时可暂停自动切换
+ */
+@RestController
+@RequestMapping("/api/canary")
+public class CanaryController {
+
+    private static final Logger logger = LoggerFactory.getLogger(CanaryController.class);
+
+    @Autowired
+    private CanaryAnalyzer canaryAnalyzer;
+
+    @Autowired
+    private CanaryAuditLog canaryAuditLog;
+
+    /**
+     * 当前阶段、计数和最近一次决策
+     */
+    @GetMapping("/status")
+    public ResponseEntity<Map<String, Object>> status() {
+        return ResponseEntity.ok(canaryAnalyzer.snapshot());
+    }
+
+    /**
+     * 决策审计：recent为本节点最近的全部决策，否则为持久化的状态切换决策
+     */
+    @GetMapping("/audit")
+    public ResponseEntity<List<CanaryDecision>> audit(@RequestParam(defaultValue = "50") int limit,
+                                                      @RequestParam(defaultValue = "false") boolean recent) {
+        try {
+            return ResponseEntity.ok(recent ? canaryAuditLog.recent(limit) : canaryAuditLog.history(limit));
+        } catch (Exception e) {
+            logger.error("Failed to load canary audit log", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @PostMapping("/pause")
+    public ResponseEntity<String> pause() {
+        canaryAnalyzer.setPaused(true);
+        return ResponseEntity.ok("Canary analysis paused");
+    }
+
+    @PostMapping("/resume")
+    public ResponseEntity<String> resume() {
+        canaryAnalyzer.setPaused(false);
+        return ResponseEntity.ok("Canary analysis resumed");
+    }
+}
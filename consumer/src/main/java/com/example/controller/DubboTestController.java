@@ -3,13 +3,22 @@ package com.example.controller;
 import com.example.service.DubboConsumerService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @RestController
@@ -19,8 +28,27 @@ public class DubboTestController {
     @Autowired
     private DubboConsumerService dubboConsumerService;
 
+    // 批量和流式调用的count上限，不超过提供者的dubbo-demo.stream.max-items
+    @Value("${dubbo-demo.max-count:1000}")
+    private int maxCount;
+
+    /**
+     * 异步调用：Servlet线程在发起调用后即释放，提供者响应后再写回结果
+     * gray参数为可选的请求级灰度标记
+     */
     @GetMapping("/test")
-    public ResponseEntity<String> testDubboCall(@RequestParam(required = false, defaultValue = "consumer") String consumerName) {
+    public CompletableFuture<ResponseEntity<String>> testDubboCall(@RequestParam(required = false, defaultValue = "consumer") String consumerName,
+                                                                   @RequestParam(required = false) Boolean gray) {
+        return dubboConsumerService.callProviderServiceAsync(consumerName, gray)
+                .thenApply(ResponseEntity::ok)
+                .exceptionally(e -> {
+                    log.error("Error in dubbo test", e);
+                    return ResponseEntity.internalServerError().body("Error: " + e.getMessage());
+                });
+    }
+
+    @GetMapping("/test-sync")
+    public ResponseEntity<String> testDubboCallSync(@RequestParam(required = false, defaultValue = "consumer") String consumerName) {
         try {
             String result = dubboConsumerService.callProviderService(consumerName);
             return ResponseEntity.ok(result);
@@ -29,4 +57,50 @@ public class DubboTestController {
             return ResponseEntity.internalServerError().body("Error: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 批量调用：count个请求合并为一次RPC
+     */
+    @GetMapping("/batch")
+    public ResponseEntity<List<String>> testDubboBatch(@RequestParam(required = false, defaultValue = "consumer") String consumerName,
+                                                       @RequestParam(required = false, defaultValue = "10") int count) {
+        return ResponseEntity.ok(dubboConsumerService.callProviderServiceBatch(consumerNames(consumerName, count)));
+    }
+
+    /**
+     * 流式调用：结果以SSE逐条推送，客户端断开时取消流
+     * 客户端读得慢不会让提供者放慢发送
+     */
+    @GetMapping("/stream")
+    public SseEmitter testDubboStream(@RequestParam(required = false, defaultValue = "consumer") String consumerName,
+                                      @RequestParam(required = false, defaultValue = "100") int count) {
+        SseEmitter emitter = new SseEmitter(0L);
+        dubboConsumerService.streamProviderService(consumerNames(consumerName, count), item -> {
+            try {
+                emitter.send(item);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }).whenComplete((received, e) -> {
+            if (e != null) {
+                log.error("Error in dubbo stream test", e);
+                emitter.completeWithError(e);
+            } else {
+                log.info("Dubbo stream test finished with {} items", received);
+                emitter.complete();
+            }
+        });
+        return emitter;
+    }
+
+    private List<String> consumerNames(String consumerName, int count) {
+        if (count < 1 || count > maxCount) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "count must be between 1 and " + maxCount);
+        }
+        List<String> consumerNames = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            consumerNames.add(consumerName + "-" + i);
+        }
+        return consumerNames;
+    }
+}
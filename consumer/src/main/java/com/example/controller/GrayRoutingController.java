@@ -0,0 +1,29 @@
+package com.example.controller;
+
+import com.example.service.GrayRoutingService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * 消费者灰度路由情况查询
+ */
+@RestController
+@RequestMapping("/api/gray-routing")
+public class GrayRoutingController {
+
+    @Autowired
+    private GrayRoutingService grayRoutingService;
+
+    /**
+     * 获取各服务的GRAY/PRD提供者分组和路由结果计数
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getRouting() {
+        return ResponseEntity.ok(grayRoutingService.getRoutingSnapshot());
+    }
+}
@@ -1,5 +1,9 @@
 package com.example.controller;
 
+import com.example.job.DataflowShardStats;
+import com.example.service.ConsumerLagMonitor;
+import com.example.service.JobNodeRegistry;
+import com.example.service.JobShardScaler;
 import com.example.service.MQConsumerService;
 import com.example.service.ServiceAwareReleaseStateService;
 import com.example.enums.ReleaseState;
@@ -20,6 +24,15 @@ public class HealthController {
     
     @Autowired
     private ServiceAwareReleaseStateService releaseStateService;
+
+    @Autowired
+    private ConsumerLagMonitor consumerLagMonitor;
+
+    @Autowired
+    private JobNodeRegistry jobNodeRegistry;
+
+    @Autowired
+    private JobShardScaler jobShardScaler;
     
     @Value("${node.type:GRAY_CONSUMER}")
     private String nodeType;
@@ -41,9 +54,23 @@ public class HealthController {
             status.put("currentReleaseState", currentState.getStateName());
             status.put("shouldConsume", shouldConsume);
             status.put("consumerStarted", isConsumerStarted);
+            // 后台拉取并缓存的消费堆积，不在健康检查中访问Broker
+            status.put("consumerLag", consumerLagMonitor.toMap());
+            // 作业分片依据的发布状态和各节点类型
+            status.put("jobSharding", jobNodeRegistry.snapshot());
+            // 自动伸缩作业的当前分片数
+            status.put("jobScaling", jobShardScaler.snapshot());
+            // 流式作业各分片的吞吐量和积压
+            status.put("dataflowJobs", DataflowShardStats.snapshot());
             
             // 健康状态判断：如果应该消费且消费者已启动，或者不应该消费且消费者未启动，则为健康
-            if ((shouldConsume && isConsumerStarted) || (!shouldConsume && !isConsumerStarted)) {
+            if (shouldConsume && isConsumerStarted && consumerLagMonitor.isLagging()) {
+                // 仍在正常消费，只是跟不上，返回200避免被摘流量加剧堆积
+                status.put("status", "DEGRADED");
+                status.put("reason", "Consumer lag " + consumerLagMonitor.getTotalLag()
+                        + " exceeds threshold");
+                return ResponseEntity.ok(status);
+            } else if ((shouldConsume && isConsumerStarted) || (!shouldConsume && !isConsumerStarted)) {
                 status.put("status", "UP");
                 status.put("reason", "Consumer state matches expected behavior");
                 return ResponseEntity.ok(status);
@@ -0,0 +1,29 @@
+package com.example.controller;
+
+import com.example.service.MQConsumerService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * 本节点发布状态切换情况查询
+ */
+@RestController
+@RequestMapping("/api/release-transition")
+public class ReleaseTransitionController {
+
+    @Autowired
+    private MQConsumerService mqConsumerService;
+
+    /**
+     * 获取本节点的生效状态、待执行状态及最近一次切换耗时
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getTransition() {
+        return ResponseEntity.ok(mqConsumerService.getTransitionSnapshot());
+    }
+}
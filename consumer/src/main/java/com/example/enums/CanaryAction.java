@@ -0,0 +1,22 @@
+package com.example.enums;
+
+/**
+ * 金丝雀分析每个窗口的决策
+ */
+public enum CanaryAction {
+
+    /**
+     * 进入下一发布阶段
+     */
+    PROMOTE,
+
+    /**
+     * 切换到回滚状态
+     */
+    ROLLBACK,
+
+    /**
+     * 保持当前状态，继续观察
+     */
+    HOLD
+}
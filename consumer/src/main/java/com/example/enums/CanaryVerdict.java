@@ -0,0 +1,22 @@
+package com.example.enums;
+
+/**
+ * 金丝雀分析单项或单个窗口的结论
+ */
+public enum CanaryVerdict {
+
+    /**
+     * 灰度不比生产差
+     */
+    PASS,
+
+    /**
+     * 灰度显著比生产差
+     */
+    FAIL,
+
+    /**
+     * 样本不足，不下结论
+     */
+    INCONCLUSIVE
+}
@@ -0,0 +1,22 @@
+package com.example.enums;
+
+/**
+ * 作业单次执行结果
+ */
+public enum JobOutcome {
+
+    /**
+     * 已执行
+     */
+    RUN,
+
+    /**
+     * 当前发布状态下本节点不执行，跳过
+     */
+    SKIP,
+
+    /**
+     * 执行抛出异常
+     */
+    FAIL
+}
@@ -0,0 +1,78 @@
+package com.example.filter;
+
+import com.example.metrics.DubboMetricsRegistry;
+import org.apache.dubbo.common.constants.CommonConstants;
+import org.apache.dubbo.common.extension.Activate;
+import org.apache.dubbo.rpc.AsyncRpcResult;
+import org.apache.dubbo.rpc.Filter;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.Result;
+import org.apache.dubbo.rpc.RpcException;
+
+/**
+ * 消费者调用指标Filter，按接口、方法、提供者节点类型和灰度标签记录耗时与错误
+ * 提供者节点类型取自提供者URL上的node-type参数
+ */
+@Activate(group = CommonConstants.CONSUMER)
+public class ConsumerMetricsFilter implements Filter, Filter.Listener {
+
+    public static final String NODE_TYPE_KEY = "node-type";
+    private static final String START_KEY = "consumer-metrics.start";
+
+    @Override
+    public Result invoke(Invoker<?> invoker, Invocation invocation) throws RpcException {
+        long start = System.nanoTime();
+        Result result;
+        try {
+            result = invoker.invoke(invocation);
+        } catch (RuntimeException e) {
+            record(invoker, invocation, System.nanoTime() - start, true);
+            throw e;
+        }
+        if (result instanceof AsyncRpcResult && !((AsyncRpcResult) result).getResponseFuture().isDone()) {
+            // 异步调用到Listener回调时才结束，起始时间只能装箱后存入invocation
+            invocation.put(START_KEY, start);
+        } else {
+            // 同步调用在这里已有结果，直接记录，不产生装箱对象
+            record(invoker, invocation, System.nanoTime() - start, isError(result));
+        }
+        return result;
+    }
+
+    @Override
+    public void onResponse(Result appResponse, Invoker<?> invoker, Invocation invocation) {
+        recordAsync(invoker, invocation, appResponse.hasException());
+    }
+
+    @Override
+    public void onError(Throwable t, Invoker<?> invoker, Invocation invocation) {
+        recordAsync(invoker, invocation, true);
+    }
+
+    private static boolean isError(Result result) {
+        if (result instanceof AsyncRpcResult
+                && ((AsyncRpcResult) result).getResponseFuture().isCompletedExceptionally()) {
+            return true;
+        }
+        return result.hasException();
+    }
+
+    /**
+     * 只处理invoke中登记过起始时间的异步调用，同步调用已在invoke中记录
+     */
+    private void recordAsync(Invoker<?> invoker, Invocation invocation, boolean error) {
+        Object start = invocation.getAttributes().remove(START_KEY);
+        if (start instanceof Long) {
+            record(invoker, invocation, System.nanoTime() - (Long) start, error);
+        }
+    }
+
+    private void record(Invoker<?> invoker, Invocation invocation, long elapsedNanos, boolean error) {
+        String tag = invocation.getAttachment(CommonConstants.TAG_KEY);
+        DubboMetricsRegistry.record(invoker.getInterface().getName(), invocation.getMethodName(),
+                invoker.getUrl().getParameter(NODE_TYPE_KEY),
+                tag != null ? tag : invoker.getUrl().getParameter(CommonConstants.TAG_KEY),
+                elapsedNanos, error);
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.filter;
+
+import com.example.metrics.DubboMetricsRegistry;
+import com.example.protection.ProtectionRegistry;
+import com.example.protection.ProviderGuard;
+import org.apache.dubbo.common.constants.CommonConstants;
+import org.apache.dubbo.common.extension.Activate;
+import org.apache.dubbo.rpc.Filter;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.Result;
+import org.apache.dubbo.rpc.RpcException;
+
+/**
+ * 消费者侧自适应限流与熔断Filter
+ * 按 接口 + 提供者节点类型 隔离，某一组提供者（如灰度）变慢或大量失败时快速失败，
+ * 不让等待中的调用占满消费者线程，也不影响另一组提供者的调用。
+ */
+@Activate(group = CommonConstants.CONSUMER, order = -10000)
+public class ConsumerProtectionFilter implements Filter, Filter.Listener {
+
+    private static final String GUARD_KEY = "consumer-protection.guard";
+    private static final String START_KEY = "consumer-protection.start";
+
+    @Override
+    public Result invoke(Invoker<?> invoker, Invocation invocation) throws RpcException {
+        if (!ProtectionRegistry.isEnabled()) {
+            return invoker.invoke(invocation);
+        }
+        String lane = invoker.getUrl().getParameter(ConsumerMetricsFilter.NODE_TYPE_KEY, DubboMetricsRegistry.UNKNOWN);
+        ProviderGuard guard = ProtectionRegistry.guard(invoker.getInterface().getName(), lane);
+        if (!guard.getBreaker().tryAcquire()) {
+            throw new RpcException(RpcException.LIMIT_EXCEEDED_EXCEPTION,
+                    "Circuit open for " + guard.getInterfaceName() + " on " + lane + " providers");
+        }
+        if (!guard.getLimiter().tryAcquire()) {
+            // 调用没有发出，归还熔断器许可，既不算成功也不算失败
+            guard.getBreaker().release();
+            throw new RpcException(RpcException.LIMIT_EXCEEDED_EXCEPTION,
+                    "Concurrency limit " + guard.getLimiter().getLimit() + " reached for "
+                            + guard.getInterfaceName() + " on " + lane + " providers");
+        }
+        invocation.put(GUARD_KEY, guard);
+        invocation.put(START_KEY, System.nanoTime());
+        return invoker.invoke(invocation);
+    }
+
+    @Override
+    public void onResponse(Result appResponse, Invoker<?> invoker, Invocation invocation) {
+        // 业务异常说明提供者正常处理了请求，不计为失败
+        release(invocation, null);
+    }
+
+    @Override
+    public void onError(Throwable t, Invoker<?> invoker, Invocation invocation) {
+        release(invocation, t);
+    }
+
+    private void release(Invocation invocation, Throwable t) {
+        Object guard = invocation.getAttributes().remove(GUARD_KEY);
+        Object start = invocation.getAttributes().remove(START_KEY);
+        if (!(guard instanceof ProviderGuard) || !(start instanceof Long)) {
+            return;
+        }
+        boolean failure = t != null && isProviderFailure(t);
+        ((ProviderGuard) guard).getLimiter().onComplete(System.nanoTime() - (Long) start, failure);
+        ((ProviderGuard) guard).getBreaker().onResult(failure);
+    }
+
+    private boolean isProviderFailure(Throwable t) {
+        if (t instanceof RpcException) {
+            RpcException e = (RpcException) t;
+            return e.isTimeout() || e.isNetwork() || e.isLimitExceed() || e.getCode() == RpcException.UNKNOWN_EXCEPTION;
+        }
+        return true;
+    }
+}
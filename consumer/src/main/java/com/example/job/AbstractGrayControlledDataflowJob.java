@@ -0,0 +1,207 @@
+package com.example.job;
+
+import com.dangdang.ddframe.job.api.ShardingContext;
+import com.dangdang.ddframe.job.api.dataflow.DataflowJob;
+import com.dangdang.ddframe.job.executor.ShardingContexts;
+import com.dangdang.ddframe.job.lite.api.listener.ElasticJobListener;
+import com.example.enums.JobOutcome;
+import com.example.enums.ReleaseState;
+import com.example.service.ServiceAwareReleaseStateService;
+import com.example.util.SpringContextUtil;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 受发布状态控制的流式作业
+ * 需配置为streamingProcess=true：每次触发后按页拉取数据，每页交给本分片的有界线程池并行处理，直到拉取为空。
+ * 每次拉取前都重新检查发布状态，状态切换后本分片在当前页处理完即停止，而不是等整轮结束。
+ * 线程池满时由分片线程自己处理，以此限制拉取速度。每轮流式处理结束时记一次执行，耗时为整轮耗时。
+ * 作业同时作为自身的 {@link ElasticJobListener} 注册：每次触发前开始各分片的一轮处理，触发结束后补记未结束的一轮。
+ * 重新分片标记会让Elastic-Job提前退出流式循环而不再调用fetchData，只靠fetchData结束一轮会残留过期的开始时间。
+ */
+@Slf4j
+public abstract class AbstractGrayControlledDataflowJob<T> implements DataflowJob<T>, ElasticJobListener {
+
+    private ServiceAwareReleaseStateService releaseStateService;
+
+    private final String nodeType = AbstractGrayControlledJob.localNodeType();
+
+    private final String serviceName = AbstractGrayControlledJob.jobServiceName();
+
+    // 分片号 -> 该分片的处理线程池
+    private final Map<Integer, ThreadPoolExecutor> workers = new ConcurrentHashMap<>();
+
+    @Override
+    public final List<T> fetchData(ShardingContext shardingContext) {
+        DataflowShardStats stats = DataflowShardStats.of(shardingContext.getJobName(),
+                shardingContext.getShardingItem());
+        if (!stats.isStreaming()) {
+            // 错过触发后的补执行在同一轮监听回调之间，上一段已在fetchData中结束
+            stats.startStream();
+        }
+        ReleaseState currentState = releaseStateService().getServiceReleaseState(serviceName);
+        if (!AbstractGrayControlledJob.isEligible(currentState, nodeType)) {
+            log.info("Stopping stream on {} node (state: {}). Sharding: {}", nodeType, currentState,
+                    shardingContext.getShardingItem());
+            stats.onStoppedByReleaseState();
+            // 一页都没处理时记为跳过，否则本轮已执行，只是提前结束
+            endStream(stats, currentState, stats.getStreamPages() == 0 ? JobOutcome.SKIP : JobOutcome.RUN);
+            return Collections.emptyList();
+        }
+
+        List<T> page;
+        try {
+            page = doFetchData(shardingContext);
+        } catch (RuntimeException e) {
+            endStream(stats, currentState, JobOutcome.FAIL);
+            throw e;
+        }
+        stats.setBacklog(estimateBacklog(shardingContext));
+        if (page == null || page.isEmpty()) {
+            endStream(stats, currentState, JobOutcome.RUN);
+            return Collections.emptyList();
+        }
+        return page;
+    }
+
+    /**
+     * 本次触发开始前调用，开始本节点各分片的一轮处理，并关闭已不再分配给本节点的分片线程池
+     */
+    @Override
+    public void beforeJobExecuted(ShardingContexts shardingContexts) {
+        Set<Integer> items = shardingContexts.getShardingItemParameters().keySet();
+        for (Integer item : items) {
+            DataflowShardStats.of(shardingContexts.getJobName(), item).startStream();
+        }
+        workers.entrySet().removeIf(entry -> {
+            if (items.contains(entry.getKey())) {
+                return false;
+            }
+            entry.getValue().shutdown();
+            log.info("Shut down workers of {} sharding {} no longer assigned to this node",
+                    shardingContexts.getJobName(), entry.getKey());
+            return true;
+        });
+    }
+
+    /**
+     * 本次触发结束后调用，流式循环因重新分片等原因提前退出时在这里结束本轮
+     */
+    @Override
+    public void afterJobExecuted(ShardingContexts shardingContexts) {
+        ReleaseState currentState = null;
+        for (Integer item : shardingContexts.getShardingItemParameters().keySet()) {
+            DataflowShardStats stats = DataflowShardStats.of(shardingContexts.getJobName(), item);
+            if (!stats.isStreaming()) {
+                continue;
+            }
+            if (currentState == null) {
+                currentState = releaseStateService().getServiceReleaseState(serviceName);
+            }
+            log.info("Stream of {} sharding {} ended without an empty page after {} pages",
+                    shardingContexts.getJobName(), item, stats.getStreamPages());
+            endStream(stats, currentState, stats.getStreamPages() == 0 ? JobOutcome.SKIP : JobOutcome.RUN);
+        }
+    }
+
+    private ServiceAwareReleaseStateService releaseStateService() {
+        if (releaseStateService == null) {
+            releaseStateService = SpringContextUtil.getBean(ServiceAwareReleaseStateService.class);
+        }
+        return releaseStateService;
+    }
+
+    private void endStream(DataflowShardStats stats, ReleaseState state, JobOutcome outcome) {
+        long startTime = stats.getStreamStartTime();
+        long elapsed = stats.endStream();
+        JobExecutionRecorder.record(stats.getJobName(), stats.getShardingItem(), nodeType, state, outcome,
+                startTime, elapsed);
+    }
+
+    @Override
+    public final void processData(ShardingContext shardingContext, List<T> data) {
+        long start = System.nanoTime();
+        ThreadPoolExecutor executor = workers.computeIfAbsent(shardingContext.getShardingItem(),
+                item -> createWorkers(shardingContext.getJobName(), item));
+        List<Future<?>> futures = new ArrayList<>(data.size());
+        for (T item : data) {
+            futures.add(executor.submit(() -> processItem(shardingContext, item)));
+        }
+        int failed = 0;
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failed++;
+                break;
+            } catch (ExecutionException e) {
+                failed++;
+                log.error("Failed to process item of {} sharding {}", shardingContext.getJobName(),
+                        shardingContext.getShardingItem(), e.getCause());
+            }
+        }
+        DataflowShardStats.of(shardingContext.getJobName(), shardingContext.getShardingItem())
+                .onPage(data.size(), failed, System.nanoTime() - start);
+    }
+
+    private ThreadPoolExecutor createWorkers(String jobName, int shardingItem) {
+        int threads = Math.max(1, workerThreads());
+        String prefix = jobName.substring(jobName.lastIndexOf('.') + 1) + "-" + shardingItem + "-";
+        AtomicInteger threadIndex = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(threads * 2),
+                r -> {
+                    Thread thread = new Thread(r, prefix + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        // 空闲线程自行退出，分片长时间不触发时不占用线程
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    @PreDestroy
+    public void shutdownWorkers() {
+        workers.values().forEach(ThreadPoolExecutor::shutdownNow);
+        workers.clear();
+    }
+
+    /**
+     * 每个分片的处理线程数
+     */
+    protected int workerThreads() {
+        return 4;
+    }
+
+    /**
+     * 拉取下一页数据，返回空表示本轮没有更多数据
+     */
+    protected abstract List<T> doFetchData(ShardingContext shardingContext);
+
+    /**
+     * 处理单条数据，在分片线程池中并发调用
+     */
+    protected abstract void processItem(ShardingContext shardingContext, T item);
+
+    /**
+     * 估算本分片剩余待处理条数，未知时返回-1
+     */
+    protected long estimateBacklog(ShardingContext shardingContext) {
+        return -1;
+    }
+}
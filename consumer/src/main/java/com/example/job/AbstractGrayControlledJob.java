@@ -2,6 +2,7 @@ package com.example.job;
 
 import com.dangdang.ddframe.job.api.ShardingContext;
 import com.dangdang.ddframe.job.api.simple.SimpleJob;
+import com.example.enums.JobOutcome;
 import com.example.enums.ReleaseState;
 import com.example.service.ServiceAwareReleaseStateService;
 import com.example.util.SpringContextUtil;
@@ -10,45 +11,76 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public abstract class AbstractGrayControlledJob implements SimpleJob {
 
+    private static final String NODE_TYPE = System.getenv("NODE_TYPE") != null ? System.getenv("NODE_TYPE") : "GRAY_CONSUMER";
+
+    private static final String SERVICE_NAME = System.getenv("SERVICE_NAME") != null ? System.getenv("SERVICE_NAME") : "default-service";
+
     private ServiceAwareReleaseStateService releaseStateService;
 
-    private String nodeType = System.getenv("NODE_TYPE") != null ? System.getenv("NODE_TYPE") : "GRAY_CONSUMER";
+    private String nodeType = NODE_TYPE;
+
+    private String serviceName = SERVICE_NAME;
+
+    /**
+     * 本节点类型，作业分片时按此判断节点能否执行
+     */
+    public static String localNodeType() {
+        return NODE_TYPE;
+    }
 
-    private String serviceName = System.getenv("SERVICE_NAME") != null ? System.getenv("SERVICE_NAME") : "default-service";
+    /**
+     * 作业所属服务，发布状态按此服务读取
+     */
+    public static String jobServiceName() {
+        return SERVICE_NAME;
+    }
+
+    /**
+     * 指定节点类型在当前发布状态下是否执行作业
+     */
+    public static boolean isEligible(ReleaseState state, String nodeType) {
+        boolean isGrayNode = nodeType != null && nodeType.toUpperCase().contains("GRAY");
+        switch (state) {
+            case GRAY_ACCESSABLE:
+                return isGrayNode;
+            case PROD_ACCESSABLE:
+                return !isGrayNode;
+            default:
+                return true;
+        }
+    }
 
     @Override
     public final void execute(ShardingContext shardingContext) {
+        long startTime = System.currentTimeMillis();
+        long start = System.nanoTime();
         if (releaseStateService == null) {
             releaseStateService = SpringContextUtil.getBean(ServiceAwareReleaseStateService.class);
         }
         ReleaseState currentState = releaseStateService.getServiceReleaseState(serviceName);
         log.info("Current service: {}, node type: {}, release state: {}", serviceName, nodeType, currentState);
 
-        boolean isGrayNode = nodeType != null && nodeType.toUpperCase().contains("GRAY");
-
-        switch (currentState) {
-            case GRAY_ACCESSABLE:
-                if (isGrayNode) {
-                    log.info("Executing job on GRAY node (state: GRAY_ACCESSABLE). Sharding: {}", shardingContext.getShardingItem());
-                    doExecute(shardingContext);
-                } else {
-                    log.info("Skipping job on PRD node (state: GRAY_ACCESSABLE).");
-                }
-                break;
-            case PROD_ACCESSABLE:
-                if (!isGrayNode) {
-                    log.info("Executing job on PRD node (state: PROD_ACCESSABLE). Sharding: {}", shardingContext.getShardingItem());
-                    doExecute(shardingContext);
-                } else {
-                    log.info("Skipping job on GRAY node (state: PROD_ACCESSABLE).");
-                }
-                break;
-            case ALL_ACCESSABLE:
-                log.info("Executing job on {} node (state: ALL_ACCESSABLE). Sharding: {}", nodeType, shardingContext.getShardingItem());
-                doExecute(shardingContext);
-                break;
+        // 分片时已只分配给可执行的节点，这里仍然检查，覆盖状态切换后到重新分片之间的窗口
+        if (!isEligible(currentState, nodeType)) {
+            log.info("Skipping job on {} node (state: {}). Sharding: {}", nodeType, currentState, shardingContext.getShardingItem());
+            record(shardingContext, currentState, JobOutcome.SKIP, startTime, start);
+            return;
+        }
+        log.info("Executing job on {} node (state: {}). Sharding: {}", nodeType, currentState, shardingContext.getShardingItem());
+        try {
+            doExecute(shardingContext);
+        } catch (RuntimeException e) {
+            record(shardingContext, currentState, JobOutcome.FAIL, startTime, start);
+            throw e;
         }
+        record(shardingContext, currentState, JobOutcome.RUN, startTime, start);
+    }
+
+    private void record(ShardingContext shardingContext, ReleaseState state, JobOutcome outcome,
+                        long startTime, long startNanos) {
+        JobExecutionRecorder.record(shardingContext.getJobName(), shardingContext.getShardingItem(), nodeType, state,
+                outcome, startTime, System.nanoTime() - startNanos);
     }
 
     protected abstract void doExecute(ShardingContext shardingContext);
-}
\ No newline at end of file
+}
@@ -0,0 +1,32 @@
+package com.example.job;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+/**
+ * 把流式作业每个分片的吞吐量和积压注册为Micrometer指标
+ */
+@Component
+public class DataflowJobMetrics implements MeterBinder {
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        DataflowShardStats.onCreated(stats -> bind(registry, stats));
+    }
+
+    private void bind(MeterRegistry registry, DataflowShardStats stats) {
+        Tags tags = Tags.of("job", stats.getJobName(), "shard", String.valueOf(stats.getShardingItem()));
+        Gauge.builder("job.dataflow.throughput", stats, DataflowShardStats::getThroughput)
+                .tags(tags).baseUnit("items/s").register(registry);
+        Gauge.builder("job.dataflow.backlog", stats, DataflowShardStats::getBacklog)
+                .tags(tags).register(registry);
+        FunctionCounter.builder("job.dataflow.items", stats, DataflowShardStats::getItems)
+                .tags(tags).register(registry);
+        FunctionCounter.builder("job.dataflow.failures", stats, DataflowShardStats::getFailures)
+                .tags(tags).register(registry);
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.job;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 流式作业单个分片的处理统计
+ * 吞吐量按本轮流式处理开始以来的条数计算，积压由作业自行估算，未知时为-1。
+ */
+public class DataflowShardStats {
+
+    private static final Map<String, Map<Integer, DataflowShardStats>> STATS = new ConcurrentHashMap<>();
+    private static final List<Consumer<DataflowShardStats>> LISTENERS = new CopyOnWriteArrayList<>();
+
+    private final String jobName;
+    private final int shardingItem;
+    private final LongAdder pages = new LongAdder();
+    private final LongAdder items = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder stoppedByReleaseState = new LongAdder();
+
+    private volatile long streamStartNanos;
+    private volatile long streamStartTime;
+    private volatile long streamPages;
+    private volatile long streamItems;
+    private volatile long lastPageMs;
+    private volatile long backlog = -1;
+
+    DataflowShardStats(String jobName, int shardingItem) {
+        this.jobName = jobName;
+        this.shardingItem = shardingItem;
+    }
+
+    public static DataflowShardStats of(String jobName, int shardingItem) {
+        Map<Integer, DataflowShardStats> shards = STATS.get(jobName);
+        if (shards == null) {
+            shards = STATS.computeIfAbsent(jobName, k -> new ConcurrentHashMap<>());
+        }
+        DataflowShardStats stats = shards.get(shardingItem);
+        if (stats == null) {
+            boolean[] created = {false};
+            stats = shards.computeIfAbsent(shardingItem, k -> {
+                created[0] = true;
+                return new DataflowShardStats(jobName, shardingItem);
+            });
+            if (created[0]) {
+                for (Consumer<DataflowShardStats> listener : LISTENERS) {
+                    listener.accept(stats);
+                }
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * 注册新建分片统计的回调，并对已存在的立即回调一次
+     */
+    public static void onCreated(Consumer<DataflowShardStats> listener) {
+        LISTENERS.add(listener);
+        STATS.values().forEach(shards -> shards.values().forEach(listener));
+    }
+
+    public static Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        STATS.forEach((jobName, shards) -> {
+            Map<String, Object> shardMap = new LinkedHashMap<>();
+            shards.forEach((item, stats) -> shardMap.put(String.valueOf(item), stats.toMap()));
+            snapshot.put(jobName, shardMap);
+        });
+        return snapshot;
+    }
+
+    /**
+     * 本轮流式处理的第一页之前调用
+     */
+    synchronized void startStream() {
+        streamStartNanos = System.nanoTime();
+        streamStartTime = System.currentTimeMillis();
+        streamPages = 0;
+        streamItems = 0;
+    }
+
+    boolean isStreaming() {
+        return streamStartNanos != 0;
+    }
+
+    /**
+     * 本轮流式处理结束，返回本轮耗时
+     */
+    synchronized long endStream() {
+        long elapsed = streamStartNanos == 0 ? 0 : System.nanoTime() - streamStartNanos;
+        streamStartNanos = 0;
+        return elapsed;
+    }
+
+    long getStreamStartTime() {
+        return streamStartTime;
+    }
+
+    long getStreamPages() {
+        return streamPages;
+    }
+
+    synchronized void onPage(int size, int failed, long elapsedNanos) {
+        pages.increment();
+        items.add(size);
+        failures.add(failed);
+        streamPages++;
+        streamItems += size;
+        lastPageMs = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+    }
+
+    void onStoppedByReleaseState() {
+        stoppedByReleaseState.increment();
+    }
+
+    void setBacklog(long backlog) {
+        this.backlog = backlog;
+    }
+
+    public String getJobName() {
+        return jobName;
+    }
+
+    public int getShardingItem() {
+        return shardingItem;
+    }
+
+    public long getItems() {
+        return items.sum();
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    public long getBacklog() {
+        return backlog;
+    }
+
+    /**
+     * 本轮流式处理的每秒处理条数，未在处理时为0
+     */
+    public double getThroughput() {
+        long start = streamStartNanos;
+        if (start == 0) {
+            return 0;
+        }
+        long elapsed = System.nanoTime() - start;
+        return elapsed <= 0 ? 0 : streamItems * 1e9 / elapsed;
+    }
+
+    Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("pages", pages.sum());
+        map.put("items", getItems());
+        map.put("failures", getFailures());
+        map.put("throughput", getThroughput());
+        map.put("backlog", backlog);
+        map.put("lastPageMs", lastPageMs);
+        map.put("stoppedByReleaseState", stoppedByReleaseState.sum());
+        return map;
+    }
+}
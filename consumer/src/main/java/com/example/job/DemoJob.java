@@ -6,6 +6,8 @@ import org.springframework.stereotype.Component;
 
 @Slf4j
 @Component
+@GrayJob(cron = "${job.demo.cron}", shardingTotalCount = "${job.demo.sharding-total-count}",
+        shardingItemParameters = "${job.demo.sharding-item-parameters}")
 public class DemoJob extends AbstractGrayControlledJob {
 
     @Override
@@ -0,0 +1,74 @@
+package com.example.job;
+
+import com.dangdang.ddframe.job.api.ShardingContext;
+import com.example.config.ReconciliationJobProperties;
+import com.example.util.SpringContextUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 流式作业示例：每个分片每轮对账一批模拟记录，按页拉取直到处理完
+ */
+@Slf4j
+@Component
+@GrayJob(cron = "${job.reconciliation.cron}", shardingTotalCount = "${job.reconciliation.sharding-total-count}",
+        shardingItemParameters = "${job.reconciliation.sharding-item-parameters}",
+        autoScale = "${job.reconciliation.auto-scale:false}",
+        shardsPerInstance = "${job.reconciliation.shards-per-instance:1}",
+        minShardingTotalCount = "${job.reconciliation.min-sharding-total-count:1}",
+        maxShardingTotalCount = "${job.reconciliation.max-sharding-total-count:32}")
+public class DemoReconciliationJob extends AbstractGrayControlledDataflowJob<String> {
+
+    private ReconciliationJobProperties properties;
+
+    // 分片号 -> 本轮剩余待处理条数
+    private final Map<Integer, AtomicLong> remaining = new ConcurrentHashMap<>();
+
+    @Override
+    protected List<String> doFetchData(ShardingContext shardingContext) {
+        ReconciliationJobProperties props = properties();
+        AtomicLong left = remaining.computeIfAbsent(shardingContext.getShardingItem(),
+                k -> new AtomicLong(props.getItemsPerRun()));
+        long count = Math.min(left.get(), props.getPageSize());
+        List<String> page = new ArrayList<>((int) count);
+        for (long i = 0; i < count; i++) {
+            page.add(shardingContext.getShardingParameter() + "-" + left.decrementAndGet());
+        }
+        if (page.isEmpty()) {
+            // 本轮处理完，下次触发重新生成
+            remaining.remove(shardingContext.getShardingItem());
+            log.info("DemoReconciliationJob finished sharding item: {}", shardingContext.getShardingItem());
+        }
+        return page;
+    }
+
+    @Override
+    protected void processItem(ShardingContext shardingContext, String item) {
+        log.debug("Reconciling {} on sharding item: {}", item, shardingContext.getShardingItem());
+        // Your reconciliation logic goes here.
+    }
+
+    @Override
+    protected long estimateBacklog(ShardingContext shardingContext) {
+        AtomicLong left = remaining.get(shardingContext.getShardingItem());
+        return left == null ? 0 : left.get();
+    }
+
+    @Override
+    protected int workerThreads() {
+        return properties().getWorkerThreads();
+    }
+
+    private ReconciliationJobProperties properties() {
+        if (properties == null) {
+            properties = SpringContextUtil.getBean(ReconciliationJobProperties.class);
+        }
+        return properties;
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.job;
+
+import com.dangdang.ddframe.job.lite.api.strategy.JobInstance;
+import com.dangdang.ddframe.job.lite.api.strategy.JobShardingStrategy;
+import com.dangdang.ddframe.job.lite.api.strategy.impl.AverageAllocationJobShardingStrategy;
+import com.example.enums.ReleaseState;
+import com.example.service.JobNodeRegistry;
+import com.example.util.SpringContextUtil;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按发布状态和节点类型分片：全部分片平均分配给当前可执行的节点，其余节点不分配分片
+ * 由Elastic-Job通过类名反射创建，节点类型和发布状态从Spring容器中的 {@link JobNodeRegistry} 读取。
+ * 没有可执行节点或注册表不可用时退回平均分配，由作业执行时的检查决定是否跳过。
+ */
+@Slf4j
+public class GrayAwareShardingStrategy implements JobShardingStrategy {
+
+    private final JobShardingStrategy delegate = new AverageAllocationJobShardingStrategy();
+
+    @Override
+    public Map<JobInstance, List<Integer>> sharding(List<JobInstance> jobInstances, String jobName,
+                                                     int shardingTotalCount) {
+        if (jobInstances.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        JobNodeRegistry registry;
+        try {
+            registry = SpringContextUtil.getBean(JobNodeRegistry.class);
+        } catch (RuntimeException e) {
+            log.warn("Job node registry unavailable, sharding {} across all instances", jobName);
+            return delegate.sharding(jobInstances, jobName, shardingTotalCount);
+        }
+
+        ReleaseState state = registry.currentState();
+        List<JobInstance> eligible = new ArrayList<>(jobInstances.size());
+        List<JobInstance> ineligible = new ArrayList<>();
+        for (JobInstance instance : jobInstances) {
+            String nodeType = registry.nodeTypeOf(instance.getJobInstanceId());
+            if (nodeType != null && AbstractGrayControlledJob.isEligible(state, nodeType)) {
+                eligible.add(instance);
+            } else {
+                ineligible.add(instance);
+            }
+        }
+        if (eligible.isEmpty()) {
+            log.warn("No instance of {} is eligible in state {}, sharding across all {} instances",
+                    jobName, state, jobInstances.size());
+            return delegate.sharding(jobInstances, jobName, shardingTotalCount);
+        }
+
+        Map<JobInstance, List<Integer>> result = new LinkedHashMap<>(
+                delegate.sharding(eligible, jobName, shardingTotalCount));
+        for (JobInstance instance : ineligible) {
+            result.put(instance, new ArrayList<>());
+        }
+        log.info("Sharded {} ({} items) in state {} across {} eligible instances, {} skipped",
+                jobName, shardingTotalCount, state, eligible.size(), ineligible.size());
+        return result;
+    }
+}
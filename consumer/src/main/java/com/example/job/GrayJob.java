@@ -0,0 +1,67 @@
+package com.example.job;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标注在 {@link AbstractGrayControlledJob} 或 {@link AbstractGrayControlledDataflowJob} 的子类（Spring Bean）上，
+ * 启动时自动注册为Elastic-Job作业。字符串属性支持 ${...} 占位符，可从配置文件读取。
+ */
+@Documented
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface GrayJob {
+
+    /**
+     * 作业名，默认为类的全限定名
+     */
+    String name() default "";
+
+    /**
+     * cron表达式
+     */
+    String cron();
+
+    /**
+     * 分片总数
+     */
+    String shardingTotalCount() default "1";
+
+    /**
+     * 分片参数，如 0=A,1=B
+     */
+    String shardingItemParameters() default "";
+
+    /**
+     * 是否按可执行实例数自动伸缩分片总数，开启后shardingTotalCount不再生效
+     */
+    String autoScale() default "false";
+
+    /**
+     * 自动伸缩时每个可执行实例分配的分片数
+     */
+    String shardsPerInstance() default "1";
+
+    /**
+     * 自动伸缩时的最小分片总数
+     */
+    String minShardingTotalCount() default "1";
+
+    /**
+     * 自动伸缩时的最大分片总数
+     */
+    String maxShardingTotalCount() default "32";
+
+    /**
+     * 作业描述
+     */
+    String description() default "";
+
+    /**
+     * 流式作业是否持续拉取直到为空，仅对流式作业生效
+     */
+    boolean streamingProcess() default true;
+}
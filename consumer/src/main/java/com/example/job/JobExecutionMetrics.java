@@ -0,0 +1,44 @@
+package com.example.job;
+
+import com.example.config.JobTelemetryProperties;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 将配置注入 {@link JobExecutionRecorder}，并把作业执行次数、耗时和延迟注册为Micrometer指标
+ */
+@Component
+public class JobExecutionMetrics implements MeterBinder {
+
+    @Autowired
+    private JobTelemetryProperties properties;
+
+    @PostConstruct
+    public void init() {
+        JobExecutionRecorder.configure(properties.getRecentCapacity());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        JobExecutionRecorder.onStatsCreated(stats -> bind(registry, stats));
+    }
+
+    private void bind(MeterRegistry registry, JobExecutionRecorder.ExecutionStats stats) {
+        Tags tags = Tags.of("job", stats.getJobName(), "shard", String.valueOf(stats.getShardingItem()),
+                "node.type", stats.getNodeType(), "release.state", stats.getReleaseState(),
+                "outcome", stats.getOutcome().name());
+        FunctionTimer.builder("job.execution", stats, JobExecutionRecorder.ExecutionStats::getCount,
+                JobExecutionRecorder.ExecutionStats::getTotalTimeMs, TimeUnit.MILLISECONDS)
+                .tags(tags).register(registry);
+        FunctionTimer.builder("job.execution.lateness", stats, JobExecutionRecorder.ExecutionStats::getLatenessCount,
+                JobExecutionRecorder.ExecutionStats::getTotalLatenessMs, TimeUnit.MILLISECONDS)
+                .tags(tags).register(registry);
+    }
+}
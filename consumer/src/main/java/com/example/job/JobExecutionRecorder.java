@@ -0,0 +1,348 @@
+package com.example.job;
+
+import com.example.enums.JobOutcome;
+import com.example.enums.ReleaseState;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.CronExpression;
+import org.quartz.JobExecutionContext;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.Trigger;
+import org.quartz.impl.SchedulerRepository;
+import org.quartz.listeners.TriggerListenerSupport;
+
+import java.text.ParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 作业执行记录
+ * 每次执行按 作业+分片+节点类型+发布状态+结果 累计次数和耗时，并保留最近若干条明细。
+ * 延迟为实际开始时间减去本次执行对应的计划触发时间，计划触发时间由挂在作业Quartz调度器上的监听器记录；
+ * 还没收到触发通知时退回按cron推算不晚于开始时间的最近一次触发，这种情况下延迟不会超过一个周期。未登记cron的作业为-1。
+ */
+@Slf4j
+public final class JobExecutionRecorder {
+
+    private static final long MAX_LOOKBACK_MS = TimeUnit.HOURS.toMillis(1);
+
+    private static final Map<String, ExecutionStats> STATS = new ConcurrentHashMap<>();
+    private static final List<Consumer<ExecutionStats>> LISTENERS = new CopyOnWriteArrayList<>();
+    // 作业名 -> 计划
+    private static final Map<String, Schedule> SCHEDULES = new ConcurrentHashMap<>();
+    private static final ArrayDeque<Execution> RECENT = new ArrayDeque<>();
+
+    private static volatile int recentCapacity = 200;
+
+    private JobExecutionRecorder() {
+    }
+
+    /**
+     * 一次执行的明细
+     */
+    public static final class Execution {
+        private final String jobName;
+        private final int shardingItem;
+        private final String nodeType;
+        private final ReleaseState releaseState;
+        private final JobOutcome outcome;
+        private final long startTime;
+        private final long durationMs;
+        private final long latenessMs;
+
+        Execution(String jobName, int shardingItem, String nodeType, ReleaseState releaseState, JobOutcome outcome,
+                  long startTime, long durationMs, long latenessMs) {
+            this.jobName = jobName;
+            this.shardingItem = shardingItem;
+            this.nodeType = nodeType;
+            this.releaseState = releaseState;
+            this.outcome = outcome;
+            this.startTime = startTime;
+            this.durationMs = durationMs;
+            this.latenessMs = latenessMs;
+        }
+
+        public String getJobName() {
+            return jobName;
+        }
+
+        public JobOutcome getOutcome() {
+            return outcome;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("job", jobName);
+            map.put("shard", shardingItem);
+            map.put("nodeType", nodeType);
+            map.put("releaseState", releaseState == null ? null : releaseState.getStateName());
+            map.put("outcome", outcome);
+            map.put("startTime", startTime);
+            map.put("durationMs", durationMs);
+            map.put("latenessMs", latenessMs);
+            return map;
+        }
+    }
+
+    /**
+     * 同一组标签下的累计统计
+     */
+    public static final class ExecutionStats {
+        private final String jobName;
+        private final int shardingItem;
+        private final String nodeType;
+        private final String releaseState;
+        private final JobOutcome outcome;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAdder latenessCount = new LongAdder();
+        private final LongAdder totalLatenessMs = new LongAdder();
+        private volatile long maxNanos;
+
+        ExecutionStats(String jobName, int shardingItem, String nodeType, String releaseState, JobOutcome outcome) {
+            this.jobName = jobName;
+            this.shardingItem = shardingItem;
+            this.nodeType = nodeType;
+            this.releaseState = releaseState;
+            this.outcome = outcome;
+        }
+
+        void record(long durationNanos, long latenessMs) {
+            count.increment();
+            totalNanos.add(durationNanos);
+            if (durationNanos > maxNanos) {
+                maxNanos = durationNanos;
+            }
+            if (latenessMs >= 0) {
+                latenessCount.increment();
+                totalLatenessMs.add(latenessMs);
+            }
+        }
+
+        public String getJobName() {
+            return jobName;
+        }
+
+        public int getShardingItem() {
+            return shardingItem;
+        }
+
+        public String getNodeType() {
+            return nodeType;
+        }
+
+        public String getReleaseState() {
+            return releaseState;
+        }
+
+        public JobOutcome getOutcome() {
+            return outcome;
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public double getTotalTimeMs() {
+            return totalNanos.sum() / 1e6;
+        }
+
+        public long getLatenessCount() {
+            return latenessCount.sum();
+        }
+
+        public double getTotalLatenessMs() {
+            return totalLatenessMs.sum();
+        }
+
+        Map<String, Object> toMap() {
+            long n = getCount();
+            long lateN = getLatenessCount();
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("job", jobName);
+            map.put("shard", shardingItem);
+            map.put("nodeType", nodeType);
+            map.put("releaseState", releaseState);
+            map.put("outcome", outcome);
+            map.put("count", n);
+            map.put("avgMs", n == 0 ? 0 : getTotalTimeMs() / n);
+            map.put("maxMs", maxNanos / 1e6);
+            map.put("avgLatenessMs", lateN == 0 ? -1 : getTotalLatenessMs() / lateN);
+            return map;
+        }
+    }
+
+    /**
+     * 作业的cron计划，记住上次算出的触发时间，避免每次从头推算
+     */
+    private static final class Schedule {
+        private final CronExpression cron;
+        private long lastFireTime;
+        // Quartz最近一次触发对应的计划时间，Elastic-Job每个作业只有一个调度线程，触发不会重叠
+        private volatile long scheduledFireTime = -1;
+
+        Schedule(CronExpression cron) {
+            this.cron = cron;
+        }
+
+        /**
+         * 本次执行对应的计划触发时间：优先用Quartz通知的时间，开始时间早于它说明是上一次触发的执行，退回cron推算
+         */
+        long fireTimeFor(long startTime) {
+            long scheduled = scheduledFireTime;
+            return scheduled > 0 && scheduled <= startTime ? scheduled : fireTimeBefore(startTime);
+        }
+
+        /**
+         * 不晚于指定时间的最近一次计划触发时间，找不到时返回-1
+         */
+        synchronized long fireTimeBefore(long time) {
+            long from = lastFireTime > 0 && time - lastFireTime <= MAX_LOOKBACK_MS ? lastFireTime : time - MAX_LOOKBACK_MS;
+            long fireTime = -1;
+            // 触发时间本身也算，从前1毫秒开始找
+            Date next = cron.getNextValidTimeAfter(new Date(from - 1));
+            while (next != null && next.getTime() <= time) {
+                fireTime = next.getTime();
+                next = cron.getNextValidTimeAfter(next);
+            }
+            if (fireTime > 0) {
+                lastFireTime = fireTime;
+            }
+            return fireTime;
+        }
+    }
+
+    static void configure(int capacity) {
+        recentCapacity = Math.max(1, capacity);
+    }
+
+    /**
+     * 登记作业的cron，用于计算执行延迟
+     */
+    public static void registerSchedule(String jobName, String cron) {
+        try {
+            SCHEDULES.put(jobName, new Schedule(new CronExpression(cron)));
+        } catch (ParseException e) {
+            log.warn("Invalid cron '{}' for job {}, lateness will not be recorded", cron, jobName);
+        }
+    }
+
+    /**
+     * 在作业的Quartz调度器上登记触发监听，记录每次触发的计划时间，需在调度器初始化之后调用
+     * Elastic-Job以作业名作为Quartz调度器实例名
+     */
+    public static void trackFireTimes(String jobName) {
+        try {
+            Scheduler scheduler = SchedulerRepository.getInstance().lookup(jobName);
+            if (scheduler == null) {
+                log.warn("No scheduler found for job {}, lateness falls back to cron", jobName);
+                return;
+            }
+            scheduler.getListenerManager().addTriggerListener(new TriggerListenerSupport() {
+                @Override
+                public String getName() {
+                    return "lateness-" + jobName;
+                }
+
+                @Override
+                public void triggerFired(Trigger trigger, JobExecutionContext context) {
+                    onTriggerFired(jobName, context.getScheduledFireTime().getTime());
+                }
+            });
+        } catch (SchedulerException e) {
+            log.warn("Failed to track fire times of job {}, lateness falls back to cron", jobName, e);
+        }
+    }
+
+    static void onTriggerFired(String jobName, long scheduledFireTime) {
+        Schedule schedule = SCHEDULES.get(jobName);
+        if (schedule != null) {
+            schedule.scheduledFireTime = scheduledFireTime;
+        }
+    }
+
+    /**
+     * 注册新建统计的回调，并对已存在的立即回调一次
+     */
+    public static void onStatsCreated(Consumer<ExecutionStats> listener) {
+        LISTENERS.add(listener);
+        STATS.values().forEach(listener);
+    }
+
+    /**
+     * 记录一次执行
+     *
+     * @param startTime     开始时间（毫秒时间戳）
+     * @param durationNanos 耗时
+     */
+    public static void record(String jobName, int shardingItem, String nodeType, ReleaseState releaseState,
+                              JobOutcome outcome, long startTime, long durationNanos) {
+        Schedule schedule = SCHEDULES.get(jobName);
+        long fireTime = schedule == null ? -1 : schedule.fireTimeFor(startTime);
+        long latenessMs = fireTime < 0 ? -1 : startTime - fireTime;
+        String state = releaseState == null ? "UNKNOWN" : releaseState.getStateName();
+
+        String key = jobName + "|" + shardingItem + "|" + nodeType + "|" + state + "|" + outcome;
+        ExecutionStats stats = STATS.get(key);
+        if (stats == null) {
+            boolean[] created = {false};
+            stats = STATS.computeIfAbsent(key, k -> {
+                created[0] = true;
+                return new ExecutionStats(jobName, shardingItem, nodeType, state, outcome);
+            });
+            if (created[0]) {
+                for (Consumer<ExecutionStats> listener : LISTENERS) {
+                    listener.accept(stats);
+                }
+            }
+        }
+        stats.record(durationNanos, latenessMs);
+
+        Execution execution = new Execution(jobName, shardingItem, nodeType, releaseState, outcome, startTime,
+                TimeUnit.NANOSECONDS.toMillis(durationNanos), latenessMs);
+        synchronized (RECENT) {
+            RECENT.addFirst(execution);
+            while (RECENT.size() > recentCapacity) {
+                RECENT.removeLast();
+            }
+        }
+    }
+
+    /**
+     * 最近的执行明细，新的在前
+     *
+     * @param jobName 作业名，为空时不过滤
+     * @param outcome 执行结果，为空时不过滤
+     * @param limit   最多返回条数
+     */
+    public static List<Map<String, Object>> recent(String jobName, JobOutcome outcome, int limit) {
+        List<Map<String, Object>> result = new ArrayList<>();
+        synchronized (RECENT) {
+            Iterator<Execution> iterator = RECENT.iterator();
+            while (iterator.hasNext() && result.size() < limit) {
+                Execution execution = iterator.next();
+                if ((jobName == null || jobName.equals(execution.getJobName()))
+                        && (outcome == null || outcome == execution.getOutcome())) {
+                    result.add(execution.toMap());
+                }
+            }
+        }
+        return result;
+    }
+
+    public static List<Map<String, Object>> snapshot() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        STATS.values().forEach(stats -> result.add(stats.toMap()));
+        return result;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.metrics;
+
+import com.example.service.ConsumerLagMonitor;
+import com.example.service.MQConsumerService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 把消费堆积、消费速率和处理中的消息数注册为Micrometer指标
+ * 队列级指标在每次拉取后整体刷新，队列下线后对应的指标随之移除。
+ */
+@Component
+public class ConsumerLagMetrics implements MeterBinder {
+
+    @Autowired
+    private ConsumerLagMonitor lagMonitor;
+
+    @Autowired
+    private MQConsumerService mqConsumerService;
+
+    @Value("${rocketmq.consumer.group}")
+    private String consumerGroup;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Tags tags = Tags.of("group", consumerGroup);
+        // 结果过期时堆积未知，报告NaN而不是最后一次拉取的旧值
+        Gauge.builder("mq.consumer.lag", lagMonitor, m -> m.isStale() ? Double.NaN : m.getTotalLag())
+                .tags(tags).register(registry);
+        Gauge.builder("mq.consumer.tps", lagMonitor, m -> m.isStale() ? Double.NaN : m.getSnapshot().getConsumeTps())
+                .tags(tags).register(registry);
+        Gauge.builder("mq.consumer.lag.stale", lagMonitor, m -> m.isStale() ? 1 : 0)
+                .tags(tags).register(registry);
+        Gauge.builder("mq.consumer.local.tps", lagMonitor, ConsumerLagMonitor::getLocalTps)
+                .tags(tags).register(registry);
+        Gauge.builder("mq.consumer.inflight", mqConsumerService, MQConsumerService::getInFlight)
+                .tags(tags).register(registry);
+        Gauge.builder("mq.consumer.last.consume.timestamp", mqConsumerService,
+                MQConsumerService::getLastConsumeTimestamp)
+                .tags(tags).register(registry);
+
+        MultiGauge queueLag = MultiGauge.builder("mq.consumer.queue.lag").tags(tags).register(registry);
+        MultiGauge queueTps = MultiGauge.builder("mq.consumer.queue.tps").tags(tags).register(registry);
+        lagMonitor.onRefresh(snapshot -> {
+            List<MultiGauge.Row<?>> lagRows = new ArrayList<>();
+            List<MultiGauge.Row<?>> tpsRows = new ArrayList<>();
+            for (ConsumerLagMonitor.QueueLag queue : snapshot.getQueues()) {
+                Tags queueTags = Tags.of("topic", queue.getTopic(), "broker", queue.getBrokerName(),
+                        "queue", String.valueOf(queue.getQueueId()));
+                lagRows.add(MultiGauge.Row.of(queueTags, queue.getLag()));
+                tpsRows.add(MultiGauge.Row.of(queueTags, queue.getTps()));
+            }
+            queueLag.register(lagRows, true);
+            queueTps.register(tpsRows, true);
+        });
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.metrics;
+
+import com.example.cluster.HedgingRegistry;
+import com.example.protection.ProtectionRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Dubbo调用指标端点：/actuator/dubbometrics
+ * 同一方法下按提供者节点类型分组，便于发布期间对比GRAY和PRD的耗时
+ */
+@Component
+@Endpoint(id = "dubbometrics")
+public class DubboMetricsEndpoint {
+
+    @Value("${spring.application.name:default-service}")
+    private String serviceName;
+
+    @ReadOperation
+    public Map<String, Object> metrics() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("service", serviceName);
+        result.put("side", "consumer");
+        result.put("interfaces", DubboMetricsRegistry.snapshot());
+        result.put("protection", ProtectionRegistry.snapshot());
+        result.put("hedging", HedgingRegistry.snapshot());
+        return result;
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Dubbo调用指标注册表，按 接口 -> 方法 -> 提供者节点类型 -> 灰度标签 分层保存直方图
+ * 分层的Map直接用调用中已有的字符串做键，记录时不需要拼接键，命中后不再分配对象。
+ * Filter由Dubbo SPI创建，因此注册表是静态的，由 {@link DubboMetricsEndpoint} 对外发布。
+ */
+public final class DubboMetricsRegistry {
+
+    public static final String UNKNOWN = "-";
+
+    private static final Map<String, Map<String, Map<String, Map<String, LatencyHistogram>>>> HISTOGRAMS =
+            new ConcurrentHashMap<>();
+
+    private DubboMetricsRegistry() {
+    }
+
+    public static void record(String interfaceName, String methodName, String nodeType, String tag,
+                              long elapsedNanos, boolean error) {
+        histogram(interfaceName, methodName, nodeType == null ? UNKNOWN : nodeType, tag == null ? UNKNOWN : tag)
+                .record(elapsedNanos, error);
+    }
+
+    public static LatencyHistogram histogram(String interfaceName, String methodName, String nodeType, String tag) {
+        Map<String, LatencyHistogram> tags = child(child(child(HISTOGRAMS, interfaceName), methodName), nodeType);
+        LatencyHistogram histogram = tags.get(tag);
+        if (histogram == null) {
+            histogram = tags.computeIfAbsent(tag, k -> new LatencyHistogram());
+        }
+        return histogram;
+    }
+
+    /**
+     * 遍历所有直方图，回调参数为提供者节点类型和直方图
+     */
+    public static void forEachByNodeType(BiConsumer<String, LatencyHistogram> action) {
+        HISTOGRAMS.values().forEach(methods -> methods.values().forEach(nodeTypes ->
+                nodeTypes.forEach((nodeType, tags) -> tags.values().forEach(h -> action.accept(nodeType, h)))));
+    }
+
+    private static <V> Map<String, V> child(Map<String, Map<String, V>> parent, String key) {
+        Map<String, V> child = parent.get(key);
+        if (child == null) {
+            child = parent.computeIfAbsent(key, k -> new ConcurrentHashMap<>());
+        }
+        return child;
+    }
+
+    public static Map<String, Object> snapshot() {
+        Map<String, Object> interfaces = new LinkedHashMap<>();
+        HISTOGRAMS.forEach((interfaceName, methods) -> {
+            Map<String, Object> methodMap = new LinkedHashMap<>();
+            methods.forEach((methodName, nodeTypes) -> {
+                Map<String, Object> nodeTypeMap = new LinkedHashMap<>();
+                nodeTypes.forEach((nodeType, tags) -> {
+                    Map<String, Object> tagMap = new LinkedHashMap<>();
+                    tags.forEach((tag, histogram) -> tagMap.put(tag, histogram.toMap()));
+                    nodeTypeMap.put(nodeType, tagMap);
+                });
+                methodMap.put(methodName, nodeTypeMap);
+            });
+            interfaces.put(interfaceName, methodMap);
+        });
+        return interfaces;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.metrics;
+
+import com.example.enums.JobOutcome;
+import com.example.job.AbstractGrayControlledJob;
+import com.example.job.JobExecutionRecorder;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 作业执行端点：/actuator/jobexecutions
+ * 返回按标签累计的执行统计和最近的执行明细，可用 job、outcome、limit 参数过滤明细
+ */
+@Component
+@Endpoint(id = "jobexecutions")
+public class JobExecutionEndpoint {
+
+    private static final int DEFAULT_LIMIT = 50;
+
+    @ReadOperation
+    public Map<String, Object> executions(@Nullable String job, @Nullable JobOutcome outcome, @Nullable Integer limit) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("nodeType", AbstractGrayControlledJob.localNodeType());
+        result.put("stats", JobExecutionRecorder.snapshot());
+        result.put("recent", JobExecutionRecorder.recent(job, outcome,
+                limit == null || limit <= 0 ? DEFAULT_LIMIT : limit));
+        return result;
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 固定桶的调用耗时直方图
+ * 第i个桶记录耗时在[2^(i-1), 2^i)微秒之间的调用，最后一个桶收集所有更慢的调用。
+ * 记录只做几次原子自增，不加锁也不分配对象；分位数按桶上界估算。
+ */
+public class LatencyHistogram {
+
+    // 2^23微秒约8.4秒，超出部分进入最后一个桶
+    private static final int BUCKETS = 24;
+    // 用于计算吞吐的秒级滑动窗口，多留一个槽给当前未结束的一秒
+    private static final int WINDOW_SECONDS = 60;
+    private static final int WINDOW_SLOTS = WINDOW_SECONDS + 1;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong totalMicros = new AtomicLong();
+    private final AtomicLong maxMicros = new AtomicLong();
+    private final AtomicLongArray windowCounts = new AtomicLongArray(WINDOW_SLOTS);
+    private final AtomicLongArray windowEpochs = new AtomicLongArray(WINDOW_SLOTS);
+
+    public void record(long elapsedNanos, boolean error) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(elapsedNanos);
+        buckets.incrementAndGet(bucketOf(micros));
+        count.incrementAndGet();
+        totalMicros.addAndGet(micros);
+        if (error) {
+            errors.incrementAndGet();
+        }
+        long max;
+        while (micros > (max = maxMicros.get()) && !maxMicros.compareAndSet(max, micros)) {
+            // 重试直到写入更大的值
+        }
+        recordWindow(System.currentTimeMillis() / 1000);
+    }
+
+    private void recordWindow(long epochSecond) {
+        int slot = (int) (epochSecond % WINDOW_SLOTS);
+        long slotEpoch = windowEpochs.get(slot);
+        if (slotEpoch != epochSecond && windowEpochs.compareAndSet(slot, slotEpoch, epochSecond)) {
+            // 槽位属于一个窗口之前，抢到的线程负责清零
+            windowCounts.set(slot, 0);
+        }
+        windowCounts.incrementAndGet(slot);
+    }
+
+    /**
+     * 各桶的累计次数，按桶序号排列
+     */
+    public long[] bucketCounts() {
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = buckets.get(i);
+        }
+        return snapshot;
+    }
+
+    static int bucketOf(long micros) {
+        int bucket = 64 - Long.numberOfLeadingZeros(micros);
+        return Math.min(bucket, BUCKETS - 1);
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getErrors() {
+        return errors.get();
+    }
+
+    /**
+     * 最近60个完整秒的平均每秒调用数（不含当前未结束的一秒）
+     */
+    public double getRecentQps() {
+        long now = System.currentTimeMillis() / 1000;
+        long total = 0;
+        for (int i = 0; i < WINDOW_SLOTS; i++) {
+            long epoch = windowEpochs.get(i);
+            if (epoch < now && now - epoch <= WINDOW_SECONDS) {
+                total += windowCounts.get(i);
+            }
+        }
+        return total / (double) WINDOW_SECONDS;
+    }
+
+    /**
+     * 按桶上界估算分位数（毫秒）
+     */
+    public double percentileMs(double percentile) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = buckets.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * percentile);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return i == BUCKETS - 1 ? maxMicros.get() / 1000.0 : (1L << i) / 1000.0;
+            }
+        }
+        return maxMicros.get() / 1000.0;
+    }
+
+    public Map<String, Object> toMap() {
+        long calls = getCount();
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("count", calls);
+        map.put("errors", getErrors());
+        map.put("errorRate", calls == 0 ? 0 : getErrors() / (double) calls);
+        map.put("qps1m", getRecentQps());
+        map.put("meanMs", calls == 0 ? 0 : totalMicros.get() / 1000.0 / calls);
+        map.put("p50Ms", percentileMs(0.50));
+        map.put("p90Ms", percentileMs(0.90));
+        map.put("p99Ms", percentileMs(0.99));
+        map.put("maxMs", maxMicros.get() / 1000.0);
+        return map;
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.protection;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 基于TCP Vegas思想的自适应并发限制
+ * 以观察到的最小耗时作为无排队耗时，估算提供者侧排队量：
+ * 排队少时放大并发上限，排队多或超时时收缩，上限随提供者的实际处理能力浮动。
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    // 每隔多少个样本重新探测一次无排队耗时，适应提供者性能的长期变化
+    private static final int PROBE_INTERVAL_SAMPLES = 1000;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+
+    private volatile int limit;
+    private double estimatedLimit;
+    private long rttNoLoadNanos;
+    private int samplesSinceProbe;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.estimatedLimit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+        this.limit = (int) estimatedLimit;
+    }
+
+    /**
+     * 尝试占用一个并发名额，成功后必须调用 {@link #onComplete}
+     */
+    public boolean tryAcquire() {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= limit) {
+                rejected.incrementAndGet();
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    /**
+     * 释放名额并用本次耗时调整上限
+     * @param dropped 本次调用是否超时或因过载失败
+     */
+    public void onComplete(long rttNanos, boolean dropped) {
+        int inFlightAtCompletion = inFlight.getAndDecrement();
+        onSample(rttNanos, inFlightAtCompletion, dropped);
+    }
+
+    private synchronized void onSample(long rttNanos, int inFlightAtCompletion, boolean dropped) {
+        if (++samplesSinceProbe >= PROBE_INTERVAL_SAMPLES) {
+            samplesSinceProbe = 0;
+            rttNoLoadNanos = 0;
+        }
+        if (rttNoLoadNanos == 0 || rttNanos < rttNoLoadNanos) {
+            rttNoLoadNanos = Math.max(1, rttNanos);
+            return;
+        }
+
+        double current = estimatedLimit;
+        double log = Math.max(1, Math.log10(current));
+        double updated;
+        if (dropped) {
+            updated = current - log;
+        } else if (inFlightAtCompletion * 2 < current) {
+            // 并发远未用满，样本不能说明上限是否合适
+            return;
+        } else {
+            double queue = Math.ceil(current * (1 - (double) rttNoLoadNanos / rttNanos));
+            if (queue <= log) {
+                updated = current + 6 * log;
+            } else if (queue < 3 * log) {
+                updated = current + log;
+            } else if (queue > 6 * log) {
+                updated = current - log;
+            } else {
+                return;
+            }
+        }
+        estimatedLimit = Math.min(maxLimit, Math.max(minLimit, updated));
+        limit = (int) estimatedLimit;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    public synchronized double getRttNoLoadMs() {
+        return rttNoLoadNanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("limit", getLimit());
+        map.put("inFlight", getInFlight());
+        map.put("rejected", getRejected());
+        map.put("rttNoLoadMs", getRttNoLoadMs());
+        return map;
+    }
+}
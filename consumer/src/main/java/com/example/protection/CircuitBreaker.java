@@ -0,0 +1,173 @@
+package com.example.protection;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 按时间窗口统计失败率的熔断器
+ * CLOSED：窗口内调用数达到下限且失败率超过阈值时打开；
+ * OPEN：直接拒绝，持续openDurationMs后进入半开；
+ * HALF_OPEN：只放行少量探测调用，全部成功则关闭，任一失败重新打开。
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final double failureRateThreshold;
+    private final int minimumCalls;
+    private final int windowSeconds;
+    private final long openDurationMs;
+    private final int halfOpenProbes;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicLongArray windowCalls;
+    private final AtomicLongArray windowFailures;
+    private final AtomicLongArray windowEpochs;
+    private final AtomicInteger probePermits = new AtomicInteger();
+    private final AtomicInteger probeSuccesses = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong openedCount = new AtomicLong();
+    private volatile long openedAt;
+
+    public CircuitBreaker(double failureRateThreshold, int minimumCalls, int windowSeconds,
+                          long openDurationMs, int halfOpenProbes) {
+        this.failureRateThreshold = failureRateThreshold;
+        this.minimumCalls = Math.max(1, minimumCalls);
+        this.windowSeconds = Math.max(1, windowSeconds);
+        this.openDurationMs = openDurationMs;
+        this.halfOpenProbes = Math.max(1, halfOpenProbes);
+        this.windowCalls = new AtomicLongArray(this.windowSeconds);
+        this.windowFailures = new AtomicLongArray(this.windowSeconds);
+        this.windowEpochs = new AtomicLongArray(this.windowSeconds);
+    }
+
+    /**
+     * 是否允许本次调用，允许后必须调用 {@link #onResult} 或 {@link #release}
+     */
+    public boolean tryAcquire() {
+        State current = state.get();
+        if (current == State.OPEN) {
+            if (System.currentTimeMillis() - openedAt < openDurationMs
+                    || !state.compareAndSet(State.OPEN, State.HALF_OPEN)) {
+                return reject();
+            }
+            probePermits.set(halfOpenProbes);
+            probeSuccesses.set(0);
+            current = State.HALF_OPEN;
+        }
+        if (current == State.HALF_OPEN) {
+            // 名额不减到负数，release归还后能被下一个调用取得
+            return probePermits.getAndUpdate(permits -> permits > 0 ? permits - 1 : 0) > 0 || reject();
+        }
+        return true;
+    }
+
+    private boolean reject() {
+        rejected.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * 放行后调用没有发出（如被本地限流拒绝）时归还许可，不记录结果
+     * 半开状态下归还探测名额，关闭状态下不计入失败率窗口
+     */
+    public void release() {
+        if (state.get() != State.HALF_OPEN) {
+            return;
+        }
+        int permits;
+        do {
+            permits = probePermits.get();
+            if (permits >= halfOpenProbes) {
+                return;
+            }
+        } while (!probePermits.compareAndSet(permits, permits + 1));
+    }
+
+    public void onResult(boolean failure) {
+        if (state.get() == State.HALF_OPEN) {
+            if (failure) {
+                open(State.HALF_OPEN);
+            } else if (probeSuccesses.incrementAndGet() >= halfOpenProbes
+                    && state.compareAndSet(State.HALF_OPEN, State.CLOSED)) {
+                resetWindow();
+            }
+            return;
+        }
+
+        long epochSecond = System.currentTimeMillis() / 1000;
+        int slot = (int) (epochSecond % windowSeconds);
+        long slotEpoch = windowEpochs.get(slot);
+        if (slotEpoch != epochSecond && windowEpochs.compareAndSet(slot, slotEpoch, epochSecond)) {
+            windowCalls.set(slot, 0);
+            windowFailures.set(slot, 0);
+        }
+        windowCalls.incrementAndGet(slot);
+        if (failure) {
+            windowFailures.incrementAndGet(slot);
+            long[] totals = windowTotals(epochSecond);
+            if (totals[0] >= minimumCalls && totals[1] >= totals[0] * failureRateThreshold) {
+                open(State.CLOSED);
+            }
+        }
+    }
+
+    private void open(State from) {
+        if (state.compareAndSet(from, State.OPEN)) {
+            openedAt = System.currentTimeMillis();
+            openedCount.incrementAndGet();
+        }
+    }
+
+    private long[] windowTotals(long epochSecond) {
+        long calls = 0;
+        long failures = 0;
+        for (int i = 0; i < windowSeconds; i++) {
+            if (epochSecond - windowEpochs.get(i) < windowSeconds) {
+                calls += windowCalls.get(i);
+                failures += windowFailures.get(i);
+            }
+        }
+        return new long[]{calls, failures};
+    }
+
+    private void resetWindow() {
+        for (int i = 0; i < windowSeconds; i++) {
+            windowEpochs.set(i, 0);
+            windowCalls.set(i, 0);
+            windowFailures.set(i, 0);
+        }
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    public double getFailureRate() {
+        long[] totals = windowTotals(System.currentTimeMillis() / 1000);
+        return totals[0] == 0 ? 0 : totals[1] / (double) totals[0];
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    public long getOpenedCount() {
+        return openedCount.get();
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("state", getState());
+        map.put("failureRate", getFailureRate());
+        map.put("rejected", getRejected());
+        map.put("openedCount", getOpenedCount());
+        return map;
+    }
+}
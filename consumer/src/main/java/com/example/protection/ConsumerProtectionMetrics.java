@@ -0,0 +1,60 @@
+package com.example.protection;
+
+import com.example.config.ConsumerProtectionProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * 将配置注入 {@link ProtectionRegistry}，并把每组提供者的限流和熔断状态注册为Micrometer指标
+ * 熔断状态取值：0=CLOSED，1=HALF_OPEN，2=OPEN
+ */
+@Component
+public class ConsumerProtectionMetrics implements MeterBinder {
+
+    @Autowired
+    private ConsumerProtectionProperties properties;
+
+    @PostConstruct
+    public void init() {
+        ProtectionRegistry.configure(properties);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        ProtectionRegistry.onGuardCreated(guard -> bind(registry, guard));
+    }
+
+    private void bind(MeterRegistry registry, ProviderGuard guard) {
+        Tags tags = Tags.of("interface", guard.getInterfaceName(), "lane", guard.getLane());
+        Gauge.builder("dubbo.consumer.limiter.limit", guard.getLimiter(), AdaptiveConcurrencyLimiter::getLimit)
+                .tags(tags).register(registry);
+        Gauge.builder("dubbo.consumer.limiter.inflight", guard.getLimiter(), AdaptiveConcurrencyLimiter::getInFlight)
+                .tags(tags).register(registry);
+        FunctionCounter.builder("dubbo.consumer.limiter.rejected", guard.getLimiter(),
+                AdaptiveConcurrencyLimiter::getRejected).tags(tags).register(registry);
+        Gauge.builder("dubbo.consumer.breaker.state", guard.getBreaker(), breaker -> stateValue(breaker.getState()))
+                .tags(tags).register(registry);
+        Gauge.builder("dubbo.consumer.breaker.failure.rate", guard.getBreaker(), CircuitBreaker::getFailureRate)
+                .tags(tags).register(registry);
+        FunctionCounter.builder("dubbo.consumer.breaker.rejected", guard.getBreaker(), CircuitBreaker::getRejected)
+                .tags(tags).register(registry);
+    }
+
+    private static double stateValue(CircuitBreaker.State state) {
+        switch (state) {
+            case OPEN:
+                return 2;
+            case HALF_OPEN:
+                return 1;
+            default:
+                return 0;
+        }
+    }
+}
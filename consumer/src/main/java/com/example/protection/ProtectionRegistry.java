@@ -0,0 +1,71 @@
+package com.example.protection;
+
+import com.example.config.ConsumerProtectionProperties;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * 限流熔断状态注册表，按 接口 -> 提供者节点类型 保存 {@link ProviderGuard}
+ * Filter由Dubbo SPI创建，配置和指标绑定由Spring组件在启动时注入。
+ */
+public final class ProtectionRegistry {
+
+    private static final Map<String, Map<String, ProviderGuard>> GUARDS = new ConcurrentHashMap<>();
+    private static final List<Consumer<ProviderGuard>> LISTENERS = new CopyOnWriteArrayList<>();
+    private static volatile ConsumerProtectionProperties properties = new ConsumerProtectionProperties();
+
+    private ProtectionRegistry() {
+    }
+
+    public static void configure(ConsumerProtectionProperties newProperties) {
+        properties = newProperties;
+    }
+
+    public static boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    public static ProviderGuard guard(String interfaceName, String lane) {
+        Map<String, ProviderGuard> lanes = GUARDS.get(interfaceName);
+        if (lanes == null) {
+            lanes = GUARDS.computeIfAbsent(interfaceName, k -> new ConcurrentHashMap<>());
+        }
+        ProviderGuard guard = lanes.get(lane);
+        if (guard == null) {
+            boolean[] created = {false};
+            guard = lanes.computeIfAbsent(lane, k -> {
+                created[0] = true;
+                return new ProviderGuard(interfaceName, lane, properties);
+            });
+            if (created[0]) {
+                for (Consumer<ProviderGuard> listener : LISTENERS) {
+                    listener.accept(guard);
+                }
+            }
+        }
+        return guard;
+    }
+
+    /**
+     * 注册新建ProviderGuard的回调，并对已存在的立即回调一次
+     */
+    public static void onGuardCreated(Consumer<ProviderGuard> listener) {
+        LISTENERS.add(listener);
+        GUARDS.values().forEach(lanes -> lanes.values().forEach(listener));
+    }
+
+    public static Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        GUARDS.forEach((interfaceName, lanes) -> {
+            Map<String, Object> laneMap = new LinkedHashMap<>();
+            lanes.forEach((lane, guard) -> laneMap.put(lane, guard.toMap()));
+            snapshot.put(interfaceName, laneMap);
+        });
+        return snapshot;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.protection;
+
+import com.example.config.ConsumerProtectionProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 一组提供者（接口 + 节点类型）的限流器和熔断器
+ */
+public class ProviderGuard {
+
+    private final String interfaceName;
+    private final String lane;
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final CircuitBreaker breaker;
+
+    ProviderGuard(String interfaceName, String lane, ConsumerProtectionProperties properties) {
+        this.interfaceName = interfaceName;
+        this.lane = lane;
+        this.limiter = new AdaptiveConcurrencyLimiter(properties.getInitialLimit(),
+                properties.getMinLimit(), properties.getMaxLimit());
+        this.breaker = new CircuitBreaker(properties.getFailureRateThreshold(), properties.getMinimumCalls(),
+                properties.getWindowSeconds(), properties.getOpenDurationMs(), properties.getHalfOpenProbes());
+    }
+
+    public String getInterfaceName() {
+        return interfaceName;
+    }
+
+    public String getLane() {
+        return lane;
+    }
+
+    public AdaptiveConcurrencyLimiter getLimiter() {
+        return limiter;
+    }
+
+    public CircuitBreaker getBreaker() {
+        return breaker;
+    }
+
+    Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("limiter", limiter.toMap());
+        map.put("breaker", breaker.toMap());
+        return map;
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.router;
+
+import com.example.enums.ReleaseState;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.constants.CommonConstants;
+import org.apache.dubbo.common.utils.Holder;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.RpcException;
+import org.apache.dubbo.rpc.cluster.router.RouterSnapshotNode;
+import org.apache.dubbo.rpc.cluster.router.state.AbstractStateRouter;
+import org.apache.dubbo.rpc.cluster.router.state.BitList;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 消费者侧灰度路由
+ * 地址变化时按提供者URL上的node-type参数预先划分GRAY/PRD两组（位图），
+ * 每次调用只根据提供者应用的发布状态和请求上的gray标记选一组，与当前候选列表做位与，不解析任何规则。
+ * 选中的分组为空时退回全部候选，避免发布过程中出现无提供者可用。
+ */
+@Slf4j
+public class GrayLaneStateRouter<T> extends AbstractStateRouter<T> {
+
+    public static final String NODE_TYPE_KEY = "node-type";
+    public static final String GRAY_ATTACHMENT = "gray";
+
+    /**
+     * 一次地址通知对应的预计算分组
+     */
+    private static final class Lanes<T> {
+        final List<Invoker<T>> origin;
+        final BitList<Invoker<T>> gray;
+        final BitList<Invoker<T>> prd;
+        // 分组在原始列表中的下标，用于在不修改候选列表的前提下判断交集是否为空
+        final int[] grayIndexes;
+        final int[] prdIndexes;
+        final String application;
+
+        Lanes(List<Invoker<T>> origin, BitList<Invoker<T>> gray, BitList<Invoker<T>> prd,
+              int[] grayIndexes, int[] prdIndexes, String application) {
+            this.origin = origin;
+            this.gray = gray;
+            this.prd = prd;
+            this.grayIndexes = grayIndexes;
+            this.prdIndexes = prdIndexes;
+            this.application = application;
+        }
+    }
+
+    private volatile Lanes<T> lanes;
+    private final GrayRoutingRegistry.RouteStats stats = new GrayRoutingRegistry.RouteStats();
+
+    public GrayLaneStateRouter(URL url) {
+        super(url);
+        GrayRoutingRegistry.register(url.getServiceKey(), this);
+    }
+
+    @Override
+    public void notify(BitList<Invoker<T>> invokers) {
+        List<Invoker<T>> origin = invokers.getOriginList();
+        BitList<Invoker<T>> gray = new BitList<>(origin, true);
+        BitList<Invoker<T>> prd = new BitList<>(origin, true);
+        List<Integer> grayIndexes = new ArrayList<>();
+        List<Integer> prdIndexes = new ArrayList<>();
+        String application = null;
+        for (int i = 0; i < origin.size(); i++) {
+            if (!invokers.indexExist(i)) {
+                continue;
+            }
+            URL providerUrl = origin.get(i).getUrl();
+            if (application == null) {
+                application = providerUrl.getParameter(CommonConstants.REMOTE_APPLICATION_KEY,
+                        providerUrl.getParameter(CommonConstants.APPLICATION_KEY));
+            }
+            if ("GRAY".equalsIgnoreCase(providerUrl.getParameter(NODE_TYPE_KEY))) {
+                gray.addIndex(i);
+                grayIndexes.add(i);
+            } else {
+                prd.addIndex(i);
+                prdIndexes.add(i);
+            }
+        }
+        lanes = new Lanes<>(origin, gray, prd, toArray(grayIndexes), toArray(prdIndexes), application);
+        log.info("Gray lanes rebuilt for {}: gray={}, prd={}", getUrl().getServiceKey(), gray.size(), prd.size());
+    }
+
+    @Override
+    protected BitList<Invoker<T>> doRoute(BitList<Invoker<T>> invokers, URL url, Invocation invocation,
+                                          boolean needToPrintMessage, Holder<RouterSnapshotNode<T>> nodeHolder,
+                                          Holder<String> messageHolder) throws RpcException {
+        Lanes<T> current = lanes;
+        // 候选列表不是基于最近一次通知的地址时无法做位与，不参与路由
+        if (current == null || invokers.isEmpty() || invokers.getOriginList() != current.origin) {
+            if (needToPrintMessage) {
+                messageHolder.set("Gray lanes not ready, skipped");
+            }
+            return invokers;
+        }
+
+        BitList<Invoker<T>> lane = selectLane(current, invocation);
+        if (lane == null) {
+            stats.all.increment();
+            if (needToPrintMessage) {
+                messageHolder.set("Routed to all providers");
+            }
+            return invokers;
+        }
+        boolean toGray = lane == current.gray;
+        if (!intersects(invokers, toGray ? current.grayIndexes : current.prdIndexes)) {
+            stats.fallback.increment();
+            if (needToPrintMessage) {
+                messageHolder.set("Selected lane is empty, fallback to all providers");
+            }
+            return invokers;
+        }
+        (toGray ? stats.gray : stats.prd).increment();
+        if (needToPrintMessage) {
+            messageHolder.set("Routed to " + (toGray ? "GRAY" : "PRD") + " providers");
+        }
+        // BitList.and在原列表上做位与，路由链每次调用传入的都是副本
+        return invokers.and(lane);
+    }
+
+    /**
+     * 候选列表中是否至少有一个分组成员，通常第一个下标即命中
+     */
+    private static <T> boolean intersects(BitList<Invoker<T>> invokers, int[] indexes) {
+        for (int index : indexes) {
+            if (invokers.indexExist(index)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int[] toArray(List<Integer> indexes) {
+        int[] array = new int[indexes.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = indexes.get(i);
+        }
+        return array;
+    }
+
+    /**
+     * 返回应使用的分组，null表示不限制
+     */
+    private BitList<Invoker<T>> selectLane(Lanes<T> current, Invocation invocation) {
+        ReleaseState state = GrayRoutingRegistry.stateOf(current.application);
+        switch (state) {
+            case GRAY_ACCESSABLE:
+                return current.gray;
+            case PROD_ACCESSABLE:
+                return current.prd;
+            default:
+                String gray = invocation.getAttachment(GRAY_ATTACHMENT);
+                if (gray == null) {
+                    return null;
+                }
+                return Boolean.parseBoolean(gray) ? current.gray : current.prd;
+        }
+    }
+
+    @Override
+    protected String doBuildSnapshot() {
+        Lanes<T> current = lanes;
+        return current == null ? "not ready"
+                : "gray=" + current.gray.size() + ", prd=" + current.prd.size();
+    }
+
+    Map<String, Object> snapshot() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        Lanes<T> current = lanes;
+        if (current != null) {
+            map.put("application", current.application);
+            map.put("state", GrayRoutingRegistry.stateOf(current.application));
+            map.put("grayProviders", current.gray.size());
+            map.put("prdProviders", current.prd.size());
+        }
+        map.put("routed", stats.toMap());
+        return map;
+    }
+}
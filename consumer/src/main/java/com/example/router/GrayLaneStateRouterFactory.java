@@ -0,0 +1,18 @@
+package com.example.router;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.extension.Activate;
+import org.apache.dubbo.rpc.cluster.router.state.StateRouter;
+import org.apache.dubbo.rpc.cluster.router.state.StateRouterFactory;
+
+/**
+ * 为每个服务引用创建灰度路由，排在标签路由之后
+ */
+@Activate(order = 200)
+public class GrayLaneStateRouterFactory implements StateRouterFactory {
+
+    @Override
+    public <T> StateRouter<T> getRouter(Class<T> interfaceClass, URL url) {
+        return new GrayLaneStateRouter<>(url);
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.router;
+
+import com.example.enums.ReleaseState;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 灰度路由的共享状态：各提供者应用的发布状态、路由器实例和路由结果计数
+ * 路由器由Dubbo SPI创建，发布状态由Spring管理的 GrayRoutingService 写入，因此放在静态注册表中。
+ */
+public final class GrayRoutingRegistry {
+
+    private static final Map<String, ReleaseState> STATES = new ConcurrentHashMap<>();
+    private static final Map<String, GrayLaneStateRouter<?>> ROUTERS = new ConcurrentHashMap<>();
+
+    private GrayRoutingRegistry() {
+    }
+
+    /**
+     * 提供者应用当前的发布状态，未知时视为全部可访问
+     */
+    public static ReleaseState stateOf(String application) {
+        if (application == null) {
+            return ReleaseState.ALL_ACCESSABLE;
+        }
+        ReleaseState state = STATES.get(application);
+        return state != null ? state : ReleaseState.ALL_ACCESSABLE;
+    }
+
+    public static void updateState(String application, ReleaseState state) {
+        STATES.put(application, state);
+    }
+
+    static void register(String serviceKey, GrayLaneStateRouter<?> router) {
+        ROUTERS.put(serviceKey, router);
+    }
+
+    public static Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("states", new LinkedHashMap<>(STATES));
+        Map<String, Object> routers = new LinkedHashMap<>();
+        ROUTERS.forEach((serviceKey, router) -> routers.put(serviceKey, router.snapshot()));
+        snapshot.put("routers", routers);
+        return snapshot;
+    }
+
+    /**
+     * 单个路由器的路由结果计数
+     */
+    static final class RouteStats {
+        final LongAdder gray = new LongAdder();
+        final LongAdder prd = new LongAdder();
+        final LongAdder all = new LongAdder();
+        final LongAdder fallback = new LongAdder();
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("gray", gray.sum());
+            map.put("prd", prd.sum());
+            map.put("all", all.sum());
+            map.put("fallback", fallback.sum());
+            return map;
+        }
+    }
+}
@@ -0,0 +1,321 @@
+package com.example.service;
+
+import com.example.config.ConsumerLagProperties;
+import org.apache.rocketmq.common.admin.ConsumeStats;
+import org.apache.rocketmq.common.admin.OffsetWrapper;
+import org.apache.rocketmq.common.message.MessageQueue;
+import org.apache.rocketmq.tools.admin.DefaultMQAdminExt;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 消费组堆积监控
+ * 后台定时通过admin工具拉取消费组在订阅Topic上的消费进度，计算每个队列的堆积和消费速率并缓存在内存中，
+ * 健康检查和指标只读取缓存，不会阻塞在Broker调用上。拉取失败时保留上一次的结果并记录错误，
+ * 结果超过若干个拉取间隔未更新即视为过期：堆积按未知处理，不再据此判断是否堆积。
+ */
+@Service
+public class ConsumerLagMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConsumerLagMonitor.class);
+
+    /**
+     * 单个队列的消费进度
+     */
+    public static final class QueueLag {
+        private final String topic;
+        private final String brokerName;
+        private final int queueId;
+        private final long brokerOffset;
+        private final long consumerOffset;
+        private final long lastTimestamp;
+        private final double tps;
+
+        QueueLag(MessageQueue queue, OffsetWrapper offset, double tps) {
+            this.topic = queue.getTopic();
+            this.brokerName = queue.getBrokerName();
+            this.queueId = queue.getQueueId();
+            this.brokerOffset = offset.getBrokerOffset();
+            this.consumerOffset = offset.getConsumerOffset();
+            this.lastTimestamp = offset.getLastTimestamp();
+            this.tps = tps;
+        }
+
+        public String getTopic() {
+            return topic;
+        }
+
+        public String getBrokerName() {
+            return brokerName;
+        }
+
+        public int getQueueId() {
+            return queueId;
+        }
+
+        public long getLag() {
+            return Math.max(0, brokerOffset - consumerOffset);
+        }
+
+        public double getTps() {
+            return tps;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("topic", topic);
+            map.put("broker", brokerName);
+            map.put("queueId", queueId);
+            map.put("brokerOffset", brokerOffset);
+            map.put("consumerOffset", consumerOffset);
+            map.put("lag", getLag());
+            map.put("tps", tps);
+            map.put("lastConsumeTimestamp", lastTimestamp);
+            return map;
+        }
+    }
+
+    /**
+     * 一次拉取的结果
+     */
+    public static final class LagSnapshot {
+        static final LagSnapshot EMPTY = new LagSnapshot(0, 0, Collections.emptyList());
+
+        private final long timestamp;
+        private final double consumeTps;
+        private final List<QueueLag> queues;
+
+        LagSnapshot(long timestamp, double consumeTps, List<QueueLag> queues) {
+            this.timestamp = timestamp;
+            this.consumeTps = consumeTps;
+            this.queues = queues;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        /**
+         * Broker统计的消费组整体消费TPS
+         */
+        public double getConsumeTps() {
+            return consumeTps;
+        }
+
+        public List<QueueLag> getQueues() {
+            return queues;
+        }
+
+        public long getTotalLag() {
+            long total = 0;
+            for (QueueLag queue : queues) {
+                total += queue.getLag();
+            }
+            return total;
+        }
+    }
+
+    @Autowired
+    private ConsumerLagProperties properties;
+
+    @Autowired
+    private MQConsumerService mqConsumerService;
+
+    @Value("${rocketmq.name-server}")
+    private String nameServer;
+
+    @Value("${rocketmq.consumer.group}")
+    private String consumerGroup;
+
+    @Value("${rocketmq.consumer.topic}")
+    private String topic;
+
+    private final List<Consumer<LagSnapshot>> listeners = new CopyOnWriteArrayList<>();
+
+    private volatile DefaultMQAdminExt admin;
+    private ScheduledExecutorService executor;
+    private volatile LagSnapshot snapshot = LagSnapshot.EMPTY;
+    // 上一次拉取时各队列的消费位点，用于计算队列消费速率
+    private Map<MessageQueue, Long> previousOffsets = Collections.emptyMap();
+    private long previousConsumed;
+    private volatile double localTps;
+    private volatile String lastError;
+    private volatile long failures;
+
+    @PostConstruct
+    public void init() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "consumer-lag-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::refresh, 0, properties.getRefreshIntervalMs(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 启动失败的admin无法再次启动，下次拉取时重新创建
+     */
+    private DefaultMQAdminExt admin() throws Exception {
+        if (admin == null) {
+            DefaultMQAdminExt created = new DefaultMQAdminExt();
+            created.setNamesrvAddr(nameServer);
+            created.setInstanceName("lag-monitor-" + System.nanoTime());
+            try {
+                created.start();
+            } catch (Exception e) {
+                created.shutdown();
+                throw e;
+            }
+            admin = created;
+        }
+        return admin;
+    }
+
+    /**
+     * 每次拉取成功后回调，在监控线程中执行
+     */
+    public void onRefresh(Consumer<LagSnapshot> listener) {
+        listeners.add(listener);
+    }
+
+    private void refresh() {
+        try {
+            ConsumeStats stats = admin().examineConsumeStats(consumerGroup, topic);
+            long now = System.currentTimeMillis();
+            double elapsedSeconds = snapshot.getTimestamp() == 0 ? 0 : (now - snapshot.getTimestamp()) / 1000.0;
+
+            Map<MessageQueue, Long> offsets = new HashMap<>();
+            List<QueueLag> queues = new ArrayList<>();
+            for (Map.Entry<MessageQueue, OffsetWrapper> entry : stats.getOffsetTable().entrySet()) {
+                long consumerOffset = entry.getValue().getConsumerOffset();
+                Long previous = previousOffsets.get(entry.getKey());
+                double tps = previous == null || elapsedSeconds <= 0 ? 0
+                        : Math.max(0, consumerOffset - previous) / elapsedSeconds;
+                offsets.put(entry.getKey(), consumerOffset);
+                queues.add(new QueueLag(entry.getKey(), entry.getValue(), tps));
+            }
+            queues.sort((a, b) -> a.getBrokerName().equals(b.getBrokerName())
+                    ? Integer.compare(a.getQueueId(), b.getQueueId()) : a.getBrokerName().compareTo(b.getBrokerName()));
+
+            long consumed = mqConsumerService.getConsumedMessages();
+            localTps = elapsedSeconds <= 0 ? 0 : (consumed - previousConsumed) / elapsedSeconds;
+            previousConsumed = consumed;
+            previousOffsets = offsets;
+            snapshot = new LagSnapshot(now, stats.getConsumeTps(), Collections.unmodifiableList(queues));
+            lastError = null;
+            for (Consumer<LagSnapshot> listener : listeners) {
+                listener.accept(snapshot);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            onFailure(e);
+        }
+    }
+
+    private void onFailure(Exception e) {
+        failures++;
+        lastError = e.getMessage();
+        logger.warn("Failed to fetch consume stats for group {} topic {}: {}", consumerGroup, topic, e.getMessage());
+    }
+
+    public LagSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * 本节点最近一个拉取周期的消费速率
+     */
+    public double getLocalTps() {
+        return localTps;
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * 还没有成功拉取过，或最近一次成功拉取已超过staleAfterIntervals个拉取间隔
+     */
+    public boolean isStale() {
+        return isStale(snapshot);
+    }
+
+    private boolean isStale(LagSnapshot current) {
+        long maxAgeMs = properties.getRefreshIntervalMs() * Math.max(1, properties.getStaleAfterIntervals());
+        return current.getTimestamp() == 0 || System.currentTimeMillis() - current.getTimestamp() > maxAgeMs;
+    }
+
+    /**
+     * 消费组总堆积，结果过期时未知，返回-1
+     */
+    public long getTotalLag() {
+        LagSnapshot current = snapshot;
+        return isStale(current) ? -1 : current.getTotalLag();
+    }
+
+    /**
+     * 消费组总堆积是否超过阈值，结果过期时堆积未知，返回false
+     */
+    public boolean isLagging() {
+        return getTotalLag() > properties.getDegradedThreshold();
+    }
+
+    public Map<String, Object> toMap() {
+        LagSnapshot current = snapshot;
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("group", consumerGroup);
+        map.put("topic", topic);
+        map.put("enabled", properties.isEnabled());
+        boolean stale = isStale(current);
+        map.put("fetchedAt", current.getTimestamp());
+        map.put("stale", stale);
+        // 过期的结果不代表当前堆积，只给出未知
+        map.put("totalLag", stale ? -1 : current.getTotalLag());
+        map.put("degradedThreshold", properties.getDegradedThreshold());
+        map.put("groupConsumeTps", stale ? -1 : current.getConsumeTps());
+        map.put("localConsumeTps", localTps);
+        map.put("inFlight", mqConsumerService.getInFlight());
+        map.put("lastConsumeTimestamp", mqConsumerService.getLastConsumeTimestamp());
+        List<Map<String, Object>> queues = new ArrayList<>();
+        if (!stale) {
+            current.getQueues().forEach(queue -> queues.add(queue.toMap()));
+        }
+        map.put("queues", queues);
+        if (lastError != null) {
+            map.put("lastError", lastError);
+            map.put("failures", failures);
+        }
+        return map;
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        if (admin != null) {
+            admin.shutdown();
+        }
+    }
+}
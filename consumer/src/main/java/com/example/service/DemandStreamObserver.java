@@ -0,0 +1,81 @@
+package com.example.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.dubbo.rpc.protocol.tri.CancelableStreamObserver;
+import org.apache.dubbo.rpc.protocol.tri.observer.ClientCallToObserverAdapter;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * 分批交付的Triple服务端流观察者
+ * 关闭自动请求，先请求prefetch条，下游每处理完一半再补充请求。
+ * Dubbo 3.2的request(n)只控制已收到的数据何时交给下游，不会让提供者放慢发送，
+ * 提供者没有isReady/onReady，下游处理慢时数据照样发出，积压在提供者的Netty写队列里，
+ * 积压上限是一个流的全部结果，条数由提供者的dubbo-demo.stream.max-items限制。
+ * 下游处理抛出异常（如HTTP客户端断开）时取消整个流。
+ */
+@Slf4j
+public class DemandStreamObserver<T> extends CancelableStreamObserver<T> {
+
+    private final int prefetch;
+    private final Consumer<T> onItem;
+    private final CompletableFuture<Integer> completion = new CompletableFuture<>();
+
+    private ClientCallToObserverAdapter<T> call;
+    private int received;
+    private int consumedSinceRequest;
+
+    public DemandStreamObserver(int prefetch, Consumer<T> onItem) {
+        this.prefetch = Math.max(1, prefetch);
+        this.onItem = onItem;
+    }
+
+    @Override
+    public void beforeStart(ClientCallToObserverAdapter<T> clientCallToObserverAdapter) {
+        this.call = clientCallToObserverAdapter;
+        call.disableAutoFlowControl();
+    }
+
+    @Override
+    public void startRequest() {
+        call.request(prefetch);
+    }
+
+    @Override
+    public void onNext(T data) {
+        if (completion.isDone()) {
+            return;
+        }
+        try {
+            onItem.accept(data);
+        } catch (RuntimeException e) {
+            log.warn("Downstream failed after {} items, cancelling stream", received, e);
+            completion.completeExceptionally(e);
+            cancel(e);
+            return;
+        }
+        received++;
+        if (++consumedSinceRequest >= Math.max(1, prefetch / 2)) {
+            call.request(consumedSinceRequest);
+            consumedSinceRequest = 0;
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        completion.completeExceptionally(throwable);
+    }
+
+    @Override
+    public void onCompleted() {
+        completion.complete(received);
+    }
+
+    /**
+     * 流结束时完成，值为收到的条数
+     */
+    public CompletableFuture<Integer> getCompletion() {
+        return completion;
+    }
+}
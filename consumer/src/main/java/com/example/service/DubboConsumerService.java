@@ -1,22 +1,113 @@
 package com.example.service;
 
+import com.example.cluster.HedgingCluster;
+import com.example.cluster.HedgingClusterInvoker;
+import com.example.router.GrayLaneStateRouter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.dubbo.config.annotation.DubboReference;
+import org.apache.dubbo.config.annotation.Method;
+import org.apache.dubbo.rpc.RpcContext;
+import org.apache.dubbo.rpc.RpcException;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
 @Slf4j
 @Service
 public class DubboConsumerService {
 
-    @DubboReference(version = "1.0.0", group = "gray-demo", check = false)
+    // getServiceInfo是幂等查询，慢请求可以对冲到同泳道的其他提供者
+    @DubboReference(version = "1.0.0", group = "gray-demo", check = false, cluster = HedgingCluster.NAME,
+            methods = {
+                    @Method(name = "getServiceInfo", parameters = {HedgingClusterInvoker.HEDGE_KEY, "true"}),
+                    @Method(name = "getServiceInfoAsync", parameters = {HedgingClusterInvoker.HEDGE_KEY, "true"})
+            })
     private DubboDemoService dubboDemoService;
 
+    @DubboReference(version = "1.0.0", group = "gray-demo", protocol = "tri", check = false)
+    private DubboDemoStreamService dubboDemoStreamService;
+
+    // 流式调用时一批交给下游的条数
+    @Value("${dubbo-demo.stream.prefetch:32}")
+    private int streamPrefetch;
+
     public String callProviderService(String consumerName) {
         try {
             return dubboDemoService.getServiceInfo(consumerName);
+        } catch (RpcException e) {
+            if (e.isLimitExceed()) {
+                // 限流或熔断快速失败，不打印堆栈
+                log.warn("Dubbo call rejected: {}", e.getMessage());
+            } else {
+                log.error("Error calling dubbo service", e);
+            }
+            return "Error calling provider service: " + e.getMessage();
         } catch (Exception e) {
             log.error("Error calling dubbo service", e);
             return "Error calling provider service: " + e.getMessage();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 异步调用提供者，调用线程不等待响应；失败时返回与同步版本一致的错误信息
+     */
+    public CompletableFuture<String> callProviderServiceAsync(String consumerName) {
+        return callProviderServiceAsync(consumerName, null);
+    }
+
+    /**
+     * 异步调用提供者，gray不为空时作为本次请求的灰度标记，在全部可访问状态下决定路由到GRAY还是PRD提供者
+     */
+    public CompletableFuture<String> callProviderServiceAsync(String consumerName, Boolean gray) {
+        CompletableFuture<String> future;
+        try {
+            if (gray != null) {
+                RpcContext.getClientAttachment().setAttachment(GrayLaneStateRouter.GRAY_ATTACHMENT, gray.toString());
+            }
+            future = dubboDemoService.getServiceInfoAsync(consumerName);
+        } catch (Exception e) {
+            future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+        }
+        return future.exceptionally(e -> {
+            log.error("Error calling dubbo service", e);
+            return "Error calling provider service: " + e.getMessage();
+        });
+    }
+
+    /**
+     * 批量调用：一次RPC返回所有结果
+     */
+    public List<String> callProviderServiceBatch(List<String> consumerNames) {
+        try {
+            return dubboDemoService.getServiceInfoBatch(consumerNames);
+        } catch (Exception e) {
+            log.error("Error calling dubbo batch service", e);
+            List<String> errors = new ArrayList<>(consumerNames.size());
+            for (int i = 0; i < consumerNames.size(); i++) {
+                errors.add("Error calling provider service: " + e.getMessage());
+            }
+            return errors;
+        }
+    }
+
+    /**
+     * 流式调用：逐条交给onItem处理，按onItem的处理进度分批交付，提供者的发送速度不受影响
+     * 条数由dubbo-demo.max-count和提供者的dubbo-demo.stream.max-items限制
+     * @return 流结束时完成，值为收到的条数
+     */
+    public CompletableFuture<Integer> streamProviderService(List<String> consumerNames, Consumer<String> onItem) {
+        DemandStreamObserver<String> observer = new DemandStreamObserver<>(streamPrefetch, onItem);
+        try {
+            dubboDemoStreamService.streamServiceInfo(consumerNames, observer);
+        } catch (Exception e) {
+            log.error("Error calling dubbo stream service", e);
+            observer.onError(e);
+        }
+        return observer.getCompletion();
+    }
+}
@@ -1,5 +1,18 @@
 package com.example.service;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 public interface DubboDemoService {
     String getServiceInfo(String consumerName);
-}
\ No newline at end of file
+
+    /**
+     * 异步版本，消费者调用后立即返回Future，不占用调用线程等待提供者响应
+     */
+    CompletableFuture<String> getServiceInfoAsync(String consumerName);
+
+    /**
+     * 批量版本，一次调用返回所有结果，顺序与入参一致
+     */
+    List<String> getServiceInfoBatch(List<String> consumerNames);
+}
@@ -0,0 +1,47 @@
+package com.example.service;
+
+import com.example.router.GrayRoutingRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 监听提供者应用的发布状态并同步给灰度路由（GrayLaneStateRouter）
+ * 替代原先写入静态tag-router规则的做法，路由分组在消费者进程内维护。
+ */
+@Slf4j
+@Service
+public class GrayRoutingService {
+
+    @Autowired
+    private ServiceAwareReleaseStateService releaseStateService;
+
+    // 需要按发布状态路由的提供者应用名
+    @Value("${dubbo-demo.gray-routing.provider-applications:rocketmq-gray-producer}")
+    private List<String> providerApplications;
+
+    @PostConstruct
+    public void init() {
+        for (String application : providerApplications) {
+            releaseStateService.addServiceStateChangeListener(application, state -> {
+                GrayRoutingRegistry.updateState(application, state);
+                log.info("Gray routing state for {} changed to {}", application, state);
+            });
+            GrayRoutingRegistry.updateState(application, releaseStateService.getServiceReleaseState(application));
+            log.info("Gray routing enabled for provider application {} (state {})", application,
+                    GrayRoutingRegistry.stateOf(application));
+        }
+    }
+
+    /**
+     * 各提供者应用的发布状态、GRAY/PRD分组大小及路由计数
+     */
+    public Map<String, Object> getRoutingSnapshot() {
+        return GrayRoutingRegistry.snapshot();
+    }
+}
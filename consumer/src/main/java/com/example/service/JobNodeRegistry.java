@@ -0,0 +1,191 @@
+package com.example.service;
+
+import com.dangdang.ddframe.job.lite.api.strategy.JobInstance;
+import com.dangdang.ddframe.job.lite.internal.sharding.ShardingService;
+import com.dangdang.ddframe.job.reg.zookeeper.ZookeeperRegistryCenter;
+import com.example.config.ZookeeperProperties;
+import com.example.enums.ReleaseState;
+import com.example.job.AbstractGrayControlledJob;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.recipes.cache.ChildData;
+import org.apache.curator.framework.recipes.cache.PathChildrenCache;
+import org.apache.curator.framework.recipes.nodes.PersistentEphemeralNode;
+import org.apache.curator.utils.ZKPaths;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 作业节点类型注册表
+ * 每个节点在 {release-state-path}/{service}/job-nodes/{jobInstanceId} 下登记自己的节点类型（临时节点，会话恢复后自动重建），
+ * 分片策略据此只把分片分配给当前发布状态下可执行的节点；发布状态或节点变化时为所有作业设置重新分片标记。
+ */
+@Slf4j
+@Service
+public class JobNodeRegistry {
+
+    @Autowired
+    private CuratorFramework curatorFramework;
+
+    @Autowired
+    private ZookeeperProperties zookeeperProperties;
+
+    @Autowired
+    private ServiceAwareReleaseStateService releaseStateService;
+
+    @Autowired
+    private ZookeeperRegistryCenter regCenter;
+
+    private final String serviceName = AbstractGrayControlledJob.jobServiceName();
+    private final Set<String> jobNames = new CopyOnWriteArraySet<>();
+    // jobInstanceId -> 节点类型
+    private final Map<String, String> nodeTypes = new ConcurrentHashMap<>();
+    private final Consumer<ReleaseState> stateChangeListener = this::onReleaseStateChanged;
+    private final List<Runnable> changeListeners = new CopyOnWriteArrayList<>();
+
+    private PersistentEphemeralNode localNode;
+    private PathChildrenCache nodesCache;
+
+    @PostConstruct
+    public void init() throws Exception {
+        String nodesPath = zookeeperProperties.getReleaseStatePath() + "/" + serviceName + "/job-nodes";
+        String instanceId = new JobInstance().getJobInstanceId();
+        String nodeType = AbstractGrayControlledJob.localNodeType();
+
+        localNode = new PersistentEphemeralNode(curatorFramework, PersistentEphemeralNode.Mode.EPHEMERAL,
+                ZKPaths.makePath(nodesPath, instanceId), nodeType.getBytes(StandardCharsets.UTF_8));
+        localNode.start();
+        if (!localNode.waitForInitialCreate(10, TimeUnit.SECONDS)) {
+            log.warn("Job node {} not yet registered at {}", instanceId, nodesPath);
+        }
+
+        nodesCache = new PathChildrenCache(curatorFramework, nodesPath, true);
+        nodesCache.getListenable().addListener((client, event) -> {
+            ChildData data = event.getData();
+            switch (event.getType()) {
+                case CHILD_ADDED:
+                case CHILD_UPDATED:
+                    put(data);
+                    break;
+                case CHILD_REMOVED:
+                    nodeTypes.remove(ZKPaths.getNodeFromPath(data.getPath()));
+                    break;
+                default:
+                    return;
+            }
+            requestResharding("job node " + ZKPaths.getNodeFromPath(data.getPath()) + " " + event.getType());
+        });
+        nodesCache.start(PathChildrenCache.StartMode.BUILD_INITIAL_CACHE);
+        for (ChildData data : nodesCache.getCurrentData()) {
+            put(data);
+        }
+
+        releaseStateService.addServiceStateChangeListener(serviceName, stateChangeListener);
+        log.info("Registered job node {} as {} for service {}", instanceId, nodeType, serviceName);
+    }
+
+    private void put(ChildData data) {
+        if (data.getData() != null) {
+            nodeTypes.put(ZKPaths.getNodeFromPath(data.getPath()), new String(data.getData(), StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * 登记需要随发布状态重新分片的作业
+     */
+    public void track(String jobName) {
+        jobNames.add(jobName);
+    }
+
+    public ReleaseState currentState() {
+        return releaseStateService.getServiceReleaseState(serviceName);
+    }
+
+    /**
+     * 发布状态或节点变化时的回调，在ZooKeeper事件线程中执行
+     */
+    public void addChangeListener(Runnable listener) {
+        changeListeners.add(listener);
+    }
+
+    /**
+     * 当前发布状态下可执行作业的实例数，没有可执行实例时与分片策略一致，按全部实例计算
+     */
+    public int eligibleInstanceCount() {
+        ReleaseState state = currentState();
+        int eligible = 0;
+        for (String type : nodeTypes.values()) {
+            if (AbstractGrayControlledJob.isEligible(state, type)) {
+                eligible++;
+            }
+        }
+        return eligible > 0 ? eligible : nodeTypes.size();
+    }
+
+    /**
+     * 作业实例的节点类型，未登记时返回null
+     */
+    public String nodeTypeOf(String jobInstanceId) {
+        return nodeTypes.get(jobInstanceId);
+    }
+
+    private void onReleaseStateChanged(ReleaseState state) {
+        requestResharding("release state changed to " + state);
+    }
+
+    /**
+     * 设置重新分片标记，主节点在下一次触发前按新的状态重新分配分片
+     */
+    private void requestResharding(String reason) {
+        for (String jobName : jobNames) {
+            try {
+                new ShardingService(regCenter, jobName).setReshardingFlag();
+            } catch (Exception e) {
+                log.warn("Failed to request resharding for job {}", jobName, e);
+            }
+        }
+        if (!jobNames.isEmpty()) {
+            log.info("Requested resharding for {} jobs: {}", jobNames.size(), reason);
+        }
+        for (Runnable listener : changeListeners) {
+            listener.run();
+        }
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("service", serviceName);
+        snapshot.put("releaseState", currentState());
+        snapshot.put("nodes", new LinkedHashMap<>(nodeTypes));
+        snapshot.put("jobs", jobNames);
+        return snapshot;
+    }
+
+    @PreDestroy
+    public void destroy() {
+        releaseStateService.removeServiceStateChangeListener(serviceName, stateChangeListener);
+        try {
+            if (nodesCache != null) {
+                nodesCache.close();
+            }
+            if (localNode != null) {
+                localNode.close();
+            }
+        } catch (Exception e) {
+            log.warn("Failed to close job node registry", e);
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.service;
+
+import com.dangdang.ddframe.job.lite.config.LiteJobConfiguration;
+import com.dangdang.ddframe.job.lite.internal.config.ConfigurationService;
+import com.dangdang.ddframe.job.reg.base.CoordinatorRegistryCenter;
+import com.example.config.JobScalingProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+/**
+ * 作业分片数弹性调整
+ * 开启自动伸缩的作业，分片总数 = 当前发布状态下可执行的实例数 × 每实例分片数，限制在上下限之间。
+ * 节点或发布状态变化后把新的分片数和重新生成的分片参数写入作业配置，Elastic-Job监听到分片总数变化后自动重新分片。
+ * 各实例计算结果相同，配置与目标一致时不重复写入。
+ */
+@Slf4j
+@Service
+public class JobShardScaler {
+
+    /**
+     * 单个作业的伸缩参数
+     */
+    public static final class Spec {
+        private final int shardsPerInstance;
+        private final int minShardingTotalCount;
+        private final int maxShardingTotalCount;
+        private final String shardingItemParameters;
+        // (分片总数, 分片参数) -> 作业配置
+        private final BiFunction<Integer, String, LiteJobConfiguration> configFactory;
+        private volatile int currentTotal;
+
+        public Spec(int shardsPerInstance, int minShardingTotalCount, int maxShardingTotalCount,
+                    String shardingItemParameters, BiFunction<Integer, String, LiteJobConfiguration> configFactory) {
+            this.shardsPerInstance = Math.max(1, shardsPerInstance);
+            this.minShardingTotalCount = Math.max(1, minShardingTotalCount);
+            this.maxShardingTotalCount = Math.max(this.minShardingTotalCount, maxShardingTotalCount);
+            this.shardingItemParameters = shardingItemParameters;
+            this.configFactory = configFactory;
+        }
+
+        int targetTotal(int eligibleInstances) {
+            long target = (long) eligibleInstances * shardsPerInstance;
+            return (int) Math.min(maxShardingTotalCount, Math.max(minShardingTotalCount, target));
+        }
+    }
+
+    @Autowired
+    private JobNodeRegistry jobNodeRegistry;
+
+    @Autowired
+    private CoordinatorRegistryCenter regCenter;
+
+    @Autowired
+    private JobScalingProperties properties;
+
+    // 作业名 -> 伸缩参数
+    private final Map<String, Spec> specs = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService executor;
+    private ScheduledFuture<?> pending;
+
+    @PostConstruct
+    public void init() {
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "job-shard-scaler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        jobNodeRegistry.addChangeListener(this::scheduleRescale);
+    }
+
+    /**
+     * 登记自动伸缩的作业，返回用于初始化调度器的作业配置
+     * 作业已有配置时沿用其中的分片总数：启动时只有部分实例完成注册，按本地计算的结果写回会重置整个集群的分片数。
+     * 分片数只由去抖后的rescale按所有实例的情况调整，首次部署时才按当前可执行实例数计算。
+     */
+    public LiteJobConfiguration register(String jobName, Spec spec) {
+        LiteJobConfiguration existing = loadConfig(jobName);
+        int total = existing != null ? existing.getTypeConfig().getCoreConfig().getShardingTotalCount()
+                : spec.targetTotal(jobNodeRegistry.eligibleInstanceCount());
+        spec.currentTotal = total;
+        specs.put(jobName, spec);
+        scheduleRescale();
+        return spec.configFactory.apply(total, regenerateParameters(spec.shardingItemParameters, total));
+    }
+
+    private LiteJobConfiguration loadConfig(String jobName) {
+        try {
+            return new ConfigurationService(regCenter, jobName).load(false);
+        } catch (RuntimeException e) {
+            log.warn("Failed to load configuration of job {}, sharding total count will be computed locally",
+                    jobName, e);
+            return null;
+        }
+    }
+
+    private synchronized void scheduleRescale() {
+        if (specs.isEmpty()) {
+            return;
+        }
+        if (pending != null) {
+            pending.cancel(false);
+        }
+        pending = executor.schedule(this::rescale, properties.getDebounceMs(), TimeUnit.MILLISECONDS);
+    }
+
+    private void rescale() {
+        int eligible = jobNodeRegistry.eligibleInstanceCount();
+        specs.forEach((jobName, spec) -> {
+            int target = spec.targetTotal(eligible);
+            try {
+                ConfigurationService configService = new ConfigurationService(regCenter, jobName);
+                int configured = configService.load(false).getTypeConfig().getCoreConfig().getShardingTotalCount();
+                spec.currentTotal = configured;
+                if (configured == target) {
+                    return;
+                }
+                configService.persist(spec.configFactory.apply(target,
+                        regenerateParameters(spec.shardingItemParameters, target)));
+                spec.currentTotal = target;
+                log.info("Scaled job {} from {} to {} shards for {} eligible instances", jobName, configured, target,
+                        eligible);
+            } catch (Exception e) {
+                log.warn("Failed to scale job {} to {} shards", jobName, target, e);
+            }
+        });
+    }
+
+    /**
+     * 按新的分片总数生成分片参数：配置的参数按分片号循环复用，如 0=A,1=B 扩到4片为 0=A,1=B,2=A,3=B
+     */
+    static String regenerateParameters(String configured, int total) {
+        if (configured == null || configured.trim().isEmpty()) {
+            return "";
+        }
+        Map<Integer, String> values = new LinkedHashMap<>();
+        for (String pair : configured.split(",")) {
+            String[] kv = pair.trim().split("=", 2);
+            Integer item = kv.length == 2 ? parseItem(kv[0]) : null;
+            if (item == null) {
+                if (!pair.trim().isEmpty()) {
+                    log.warn("Ignoring malformed sharding item parameter '{}'", pair.trim());
+                }
+                continue;
+            }
+            values.put(item, kv[1].trim());
+        }
+        if (values.isEmpty()) {
+            return "";
+        }
+        String[] ordered = new TreeMap<>(values).values().toArray(new String[0]);
+        StringBuilder parameters = new StringBuilder();
+        for (int i = 0; i < total; i++) {
+            if (i > 0) {
+                parameters.append(',');
+            }
+            parameters.append(i).append('=').append(values.containsKey(i) ? values.get(i) : ordered[i % ordered.length]);
+        }
+        return parameters.toString();
+    }
+
+    private static Integer parseItem(String value) {
+        try {
+            int item = Integer.parseInt(value.trim());
+            return item >= 0 ? item : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("eligibleInstances", jobNodeRegistry.eligibleInstanceCount());
+        Map<String, Object> jobs = new LinkedHashMap<>();
+        specs.forEach((jobName, spec) -> {
+            Map<String, Object> job = new LinkedHashMap<>();
+            job.put("shardingTotalCount", spec.currentTotal);
+            job.put("shardsPerInstance", spec.shardsPerInstance);
+            job.put("min", spec.minShardingTotalCount);
+            job.put("max", spec.maxShardingTotalCount);
+            jobs.put(jobName, job);
+        });
+        snapshot.put("jobs", jobs);
+        return snapshot;
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.service;
 
+import com.example.config.ReleaseFlipProperties;
 import com.example.enums.ReleaseState;
+import com.example.metrics.LatencyHistogram;
 import org.apache.rocketmq.client.consumer.DefaultMQPushConsumer;
 import org.apache.rocketmq.client.consumer.listener.ConsumeConcurrentlyStatus;
 import org.apache.rocketmq.client.consumer.listener.MessageListenerConcurrently;
@@ -14,6 +16,11 @@ import org.springframework.stereotype.Service;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 
 @Service
 public class MQConsumerService {
@@ -22,6 +29,9 @@ public class MQConsumerService {
 
     @Autowired
     private ServiceAwareReleaseStateService releaseStateService;
+
+    @Autowired
+    private ReleaseFlipProperties releaseFlipProperties;
     
     @Value("${spring.application.name:default-service}")
     private String serviceName;
@@ -44,27 +54,50 @@ public class MQConsumerService {
     private DefaultMQPushConsumer consumer;
     private volatile boolean consumerStarted = false;
 
+    // 正在处理的消息数和最近一次消费完成的时间，用于消费延迟监控
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder consumedMessages = new LongAdder();
+    private volatile long lastConsumeTimestamp;
+    // 单条消息的处理耗时和失败次数，用于灰度和生产节点对比
+    private final LatencyHistogram processing = new LatencyHistogram();
+
+    private ReleaseTransitionCoordinator transitionCoordinator;
+
+    // 保存同一个监听器实例，保证移除时能匹配
+    private final Consumer<ReleaseState> stateChangeListener = this::onReleaseStateChanged;
+
     @PostConstruct
     public void init() {
+        transitionCoordinator = new ReleaseTransitionCoordinator("mq-consumer-" + serviceName,
+                releaseFlipProperties, this::applyReleaseState);
+
         // 注册状态变化监听器
-        releaseStateService.addServiceStateChangeListener(serviceName, this::onReleaseStateChanged);
+        releaseStateService.addServiceStateChangeListener(serviceName, stateChangeListener);
         
-        // 根据当前状态决定是否启动消费者
+        // 根据当前状态决定是否启动消费者（启动时不经过去抖窗口）
         ReleaseState currentState = releaseStateService.getServiceReleaseState(serviceName);
-        onReleaseStateChanged(currentState);
+        transitionCoordinator.applyNow(currentState);
     }
 
     @PreDestroy
     public void destroy() {
         // 移除监听器
-        releaseStateService.removeServiceStateChangeListener(serviceName, this::onReleaseStateChanged);
+        releaseStateService.removeServiceStateChangeListener(serviceName, stateChangeListener);
+        transitionCoordinator.shutdown();
         shutdownConsumer();
     }
 
     /**
-     * 处理发布状态变化
+     * 处理发布状态变化：交给协调器去抖后再执行
      */
     private void onReleaseStateChanged(ReleaseState newState) {
+        transitionCoordinator.submit(newState);
+    }
+
+    /**
+     * 执行发布状态切换
+     */
+    private void applyReleaseState(ReleaseState newState, ReleaseTransitionCoordinator.Transition transition) {
         boolean shouldConsume = newState.shouldConsume(nodeType);
         
         logger.info("Release state changed to: {}, node type: {}, should consume: {}", 
@@ -94,19 +127,39 @@ public class MQConsumerService {
          consumer.setNamesrvAddr(nameServer);
          consumer.subscribe(topic, tag);
         
-        consumer.registerMessageListener((MessageListenerConcurrently) (messages, context) -> {
-            for (MessageExt message : messages) {
-                String messageBody = new String(message.getBody());
-                logger.info("[{}] Consumer] Received: {}", nodeType, messageBody);
-                processMessage(messageBody);
-            }
-            return ConsumeConcurrentlyStatus.CONSUME_SUCCESS;
-        });
+        consumer.registerMessageListener(
+                (MessageListenerConcurrently) (messages, context) -> consumeMessages(messages));
         
         consumer.start();
         consumerStarted = true;
         logger.info("MQ Consumer started successfully");
     }
+
+    /**
+     * 解码并处理一批消息，同时维护在途数、消费计数和处理耗时
+     */
+    ConsumeConcurrentlyStatus consumeMessages(List<MessageExt> messages) {
+        inFlight.addAndGet(messages.size());
+        try {
+            for (MessageExt message : messages) {
+                String messageBody = new String(message.getBody());
+                logger.info("[{}] Consumer] Received: {}", nodeType, messageBody);
+                long start = System.nanoTime();
+                try {
+                    processMessage(messageBody);
+                } catch (RuntimeException e) {
+                    processing.record(System.nanoTime() - start, true);
+                    throw e;
+                }
+                processing.record(System.nanoTime() - start, false);
+            }
+            consumedMessages.add(messages.size());
+            lastConsumeTimestamp = System.currentTimeMillis();
+        } finally {
+            inFlight.addAndGet(-messages.size());
+        }
+        return ConsumeConcurrentlyStatus.CONSUME_SUCCESS;
+    }
     
     private void shutdownConsumer() {
         if (consumer != null && consumerStarted) {
@@ -138,4 +191,41 @@ public class MQConsumerService {
     public boolean isConsumerStarted() {
         return consumerStarted;
     }
+
+    /**
+     * 本节点正在处理的消息数
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * 本节点累计成功消费的消息数
+     */
+    public long getConsumedMessages() {
+        return consumedMessages.sum();
+    }
+
+    /**
+     * 单条消息处理耗时直方图
+     */
+    public LatencyHistogram getProcessingHistogram() {
+        return processing;
+    }
+
+    /**
+     * 本节点最近一次消费完成的时间，未消费过时为0
+     */
+    public long getLastConsumeTimestamp() {
+        return lastConsumeTimestamp;
+    }
+
+    /**
+     * 获取发布状态切换的快照（生效状态、最近一次切换耗时等）
+     */
+    public Map<String, Object> getTransitionSnapshot() {
+        Map<String, Object> snapshot = transitionCoordinator.snapshot();
+        snapshot.put("consumerStarted", consumerStarted);
+        return snapshot;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,203 @@
+package com.example.bench;
+
+import com.example.config.ReleaseFlipProperties;
+import com.example.config.ZookeeperProperties;
+import com.example.enums.ReleaseState;
+import com.example.service.MQConsumerService;
+import com.example.service.ServiceAwareReleaseStateService;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.retry.RetryOneTime;
+import org.apache.curator.test.TestingServer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 发布状态传播耗时基准（消费者侧）
+ * 在嵌入式ZooKeeper上启动N个进程内节点，每个节点有独立的ZooKeeper连接和真实的ServiceAwareReleaseStateService、
+ * MQConsumerService，灰度和生产节点交替。反复调用updateServiceReleaseState切换状态，统计从写入到各节点生效的耗时：
+ * job为节点缓存的发布状态更新（AbstractGrayControlledJob据此判断是否执行），mq为消费者启停完成。
+ * fleet为每次切换中最慢节点的耗时。名称服务使用进程内的桩，不连接Broker，结果不含Broker交互。
+ * 提供者导出/注销的耗时见producer模块的同名基准。
+ * <p>
+ * 运行：mvn -pl consumer test -Dtest=ReleaseStatePropagationBenchmark -Drelease.bench=true
+ * 可选参数：-Dbench.nodes=8 -Dbench.flips=50 -Dbench.settleWindowMs=0
+ */
+@EnabledIfSystemProperty(named = "release.bench", matches = "true")
+class ReleaseStatePropagationBenchmark {
+
+    private static final String SERVICE = "bench-service";
+    private static final ReleaseState[] FLIPS = {
+            ReleaseState.GRAY_ACCESSABLE, ReleaseState.PROD_ACCESSABLE, ReleaseState.ALL_ACCESSABLE};
+    private static final long FLIP_TIMEOUT_MS = 10000;
+
+    /**
+     * 一个进程内节点
+     */
+    private static final class Node {
+        final String nodeType;
+        final CuratorFramework client;
+        final ServiceAwareReleaseStateService releaseStateService = new ServiceAwareReleaseStateService();
+        final MQConsumerService mqConsumerService = new MQConsumerService();
+        volatile ReleaseState seenState;
+        volatile long seenAt;
+
+        Node(int index, String connectString, String nameServer, ReleaseFlipProperties flipProperties)
+                throws Exception {
+            nodeType = index % 2 == 0 ? "GRAY_CONSUMER" : "PRD_CONSUMER";
+            client = connect(connectString);
+            ReflectionTestUtils.setField(releaseStateService, "curatorFramework", client);
+            ReflectionTestUtils.setField(releaseStateService, "zookeeperProperties", zookeeperProperties());
+            // 与作业执行时读取的是同一份缓存，收到通知即作业的执行判断已切换
+            releaseStateService.addServiceStateChangeListener(SERVICE, state -> {
+                seenAt = System.currentTimeMillis();
+                seenState = state;
+            });
+
+            ReflectionTestUtils.setField(mqConsumerService, "releaseStateService", releaseStateService);
+            ReflectionTestUtils.setField(mqConsumerService, "releaseFlipProperties", flipProperties);
+            ReflectionTestUtils.setField(mqConsumerService, "serviceName", SERVICE);
+            ReflectionTestUtils.setField(mqConsumerService, "nodeType", nodeType);
+            // 同一进程内的消费者共用一个MQClientInstance，每个节点用独立的消费组
+            ReflectionTestUtils.setField(mqConsumerService, "consumerGroup", "bench-group-" + index);
+            ReflectionTestUtils.setField(mqConsumerService, "nameServer", nameServer);
+            ReflectionTestUtils.setField(mqConsumerService, "topic", "BENCH_TOPIC");
+            ReflectionTestUtils.setField(mqConsumerService, "tag", "*");
+            mqConsumerService.init();
+        }
+
+        boolean jobApplied(ReleaseState target) {
+            return seenState == target;
+        }
+
+        /**
+         * 消费者侧切换完成的时间，未完成时返回-1
+         */
+        long mqAppliedAt(ReleaseState target) {
+            Map<String, Object> snapshot = mqConsumerService.getTransitionSnapshot();
+            return snapshot.get("effectiveState") == target ? (Long) snapshot.get("lastTransitionAt") : -1;
+        }
+
+        void close() {
+            mqConsumerService.destroy();
+            client.close();
+        }
+    }
+
+    @Test
+    void measurePropagation() throws Exception {
+        int nodeCount = Integer.getInteger("bench.nodes", 8);
+        int flips = Integer.getInteger("bench.flips", 50);
+        ReleaseFlipProperties flipProperties = new ReleaseFlipProperties();
+        flipProperties.setSettleWindowMs(Long.getLong("bench.settleWindowMs", 0L));
+        flipProperties.setMinDwellMs(0);
+
+        LatencySummary job = new LatencySummary("job gating (per node)");
+        LatencySummary mq = new LatencySummary("mq consumer (per node)");
+        LatencySummary jobFleet = new LatencySummary("job gating (fleet)");
+        LatencySummary mqFleet = new LatencySummary("mq consumer (fleet)");
+
+        try (TestingServer server = new TestingServer(true); StubNameServer nameServer = new StubNameServer()) {
+            CuratorFramework writerClient = connect(server.getConnectString());
+            ServiceAwareReleaseStateService writer = new ServiceAwareReleaseStateService();
+            ReflectionTestUtils.setField(writer, "curatorFramework", writerClient);
+            ReflectionTestUtils.setField(writer, "zookeeperProperties", zookeeperProperties());
+            writer.updateServiceReleaseState(SERVICE, ReleaseState.ALL_ACCESSABLE);
+
+            List<Node> nodes = new ArrayList<>();
+            try {
+                for (int i = 0; i < nodeCount; i++) {
+                    nodes.add(new Node(i, server.getConnectString(), nameServer.address(), flipProperties));
+                }
+                for (int i = 0; i < flips; i++) {
+                    ReleaseState target = FLIPS[i % FLIPS.length];
+                    long writtenAt = System.currentTimeMillis();
+                    writer.updateServiceReleaseState(SERVICE, target);
+                    awaitFlip(nodes, target, writtenAt, job, mq, jobFleet, mqFleet);
+                }
+                for (Node node : nodes) {
+                    // 最后一次切换后每个节点的消费状态应与规则一致
+                    ReleaseState last = FLIPS[(flips - 1) % FLIPS.length];
+                    assertEquals(last.shouldConsume(node.nodeType), node.mqConsumerService.isConsumerStarted());
+                }
+            } finally {
+                nodes.forEach(Node::close);
+                writerClient.close();
+            }
+        }
+
+        System.out.printf("%nRelease state propagation: %d nodes, %d flips, settle window %d ms%n",
+                nodeCount, flips, flipProperties.getSettleWindowMs());
+        System.out.println(job);
+        System.out.println(jobFleet);
+        System.out.println(mq);
+        System.out.println(mqFleet);
+    }
+
+    private static void awaitFlip(List<Node> nodes, ReleaseState target, long writtenAt,
+                                  LatencySummary job, LatencySummary mq,
+                                  LatencySummary jobFleet, LatencySummary mqFleet) throws InterruptedException {
+        boolean[] jobDone = new boolean[nodes.size()];
+        boolean[] mqDone = new boolean[nodes.size()];
+        long jobSlowest = 0;
+        long mqSlowest = 0;
+        int remaining = nodes.size() * 2;
+        long deadline = writtenAt + FLIP_TIMEOUT_MS;
+        while (remaining > 0 && System.currentTimeMillis() < deadline) {
+            for (int i = 0; i < nodes.size(); i++) {
+                Node node = nodes.get(i);
+                if (!jobDone[i] && node.jobApplied(target)) {
+                    jobDone[i] = true;
+                    remaining--;
+                    long latency = node.seenAt - writtenAt;
+                    job.add(latency);
+                    jobSlowest = Math.max(jobSlowest, latency);
+                }
+                long mqAppliedAt;
+                if (!mqDone[i] && (mqAppliedAt = node.mqAppliedAt(target)) > 0) {
+                    mqDone[i] = true;
+                    remaining--;
+                    long latency = mqAppliedAt - writtenAt;
+                    mq.add(latency);
+                    mqSlowest = Math.max(mqSlowest, latency);
+                }
+            }
+            Thread.sleep(1);
+        }
+        for (int i = 0; i < nodes.size(); i++) {
+            if (!jobDone[i]) {
+                job.timeout();
+            }
+            if (!mqDone[i]) {
+                mq.timeout();
+            }
+        }
+        if (remaining == 0) {
+            jobFleet.add(jobSlowest);
+            mqFleet.add(mqSlowest);
+        } else {
+            jobFleet.timeout();
+            mqFleet.timeout();
+        }
+    }
+
+    private static CuratorFramework connect(String connectString) throws InterruptedException {
+        CuratorFramework client = CuratorFrameworkFactory.newClient(connectString, new RetryOneTime(100));
+        client.start();
+        client.blockUntilConnected();
+        return client;
+    }
+
+    private static ZookeeperProperties zookeeperProperties() {
+        ZookeeperProperties properties = new ZookeeperProperties();
+        properties.setReleaseStatePath("/release");
+        return properties;
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.bench;
+
+import io.netty.channel.ChannelHandlerContext;
+import org.apache.rocketmq.common.protocol.ResponseCode;
+import org.apache.rocketmq.remoting.netty.NettyRemotingServer;
+import org.apache.rocketmq.remoting.netty.NettyRequestProcessor;
+import org.apache.rocketmq.remoting.netty.NettyServerConfig;
+import org.apache.rocketmq.remoting.protocol.RemotingCommand;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 进程内的名称服务桩，所有请求都回复主题不存在
+ * 消费者启动时必须能连上名称服务，主题不存在只记警告，这样启停耗时不含Broker交互。
+ */
+class StubNameServer implements AutoCloseable {
+
+    private final NettyRemotingServer server;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    StubNameServer() {
+        NettyServerConfig config = new NettyServerConfig();
+        // 0表示随机端口
+        config.setListenPort(0);
+        server = new NettyRemotingServer(config);
+        server.registerDefaultProcessor(new NettyRequestProcessor() {
+            @Override
+            public RemotingCommand processRequest(ChannelHandlerContext ctx, RemotingCommand request) {
+                return RemotingCommand.createResponseCommand(ResponseCode.TOPIC_NOT_EXIST, "stub name server");
+            }
+
+            @Override
+            public boolean rejectRequest() {
+                return false;
+            }
+        }, executor);
+        server.start();
+    }
+
+    String address() {
+        return "127.0.0.1:" + server.localListenPort();
+    }
+
+    @Override
+    public void close() {
+        server.shutdown();
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.job;
+
+import com.example.enums.JobOutcome;
+import com.example.enums.ReleaseState;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 作业执行延迟：按本次触发的计划时间计算，不按周期取模
+ */
+class JobExecutionRecorderTest {
+
+    // 2024-01-01 00:00:00 UTC，整10秒
+    private static final long FIRE_TIME = 1704067200000L;
+
+    private static long latenessOf(String jobName, long startTime) {
+        JobExecutionRecorder.record(jobName, 0, "PRD", ReleaseState.ALL_ACCESSABLE, JobOutcome.RUN, startTime,
+                TimeUnit.MILLISECONDS.toNanos(5));
+        return (Long) JobExecutionRecorder.recent(jobName, null, 1).get(0).get("latenessMs");
+    }
+
+    @Test
+    void latenessLongerThanPeriodUsesScheduledFireTime() {
+        JobExecutionRecorder.registerSchedule("late-job", "0/10 * * * * ?");
+        JobExecutionRecorder.onTriggerFired("late-job", FIRE_TIME);
+
+        assertEquals(25000, latenessOf("late-job", FIRE_TIME + 25000));
+    }
+
+    @Test
+    void withoutTriggerNotificationLatenessIsCappedAtOnePeriod() {
+        JobExecutionRecorder.registerSchedule("untracked-job", "0/10 * * * * ?");
+
+        assertEquals(5000, latenessOf("untracked-job", FIRE_TIME + 25000));
+    }
+
+    @Test
+    void unscheduledJobHasNoLateness() {
+        assertEquals(-1, latenessOf("unscheduled-job", FIRE_TIME));
+    }
+}
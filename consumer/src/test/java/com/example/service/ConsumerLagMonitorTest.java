@@ -0,0 +1,74 @@
+package com.example.service;
+
+import com.example.config.ConsumerLagProperties;
+import org.apache.rocketmq.common.admin.OffsetWrapper;
+import org.apache.rocketmq.common.message.MessageQueue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 消费组堆积监控：拉取失败后旧结果过期，堆积按未知处理
+ */
+class ConsumerLagMonitorTest {
+
+    private final ConsumerLagMonitor monitor = new ConsumerLagMonitor();
+
+    @BeforeEach
+    void setUp() {
+        ConsumerLagProperties properties = new ConsumerLagProperties();
+        properties.setRefreshIntervalMs(1000);
+        properties.setStaleAfterIntervals(3);
+        properties.setDegradedThreshold(100);
+        ReflectionTestUtils.setField(monitor, "properties", properties);
+        ReflectionTestUtils.setField(monitor, "mqConsumerService", mock(MQConsumerService.class));
+    }
+
+    private void fetchedAgo(long ageMs, long lag) {
+        OffsetWrapper offset = new OffsetWrapper();
+        offset.setBrokerOffset(lag);
+        offset.setConsumerOffset(0);
+        ConsumerLagMonitor.QueueLag queue = new ConsumerLagMonitor.QueueLag(
+                new MessageQueue("TOPIC", "broker-a", 0), offset, 0);
+        ReflectionTestUtils.setField(monitor, "snapshot", new ConsumerLagMonitor.LagSnapshot(
+                System.currentTimeMillis() - ageMs, 5, Collections.singletonList(queue)));
+    }
+
+    @Test
+    void neverFetchedIsStale() {
+        assertTrue(monitor.isStale());
+        assertEquals(-1, monitor.getTotalLag());
+        assertFalse(monitor.isLagging());
+    }
+
+    @Test
+    void recentSnapshotReportsLag() {
+        fetchedAgo(500, 500);
+
+        assertFalse(monitor.isStale());
+        assertEquals(500, monitor.getTotalLag());
+        assertTrue(monitor.isLagging());
+        assertEquals(1, ((List<?>) monitor.toMap().get("queues")).size());
+    }
+
+    @Test
+    void snapshotOlderThanStaleIntervalsIsUnknown() {
+        fetchedAgo(3500, 500);
+
+        assertTrue(monitor.isStale());
+        assertFalse(monitor.isLagging());
+        Map<String, Object> map = monitor.toMap();
+        assertEquals(Boolean.TRUE, map.get("stale"));
+        assertEquals(-1L, map.get("totalLag"));
+        assertTrue(((List<?>) map.get("queues")).isEmpty());
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.service;
+
+import com.dangdang.ddframe.job.config.JobCoreConfiguration;
+import com.dangdang.ddframe.job.config.simple.SimpleJobConfiguration;
+import com.dangdang.ddframe.job.lite.config.LiteJobConfiguration;
+import com.dangdang.ddframe.job.lite.internal.config.LiteJobConfigurationGsonFactory;
+import com.dangdang.ddframe.job.reg.base.CoordinatorRegistryCenter;
+import com.example.config.JobScalingProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 作业分片数弹性调整：分片数上下限、分片参数循环复用、启动时不重置已有分片数
+ */
+class JobShardScalerTest {
+
+    private static final String JOB_NAME = "scaled-job";
+
+    private final JobNodeRegistry jobNodeRegistry = mock(JobNodeRegistry.class);
+    private final CoordinatorRegistryCenter regCenter = mock(CoordinatorRegistryCenter.class);
+    private JobShardScaler scaler;
+
+    @BeforeEach
+    void setUp() {
+        scaler = new JobShardScaler();
+        JobScalingProperties properties = new JobScalingProperties();
+        properties.setDebounceMs(60000);
+        ReflectionTestUtils.setField(scaler, "jobNodeRegistry", jobNodeRegistry);
+        ReflectionTestUtils.setField(scaler, "regCenter", regCenter);
+        ReflectionTestUtils.setField(scaler, "properties", properties);
+        scaler.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        scaler.destroy();
+    }
+
+    private static LiteJobConfiguration config(int total, String parameters) {
+        JobCoreConfiguration coreConfig = JobCoreConfiguration.newBuilder(JOB_NAME, "0/10 * * * * ?", total)
+                .shardingItemParameters(parameters).build();
+        return LiteJobConfiguration.newBuilder(new SimpleJobConfiguration(coreConfig, "com.example.job.TestJob"))
+                .overwrite(true).build();
+    }
+
+    private static JobShardScaler.Spec spec(int perInstance, int min, int max) {
+        return new JobShardScaler.Spec(perInstance, min, max, "0=A,1=B", JobShardScalerTest::config);
+    }
+
+    private static int totalOf(LiteJobConfiguration config) {
+        return config.getTypeConfig().getCoreConfig().getShardingTotalCount();
+    }
+
+    @Test
+    void targetTotalIsClampedToBounds() {
+        JobShardScaler.Spec spec = spec(2, 3, 16);
+
+        assertEquals(3, spec.targetTotal(0));
+        assertEquals(3, spec.targetTotal(1));
+        assertEquals(8, spec.targetTotal(4));
+        assertEquals(16, spec.targetTotal(100));
+        assertEquals(16, spec.targetTotal(Integer.MAX_VALUE));
+    }
+
+    @Test
+    void invalidSpecBoundsAreCorrected() {
+        JobShardScaler.Spec spec = spec(0, 0, -1);
+
+        assertEquals(1, spec.targetTotal(0));
+        assertEquals(1, spec.targetTotal(5));
+    }
+
+    @Test
+    void parametersCycleOverConfiguredValues() {
+        assertEquals("0=A,1=B,2=A,3=B", JobShardScaler.regenerateParameters("0=A,1=B", 4));
+        assertEquals("0=A", JobShardScaler.regenerateParameters("0=A,1=B", 1));
+        assertEquals("0=A,1=B,2=C", JobShardScaler.regenerateParameters(" 2 = C , 0=A,1=B ", 3));
+        // 显式配置的分片号保留原值，其余按分片号顺序循环
+        assertEquals("0=A,1=A,2=A,3=B", JobShardScaler.regenerateParameters("1=A,3=B", 4));
+    }
+
+    @Test
+    void emptyParametersStayEmpty() {
+        assertEquals("", JobShardScaler.regenerateParameters(null, 4));
+        assertEquals("", JobShardScaler.regenerateParameters("  ", 4));
+    }
+
+    @Test
+    void malformedParametersAreSkipped() {
+        assertEquals("0=A,1=A,2=A", JobShardScaler.regenerateParameters("x=B,0=A,-1=C,junk,,", 3));
+        assertEquals("", JobShardScaler.regenerateParameters("a=1,b=2", 2));
+    }
+
+    @Test
+    void firstRegistrationUsesLocalTarget() {
+        when(jobNodeRegistry.eligibleInstanceCount()).thenReturn(3);
+
+        assertEquals(6, totalOf(scaler.register(JOB_NAME, spec(2, 1, 32))));
+    }
+
+    @Test
+    void registrationKeepsExistingShardCount() {
+        when(jobNodeRegistry.eligibleInstanceCount()).thenReturn(1);
+        when(regCenter.getDirectly(anyString()))
+                .thenReturn(LiteJobConfigurationGsonFactory.toJson(config(8, "0=A,1=B")));
+
+        LiteJobConfiguration registered = scaler.register(JOB_NAME, spec(2, 1, 32));
+
+        assertEquals(8, totalOf(registered));
+        assertEquals("0=A,1=B,2=A,3=B,4=A,5=B,6=A,7=B",
+                registered.getTypeConfig().getCoreConfig().getShardingItemParameters());
+    }
+}
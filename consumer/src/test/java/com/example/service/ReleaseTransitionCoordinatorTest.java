@@ -0,0 +1,162 @@
+package com.example.service;
+
+import com.example.config.ReleaseFlipProperties;
+import com.example.enums.ReleaseState;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 发布状态切换协调器：去抖窗口、最小驻留和取代逻辑
+ * producer模块中的同名类与此完全相同
+ */
+class ReleaseTransitionCoordinatorTest {
+
+    private static final long WAIT_MS = 5000;
+
+    private final List<ReleaseState> applied = new CopyOnWriteArrayList<>();
+
+    private ReleaseTransitionCoordinator coordinator;
+
+    @AfterEach
+    void shutdown() {
+        if (coordinator != null) {
+            coordinator.shutdown();
+        }
+    }
+
+    private static ReleaseFlipProperties properties(long settleWindowMs, long minDwellMs) {
+        ReleaseFlipProperties properties = new ReleaseFlipProperties();
+        properties.setSettleWindowMs(settleWindowMs);
+        properties.setMinDwellMs(minDwellMs);
+        return properties;
+    }
+
+    private ReleaseTransitionCoordinator recording(ReleaseFlipProperties properties) {
+        return new ReleaseTransitionCoordinator("test", properties, (state, transition) -> applied.add(state));
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT_MS;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "condition not met within " + WAIT_MS + " ms");
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    void applyNowRunsImmediatelyAndWaits() {
+        coordinator = recording(properties(60000, 60000));
+        coordinator.applyNow(ReleaseState.ALL_ACCESSABLE);
+
+        assertEquals(ReleaseState.ALL_ACCESSABLE, coordinator.getEffectiveState());
+        assertEquals(1, applied.size());
+    }
+
+    @Test
+    void flappingWithinSettleWindowAppliesOnlyLastState() throws Exception {
+        coordinator = recording(properties(200, 0));
+        coordinator.applyNow(ReleaseState.ALL_ACCESSABLE);
+
+        coordinator.submit(ReleaseState.GRAY_ACCESSABLE);
+        coordinator.submit(ReleaseState.PROD_ACCESSABLE);
+        coordinator.submit(ReleaseState.GRAY_ACCESSABLE);
+
+        await(() -> coordinator.getEffectiveState() == ReleaseState.GRAY_ACCESSABLE);
+        Thread.sleep(300);
+        assertEquals(2, applied.size());
+        assertEquals(ReleaseState.GRAY_ACCESSABLE, applied.get(1));
+        assertEquals(2L, coordinator.snapshot().get("supersededCount"));
+    }
+
+    @Test
+    void revertToEffectiveStateWithinSettleWindowIsSuppressed() throws Exception {
+        coordinator = recording(properties(200, 0));
+        coordinator.applyNow(ReleaseState.ALL_ACCESSABLE);
+
+        coordinator.submit(ReleaseState.GRAY_ACCESSABLE);
+        coordinator.submit(ReleaseState.ALL_ACCESSABLE);
+
+        Thread.sleep(400);
+        assertEquals(1, applied.size());
+        assertEquals(ReleaseState.ALL_ACCESSABLE, coordinator.getEffectiveState());
+        assertEquals(1L, coordinator.snapshot().get("suppressedCount"));
+        assertNull(coordinator.snapshot().get("pendingState"));
+    }
+
+    @Test
+    void minDwellDelaysNextTransition() throws Exception {
+        coordinator = recording(properties(0, 400));
+        coordinator.applyNow(ReleaseState.ALL_ACCESSABLE);
+        long submittedAt = System.currentTimeMillis();
+
+        coordinator.submit(ReleaseState.GRAY_ACCESSABLE);
+        Thread.sleep(150);
+        assertEquals(ReleaseState.ALL_ACCESSABLE, coordinator.getEffectiveState());
+
+        await(() -> coordinator.getEffectiveState() == ReleaseState.GRAY_ACCESSABLE);
+        assertTrue(System.currentTimeMillis() - submittedAt >= 350);
+    }
+
+    @Test
+    void perStateMinDwellOverridesDefault() {
+        ReleaseFlipProperties properties = properties(0, 5000);
+        properties.getStateMinDwellMs().put(ReleaseState.GRAY_ACCESSABLE, 100L);
+
+        assertEquals(100, properties.minDwellFor(ReleaseState.GRAY_ACCESSABLE));
+        assertEquals(5000, properties.minDwellFor(ReleaseState.PROD_ACCESSABLE));
+        assertEquals(0, properties.minDwellFor(null));
+    }
+
+    @Test
+    void newerRequestSupersedesRunningTransition() throws Exception {
+        CountDownLatch grayStarted = new CountDownLatch(1);
+        CountDownLatch releaseGray = new CountDownLatch(1);
+        List<Boolean> graySupersededSeen = new CopyOnWriteArrayList<>();
+        coordinator = new ReleaseTransitionCoordinator("test", properties(0, 0), (state, transition) -> {
+            applied.add(state);
+            if (state == ReleaseState.GRAY_ACCESSABLE) {
+                grayStarted.countDown();
+                releaseGray.await(WAIT_MS, TimeUnit.MILLISECONDS);
+                graySupersededSeen.add(transition.isSuperseded());
+            }
+        });
+        coordinator.applyNow(ReleaseState.ALL_ACCESSABLE);
+
+        coordinator.submit(ReleaseState.GRAY_ACCESSABLE);
+        assertTrue(grayStarted.await(WAIT_MS, TimeUnit.MILLISECONDS));
+        coordinator.submit(ReleaseState.PROD_ACCESSABLE);
+        releaseGray.countDown();
+
+        await(() -> coordinator.getEffectiveState() == ReleaseState.PROD_ACCESSABLE);
+        assertEquals(Boolean.TRUE, graySupersededSeen.get(0));
+        assertEquals(ReleaseState.PROD_ACCESSABLE, applied.get(applied.size() - 1));
+        // 被取代的GRAY不计入已生效次数
+        assertEquals(2L, coordinator.snapshot().get("appliedCount"));
+    }
+
+    @Test
+    void failedTransitionKeepsPreviousEffectiveState() throws Exception {
+        coordinator = new ReleaseTransitionCoordinator("test", properties(0, 0), (state, transition) -> {
+            if (state == ReleaseState.GRAY_ACCESSABLE) {
+                throw new IllegalStateException("export failed");
+            }
+            applied.add(state);
+        });
+        coordinator.applyNow(ReleaseState.ALL_ACCESSABLE);
+
+        coordinator.submit(ReleaseState.GRAY_ACCESSABLE);
+
+        await(() -> (Long) coordinator.snapshot().get("failedCount") == 1L);
+        assertEquals(ReleaseState.ALL_ACCESSABLE, coordinator.getEffectiveState());
+    }
+}
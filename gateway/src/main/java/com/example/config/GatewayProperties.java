@@ -0,0 +1,103 @@
+package com.example.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 灰度网关配置
+ * 路由按路径前缀匹配到服务，服务的发布状态和灰度权重从ZooKeeper实时读取。
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "gateway")
+public class GatewayProperties {
+
+    /**
+     * 单条路由：路径前缀 -> 服务及其灰度、生产节点
+     */
+    @Data
+    public static class Route {
+
+        /**
+         * 路径前缀，多条路由匹配时取最长的
+         */
+        private String pathPrefix = "/";
+
+        /**
+         * 服务名，对应ZooKeeper中的 {releaseStatePath}/{service}
+         */
+        private String service;
+
+        /**
+         * 灰度节点地址，如 http://product_gray:8080
+         */
+        private List<String> grayUpstreams = new ArrayList<>();
+
+        /**
+         * 生产节点地址
+         */
+        private List<String> prdUpstreams = new ArrayList<>();
+    }
+
+    private List<Route> routes = new ArrayList<>();
+
+    /**
+     * ZooKeeper中没有 gray-weight 节点时，ALL_ACCESSABLE状态下进入灰度的百分比
+     */
+    private int defaultGrayWeight = 30;
+
+    /**
+     * 用户标识请求头，有值时按它分桶
+     */
+    private String userIdHeader = "X-User-Id";
+
+    /**
+     * 没有用户标识时网关下发的分桶Cookie
+     */
+    private String stickyCookie = "grayUid";
+
+    /**
+     * 强制泳道的Cookie，值为gray或prd，兼容原nginx配置
+     */
+    private String laneCookie = "grayFlag";
+
+    /**
+     * 分桶Cookie有效期（秒）
+     */
+    private long stickyCookieMaxAgeSeconds = 30L * 24 * 3600;
+
+    private Pool pool = new Pool();
+
+    /**
+     * 到上游节点的连接池
+     */
+    @Data
+    public static class Pool {
+
+        /**
+         * 每个上游地址的最大连接数
+         */
+        private int maxConnections = 500;
+
+        /**
+         * 连接池满时等待空闲连接的最长时间
+         */
+        private long pendingAcquireTimeoutMs = 3000;
+
+        /**
+         * 空闲连接保留时间，应小于上游的keep-alive超时
+         */
+        private long maxIdleTimeMs = 30000;
+
+        private int connectTimeoutMs = 2000;
+
+        /**
+         * 等待上游响应的超时
+         */
+        private long responseTimeoutMs = 10000;
+    }
+}
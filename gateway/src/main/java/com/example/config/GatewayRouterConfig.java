@@ -0,0 +1,21 @@
+package com.example.config;
+
+import com.example.controller.GrayProxyHandler;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.server.RequestPredicates;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+/**
+ * 业务端口上的所有请求都交给灰度代理，actuator在独立的管理端口上
+ */
+@Configuration
+public class GatewayRouterConfig {
+
+    @Bean
+    public RouterFunction<ServerResponse> grayProxyRoute(GrayProxyHandler grayProxyHandler) {
+        return RouterFunctions.route(RequestPredicates.all(), grayProxyHandler::proxy);
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.config;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+/**
+ * 转发用的WebClient
+ * 上游连接放在固定大小的连接池里复用，空闲连接在后台回收，路由变化不影响已建立的连接。
+ */
+@Configuration
+public class UpstreamClientConfig {
+
+    @Autowired
+    private GatewayProperties gatewayProperties;
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider upstreamConnectionProvider() {
+        GatewayProperties.Pool pool = gatewayProperties.getPool();
+        return ConnectionProvider.builder("gateway-upstream")
+                .maxConnections(pool.getMaxConnections())
+                .pendingAcquireTimeout(Duration.ofMillis(pool.getPendingAcquireTimeoutMs()))
+                .maxIdleTime(Duration.ofMillis(pool.getMaxIdleTimeMs()))
+                .evictInBackground(Duration.ofMillis(pool.getMaxIdleTimeMs()))
+                .build();
+    }
+
+    @Bean
+    public WebClient upstreamWebClient(ConnectionProvider upstreamConnectionProvider) {
+        GatewayProperties.Pool pool = gatewayProperties.getPool();
+        HttpClient httpClient = HttpClient.create(upstreamConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, pool.getConnectTimeoutMs())
+                .responseTimeout(Duration.ofMillis(pool.getResponseTimeoutMs()));
+        return WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "zookeeper")
+public class ZookeeperProperties {
+
+    private String connectString;
+    private int sessionTimeout;
+    private int connectionTimeout;
+    private String releaseStatePath;
+}
@@ -0,0 +1,238 @@
+package com.example.controller;
+
+import com.example.config.GatewayProperties;
+import com.example.enums.TrafficLane;
+import com.example.metrics.GatewayMetrics;
+import com.example.service.LaneSelector;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.PostConstruct;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 灰度反向代理
+ * 按最长路径前缀匹配路由，由LaneSelector选择泳道，在泳道内轮询上游节点。请求体和响应体都以流的方式转发，不在网关内缓冲。
+ */
+@Slf4j
+@Component
+public class GrayProxyHandler {
+
+    private static final Set<String> HOP_BY_HOP_HEADERS = new HashSet<>(Arrays.asList(
+            "connection", "keep-alive", "proxy-authenticate", "proxy-authorization", "proxy-connection",
+            "te", "trailer", "transfer-encoding", "upgrade"));
+
+    /**
+     * 响应头：本次请求转发到的节点池，沿用原nginx配置的取值
+     */
+    private static final String BACKEND_HEADER = "X-Backend";
+
+    /**
+     * 请求头：告知上游本次请求所在的泳道
+     */
+    private static final String LANE_HEADER = "X-Gray-Lane";
+
+    @Autowired
+    private GatewayProperties gatewayProperties;
+
+    @Autowired
+    private LaneSelector laneSelector;
+
+    @Autowired
+    private GatewayMetrics gatewayMetrics;
+
+    @Autowired
+    private WebClient upstreamWebClient;
+
+    private List<RouteTarget> targets;
+
+    @PostConstruct
+    public void init() {
+        List<RouteTarget> sorted = new ArrayList<>();
+        for (GatewayProperties.Route route : gatewayProperties.getRoutes()) {
+            sorted.add(new RouteTarget(route));
+        }
+        sorted.sort(Comparator.comparingInt((RouteTarget t) -> t.pathPrefix.length()).reversed());
+        this.targets = sorted;
+    }
+
+    public Mono<ServerResponse> proxy(ServerRequest request) {
+        long start = System.nanoTime();
+        ServerHttpRequest httpRequest = request.exchange().getRequest();
+        String rawPath = httpRequest.getURI().getRawPath();
+        RouteTarget target = match(rawPath);
+        if (target == null) {
+            return ServerResponse.notFound().build();
+        }
+        HttpMethod method = httpRequest.getMethod();
+        if (method == null) {
+            return ServerResponse.status(HttpStatus.METHOD_NOT_ALLOWED).build();
+        }
+
+        TrafficLane lane = laneSelector.select(target.service, request.exchange());
+        if (target.upstreams(lane).isEmpty()) {
+            // 该泳道没有配置节点时转到另一个泳道，而不是直接失败
+            lane = lane == TrafficLane.GRAY ? TrafficLane.PRD : TrafficLane.GRAY;
+        }
+        String upstream = target.next(lane);
+        if (upstream == null) {
+            return ServerResponse.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        String rawQuery = httpRequest.getURI().getRawQuery();
+        URI uri = URI.create(upstream + rawPath + (rawQuery != null ? "?" + rawQuery : ""));
+        TrafficLane selected = lane;
+
+        WebClient.RequestBodySpec spec = upstreamWebClient.method(method)
+                .uri(uri)
+                .headers(headers -> copyRequestHeaders(httpRequest, headers, selected));
+        WebClient.RequestHeadersSpec<?> exchange = hasBody(httpRequest.getHeaders())
+                ? spec.body(BodyInserters.fromDataBuffers(request.bodyToFlux(DataBuffer.class)))
+                : spec;
+
+        return exchange.retrieve()
+                // 上游的4xx、5xx原样返回给调用方
+                .onRawStatus(status -> true, response -> Mono.empty())
+                .toEntityFlux(DataBuffer.class)
+                .flatMap(entity -> {
+                    String outcome = entity.getStatusCodeValue() / 100 + "xx";
+                    return respond(entity.getStatusCodeValue(), selected)
+                            .headers(headers -> copyResponseHeaders(entity.getHeaders(), headers))
+                            .body(BodyInserters.fromDataBuffers(entity.getBody()
+                                    .doFinally(signal -> gatewayMetrics.record(target.service, selected, outcome,
+                                            System.nanoTime() - start))));
+                })
+                .onErrorResume(e -> {
+                    boolean timeout = isTimeout(e);
+                    gatewayMetrics.record(target.service, selected, timeout ? "timeout" : "error",
+                            System.nanoTime() - start);
+                    log.warn("Failed to proxy {} {} to {} ({}): {}", method, rawPath, upstream, selected,
+                            e.toString());
+                    HttpStatus status = timeout ? HttpStatus.GATEWAY_TIMEOUT : HttpStatus.BAD_GATEWAY;
+                    return respond(status.value(), selected).build();
+                });
+    }
+
+    private RouteTarget match(String path) {
+        for (RouteTarget target : targets) {
+            if (path.startsWith(target.pathPrefix)) {
+                return target;
+            }
+        }
+        return null;
+    }
+
+    private static boolean hasBody(HttpHeaders headers) {
+        return headers.getContentLength() > 0 || headers.containsKey(HttpHeaders.TRANSFER_ENCODING);
+    }
+
+    private static void copyRequestHeaders(ServerHttpRequest request, HttpHeaders target, TrafficLane lane) {
+        request.getHeaders().forEach((name, values) -> {
+            String lower = name.toLowerCase(Locale.ROOT);
+            // Host由连接上游时重新生成
+            if (!HOP_BY_HOP_HEADERS.contains(lower) && !"host".equals(lower)) {
+                target.put(name, values);
+            }
+        });
+        InetSocketAddress remote = request.getRemoteAddress();
+        if (remote != null && remote.getAddress() != null) {
+            String clientIp = remote.getAddress().getHostAddress();
+            String forwardedFor = request.getHeaders().getFirst("X-Forwarded-For");
+            target.set("X-Forwarded-For", forwardedFor != null ? forwardedFor + ", " + clientIp : clientIp);
+            target.set("X-Real-IP", clientIp);
+        }
+        String host = request.getHeaders().getFirst(HttpHeaders.HOST);
+        if (host != null) {
+            target.set("X-Forwarded-Host", host);
+        }
+        target.set("X-Forwarded-Proto", request.getURI().getScheme());
+        target.set(LANE_HEADER, lane.name());
+    }
+
+    /**
+     * 转发结果和转发失败都从这里生成响应，X-Backend只在此处设置
+     */
+    private static ServerResponse.BodyBuilder respond(int status, TrafficLane lane) {
+        return ServerResponse.status(status)
+                .header(BACKEND_HEADER, lane == TrafficLane.GRAY ? "gray_pool" : "prd_pool");
+    }
+
+    private static void copyResponseHeaders(HttpHeaders source, HttpHeaders target) {
+        source.forEach((name, values) -> {
+            String lower = name.toLowerCase(Locale.ROOT);
+            // 上游自带的X-Backend不透传，以网关选择的节点池为准
+            if (!HOP_BY_HOP_HEADERS.contains(lower) && !BACKEND_HEADER.equalsIgnoreCase(lower)) {
+                target.put(name, values);
+            }
+        });
+    }
+
+    private static boolean isTimeout(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof TimeoutException || t instanceof io.netty.handler.timeout.TimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 预处理后的路由：去掉上游地址末尾的斜杠，每个泳道各自维护轮询位置
+     */
+    private static final class RouteTarget {
+        private final String pathPrefix;
+        private final String service;
+        private final List<String> grayUpstreams;
+        private final List<String> prdUpstreams;
+        private final AtomicInteger grayCursor = new AtomicInteger();
+        private final AtomicInteger prdCursor = new AtomicInteger();
+
+        RouteTarget(GatewayProperties.Route route) {
+            this.pathPrefix = route.getPathPrefix();
+            this.service = route.getService();
+            this.grayUpstreams = normalize(route.getGrayUpstreams());
+            this.prdUpstreams = normalize(route.getPrdUpstreams());
+        }
+
+        List<String> upstreams(TrafficLane lane) {
+            return lane == TrafficLane.GRAY ? grayUpstreams : prdUpstreams;
+        }
+
+        String next(TrafficLane lane) {
+            List<String> upstreams = upstreams(lane);
+            if (upstreams.isEmpty()) {
+                return null;
+            }
+            AtomicInteger cursor = lane == TrafficLane.GRAY ? grayCursor : prdCursor;
+            return upstreams.get(Math.floorMod(cursor.getAndIncrement(), upstreams.size()));
+        }
+
+        private static List<String> normalize(List<String> upstreams) {
+            List<String> result = new ArrayList<>(upstreams.size());
+            for (String upstream : upstreams) {
+                result.add(upstream.endsWith("/") ? upstream.substring(0, upstream.length() - 1) : upstream);
+            }
+            return result;
+        }
+    }
+}
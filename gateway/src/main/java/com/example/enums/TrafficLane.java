@@ -0,0 +1,17 @@
+package com.example.enums;
+
+/**
+ * 网关把请求分到的流量泳道
+ */
+public enum TrafficLane {
+
+    /**
+     * 转发到灰度节点
+     */
+    GRAY,
+
+    /**
+     * 转发到生产节点
+     */
+    PRD
+}
@@ -0,0 +1,67 @@
+package com.example.metrics;
+
+import com.example.config.GatewayProperties;
+import com.example.enums.TrafficLane;
+import com.example.service.LaneRoutingTable;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 网关转发指标
+ * gateway.proxy.latency 按服务、泳道和结果分别统计转发耗时，gateway.gray.percent 为各服务当前实际进入灰度的百分比。
+ */
+@Component
+public class GatewayMetrics implements MeterBinder {
+
+    @Autowired
+    private LaneRoutingTable routingTable;
+
+    @Autowired
+    private GatewayProperties gatewayProperties;
+
+    private volatile MeterRegistry registry;
+
+    // 服务|泳道|结果 -> Timer，避免每个请求都构建一次
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.registry = registry;
+        Set<String> services = new LinkedHashSet<>();
+        for (GatewayProperties.Route route : gatewayProperties.getRoutes()) {
+            services.add(route.getService());
+        }
+        for (String service : services) {
+            Gauge.builder("gateway.gray.percent", routingTable, t -> t.route(service).effectiveGrayPercent())
+                    .tag("service", service)
+                    .register(registry);
+        }
+    }
+
+    /**
+     * 记录一次转发，outcome为上游状态码的类别（2xx、5xx等）或 timeout、error
+     */
+    public void record(String service, TrafficLane lane, String outcome, long elapsedNanos) {
+        MeterRegistry current = registry;
+        if (current == null) {
+            return;
+        }
+        timers.computeIfAbsent(service + '|' + lane + '|' + outcome, key -> Timer.builder("gateway.proxy.latency")
+                        .tag("service", service)
+                        .tag("lane", lane.name())
+                        .tag("outcome", outcome)
+                        .publishPercentiles(0.5, 0.9, 0.99)
+                        .register(current))
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+}
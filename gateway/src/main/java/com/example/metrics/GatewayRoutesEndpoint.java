@@ -0,0 +1,33 @@
+package com.example.metrics;
+
+import com.example.service.LaneRoutingTable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * 网关路由端点：/actuator/gatewayroutes
+ * 查看各服务的发布状态和灰度权重，POST {"service": "...", "grayWeight": 50} 调整权重，各网关实例收到ZooKeeper通知后生效
+ * 写操作没有鉴权，只通过不对外发布的management.server.port暴露
+ */
+@Component
+@Endpoint(id = "gatewayroutes")
+public class GatewayRoutesEndpoint {
+
+    @Autowired
+    private LaneRoutingTable routingTable;
+
+    @ReadOperation
+    public Map<String, Object> routes() {
+        return routingTable.snapshot();
+    }
+
+    @WriteOperation
+    public void updateGrayWeight(String service, int grayWeight) throws Exception {
+        routingTable.updateGrayWeight(service, grayWeight);
+    }
+}
@@ -0,0 +1,215 @@
+package com.example.service;
+
+import com.example.config.GatewayProperties;
+import com.example.config.ZookeeperProperties;
+import com.example.enums.ReleaseState;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.recipes.cache.ChildData;
+import org.apache.curator.framework.recipes.cache.NodeCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 网关的服务路由表
+ * 监听每个服务的 {releaseStatePath}/{service}/status 和 gray-weight 两个节点，变化时整体替换该服务的不可变路由快照。
+ * 请求线程只读快照，不加锁，也不触碰已建立的连接，权重和状态的调整在ZooKeeper通知到达后立即对新请求生效。
+ */
+@Slf4j
+@Service
+public class LaneRoutingTable {
+
+    /**
+     * 某个服务当前的路由依据
+     */
+    public static final class ServiceRoute {
+        private final ReleaseState state;
+        private final int grayWeight;
+        private final long updatedAt;
+
+        ServiceRoute(ReleaseState state, int grayWeight, long updatedAt) {
+            this.state = state;
+            this.grayWeight = grayWeight;
+            this.updatedAt = updatedAt;
+        }
+
+        public ReleaseState getState() {
+            return state;
+        }
+
+        /**
+         * ALL_ACCESSABLE时进入灰度的百分比
+         */
+        public int getGrayWeight() {
+            return grayWeight;
+        }
+
+        /**
+         * 实际进入灰度的百分比：仅灰度可访问时为100，仅生产可访问时为0
+         */
+        public int effectiveGrayPercent() {
+            switch (state) {
+                case GRAY_ACCESSABLE:
+                    return 100;
+                case PROD_ACCESSABLE:
+                    return 0;
+                default:
+                    return grayWeight;
+            }
+        }
+
+        public long getUpdatedAt() {
+            return updatedAt;
+        }
+    }
+
+    @Autowired
+    private CuratorFramework curatorFramework;
+
+    @Autowired
+    private ZookeeperProperties zookeeperProperties;
+
+    @Autowired
+    private GatewayProperties gatewayProperties;
+
+    private final Map<String, ServiceRoute> routes = new ConcurrentHashMap<>();
+
+    private final List<NodeCache> caches = new ArrayList<>();
+
+    @PostConstruct
+    public void init() throws Exception {
+        Set<String> services = new LinkedHashSet<>();
+        for (GatewayProperties.Route route : gatewayProperties.getRoutes()) {
+            services.add(route.getService());
+        }
+        for (String service : services) {
+            watch(service);
+        }
+        log.info("Gateway routing table watching services: {}", services);
+    }
+
+    private void watch(String service) throws Exception {
+        NodeCache statusCache = new NodeCache(curatorFramework, statusPath(service));
+        NodeCache weightCache = new NodeCache(curatorFramework, weightPath(service));
+        statusCache.getListenable().addListener(() -> refresh(service, statusCache, weightCache));
+        weightCache.getListenable().addListener(() -> refresh(service, statusCache, weightCache));
+        statusCache.start(true);
+        weightCache.start(true);
+        caches.add(statusCache);
+        caches.add(weightCache);
+        refresh(service, statusCache, weightCache);
+    }
+
+    private void refresh(String service, NodeCache statusCache, NodeCache weightCache) {
+        ServiceRoute previous = route(service);
+        ReleaseState state = parseState(service, statusCache.getCurrentData(), previous.getState());
+        int weight = parseWeight(service, weightCache.getCurrentData(), previous.getGrayWeight());
+        ServiceRoute current = new ServiceRoute(state, weight, System.currentTimeMillis());
+        routes.put(service, current);
+        if (state != previous.getState() || weight != previous.getGrayWeight()) {
+            log.info("Route for service {} updated: state={}, grayWeight={}, effective gray percent={}",
+                    service, state, weight, current.effectiveGrayPercent());
+        }
+    }
+
+    private static ReleaseState parseState(String service, ChildData data, ReleaseState fallback) {
+        if (data == null || data.getData() == null) {
+            return ReleaseState.ALL_ACCESSABLE;
+        }
+        String value = new String(data.getData(), StandardCharsets.UTF_8).trim();
+        try {
+            return ReleaseState.fromStateName(value);
+        } catch (IllegalArgumentException e) {
+            // 写错的状态不生效，保持原路由
+            log.warn("Ignoring invalid release state for service {}: {}", service, value);
+            return fallback;
+        }
+    }
+
+    private int parseWeight(String service, ChildData data, int fallback) {
+        if (data == null || data.getData() == null) {
+            return gatewayProperties.getDefaultGrayWeight();
+        }
+        String value = new String(data.getData(), StandardCharsets.UTF_8).trim();
+        try {
+            int weight = Integer.parseInt(value);
+            if (weight >= 0 && weight <= 100) {
+                return weight;
+            }
+        } catch (NumberFormatException e) {
+            // 按无效值处理
+        }
+        log.warn("Ignoring invalid gray weight for service {}: {}", service, value);
+        return fallback;
+    }
+
+    /**
+     * 服务当前的路由，未配置的服务视为全部可访问、默认权重
+     */
+    public ServiceRoute route(String service) {
+        ServiceRoute route = routes.get(service);
+        return route != null ? route
+                : new ServiceRoute(ReleaseState.ALL_ACCESSABLE, gatewayProperties.getDefaultGrayWeight(), 0);
+    }
+
+    /**
+     * 写入服务的灰度权重，所有网关实例通过ZooKeeper通知同时生效
+     */
+    public void updateGrayWeight(String service, int grayWeight) throws Exception {
+        if (grayWeight < 0 || grayWeight > 100) {
+            throw new IllegalArgumentException("Gray weight must be between 0 and 100: " + grayWeight);
+        }
+        String path = weightPath(service);
+        byte[] data = String.valueOf(grayWeight).getBytes(StandardCharsets.UTF_8);
+        if (curatorFramework.checkExists().forPath(path) == null) {
+            curatorFramework.create().creatingParentsIfNeeded().forPath(path, data);
+        } else {
+            curatorFramework.setData().forPath(path, data);
+        }
+        log.info("Updated gray weight for service {} to {}", service, grayWeight);
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        routes.forEach((service, route) -> {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("state", route.getState());
+            entry.put("grayWeight", route.getGrayWeight());
+            entry.put("effectiveGrayPercent", route.effectiveGrayPercent());
+            entry.put("updatedAt", route.getUpdatedAt());
+            snapshot.put(service, entry);
+        });
+        return snapshot;
+    }
+
+    private String statusPath(String service) {
+        return zookeeperProperties.getReleaseStatePath() + "/" + service + "/status";
+    }
+
+    private String weightPath(String service) {
+        return zookeeperProperties.getReleaseStatePath() + "/" + service + "/gray-weight";
+    }
+
+    @PreDestroy
+    public void destroy() {
+        for (NodeCache cache : caches) {
+            try {
+                cache.close();
+            } catch (IOException e) {
+                log.warn("Failed to close node cache", e);
+            }
+        }
+    }
+}
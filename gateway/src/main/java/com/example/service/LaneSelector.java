@@ -0,0 +1,85 @@
+package com.example.service;
+
+import com.example.config.GatewayProperties;
+import com.example.enums.TrafficLane;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpCookie;
+import org.springframework.http.ResponseCookie;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * 为请求选择泳道
+ * ALL_ACCESSABLE时按用户标识的哈希分桶，桶号小于灰度权重的进入灰度。同一用户的桶号固定，
+ * 权重调大时原来在灰度的用户仍在灰度，不会在两个版本之间来回切换。
+ */
+@Service
+public class LaneSelector {
+
+    @Autowired
+    private LaneRoutingTable routingTable;
+
+    @Autowired
+    private GatewayProperties gatewayProperties;
+
+    public TrafficLane select(String service, ServerWebExchange exchange) {
+        LaneRoutingTable.ServiceRoute route = routingTable.route(service);
+        switch (route.getState()) {
+            case GRAY_ACCESSABLE:
+                return TrafficLane.GRAY;
+            case PROD_ACCESSABLE:
+                return TrafficLane.PRD;
+            default:
+                break;
+        }
+
+        HttpCookie laneCookie = exchange.getRequest().getCookies().getFirst(gatewayProperties.getLaneCookie());
+        if (laneCookie != null) {
+            if ("gray".equalsIgnoreCase(laneCookie.getValue())) {
+                return TrafficLane.GRAY;
+            }
+            if ("prd".equalsIgnoreCase(laneCookie.getValue())) {
+                return TrafficLane.PRD;
+            }
+        }
+        return bucket(stickyKey(exchange)) < route.getGrayWeight() ? TrafficLane.GRAY : TrafficLane.PRD;
+    }
+
+    /**
+     * 分桶依据：用户标识请求头，其次是分桶Cookie，都没有时生成一个并写回Cookie
+     */
+    private String stickyKey(ServerWebExchange exchange) {
+        String userId = exchange.getRequest().getHeaders().getFirst(gatewayProperties.getUserIdHeader());
+        if (StringUtils.hasText(userId)) {
+            return userId;
+        }
+        HttpCookie cookie = exchange.getRequest().getCookies().getFirst(gatewayProperties.getStickyCookie());
+        if (cookie != null && StringUtils.hasText(cookie.getValue())) {
+            return cookie.getValue();
+        }
+        String generated = UUID.randomUUID().toString();
+        exchange.getResponse().addCookie(ResponseCookie.from(gatewayProperties.getStickyCookie(), generated)
+                .path("/")
+                .httpOnly(true)
+                .maxAge(Duration.ofSeconds(gatewayProperties.getStickyCookieMaxAgeSeconds()))
+                .build());
+        return generated;
+    }
+
+    /**
+     * 0-99的桶号，先打散hashCode的低位，避免相近的用户ID落在相邻的桶
+     */
+    static int bucket(String key) {
+        int h = key.hashCode();
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return Math.floorMod(h, 100);
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.controller;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.curator.test.TestingServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 灰度代理：按泳道转发到桩上游，X-Backend只出现一次，上游不可达时返回502
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class GrayProxyHandlerTest {
+
+    private static final TestingServer ZOOKEEPER = startZookeeper();
+    private static final HttpServer GRAY = startUpstream("gray");
+    private static final HttpServer PRD = startUpstream("prd");
+
+    @Autowired
+    private WebTestClient client;
+
+    @LocalServerPort
+    private int port;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("zookeeper.connect-string", ZOOKEEPER::getConnectString);
+        registry.add("management.server.port", () -> 0);
+        registry.add("gateway.routes[0].path-prefix", () -> "/dead");
+        registry.add("gateway.routes[0].service", () -> "dead-service");
+        registry.add("gateway.routes[0].gray-upstreams", () -> "http://127.0.0.1:" + closedPort());
+        registry.add("gateway.routes[0].prd-upstreams", () -> "http://127.0.0.1:" + closedPort());
+        registry.add("gateway.routes[1].path-prefix", () -> "/");
+        registry.add("gateway.routes[1].service", () -> "rocketmq-gray-producer");
+        registry.add("gateway.routes[1].gray-upstreams", () -> "http://127.0.0.1:" + GRAY.getAddress().getPort());
+        registry.add("gateway.routes[1].prd-upstreams", () -> "http://127.0.0.1:" + PRD.getAddress().getPort() + "/");
+    }
+
+    @AfterAll
+    static void stopServers() throws IOException {
+        GRAY.stop(0);
+        PRD.stop(0);
+        ZOOKEEPER.close();
+    }
+
+    @Test
+    void forwardsToSelectedLaneWithPathAndQuery() {
+        // 已编码的查询串原样转发，不再二次编码
+        client.get().uri(URI.create("http://localhost:" + port + "/message/send?topic=TEST&tag=a%20b"))
+                .cookie("grayFlag", "gray")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("X-Backend", "gray_pool")
+                .expectBody(String.class).isEqualTo("gray GET /message/send?topic=TEST&tag=a%20b lane=GRAY ");
+
+        client.get().uri("/message/send")
+                .cookie("grayFlag", "prd")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("X-Backend", "prd_pool")
+                .expectBody(String.class).isEqualTo("prd GET /message/send lane=PRD ");
+    }
+
+    @Test
+    void streamsRequestBodyToUpstream() {
+        client.post().uri("/message/send")
+                .cookie("grayFlag", "prd")
+                .bodyValue("{\"content\":\"hello\"}")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("X-Backend", "prd_pool")
+                .expectBody(String.class).isEqualTo("prd POST /message/send lane=PRD {\"content\":\"hello\"}");
+    }
+
+    @Test
+    void passesUpstreamErrorStatusThrough() {
+        client.get().uri("/fail")
+                .cookie("grayFlag", "gray")
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.SERVICE_UNAVAILABLE)
+                .expectHeader().valueEquals("X-Backend", "gray_pool");
+    }
+
+    @Test
+    void unreachableUpstreamReturnsBadGateway() {
+        client.get().uri("/dead/anything")
+                .cookie("grayFlag", "gray")
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.BAD_GATEWAY)
+                .expectHeader().valueEquals("X-Backend", "gray_pool");
+    }
+
+    @Test
+    void actuatorIsNotServedOnProxyPort() {
+        client.get().uri("/actuator/gatewayroutes")
+                .cookie("grayFlag", "prd")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).isEqualTo("prd GET /actuator/gatewayroutes lane=PRD ");
+    }
+
+    /**
+     * 桩上游：回显节点名、请求行、泳道请求头和请求体；/fail返回503；并带上自己的X-Backend，验证网关不透传
+     */
+    private static HttpServer startUpstream(String name) {
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            server.createContext("/", exchange -> respond(exchange, name));
+            server.start();
+            return server;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void respond(HttpExchange exchange, String name) throws IOException {
+        String body = new String(readAll(exchange.getRequestBody()), StandardCharsets.UTF_8);
+        String echo = name + " " + exchange.getRequestMethod() + " " + exchange.getRequestURI().toString()
+                + " lane=" + exchange.getRequestHeaders().getFirst("X-Gray-Lane") + " " + body;
+        byte[] bytes = echo.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().put("X-Backend", Collections.singletonList("upstream"));
+        int status = exchange.getRequestURI().getPath().equals("/fail") ? 503 : 200;
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        for (int n; (n = in.read(buffer)) > 0; ) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    private static TestingServer startZookeeper() {
+        try {
+            return new TestingServer(true);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static int closedPort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
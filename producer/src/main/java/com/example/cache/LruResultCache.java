@@ -0,0 +1,65 @@
+package com.example.cache;
+
+import com.example.enums.CacheEviction;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 基于访问顺序LinkedHashMap的LRU缓存，每个分段一个LinkedHashMap
+ */
+public class LruResultCache extends ResultCache {
+
+    LruResultCache(long ttlMs, int maximumSize, long maximumBytes) {
+        super(CacheEviction.LRU, ttlMs, maximumSize, maximumBytes, LruStripe::new);
+    }
+
+    private static final class LruStripe extends Stripe {
+
+        private final LinkedHashMap<Object, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+        LruStripe(int maximumSize, long maximumWeight) {
+            super(maximumSize, maximumWeight);
+        }
+
+        @Override
+        protected int size() {
+            return entries.size();
+        }
+
+        @Override
+        protected Entry doGet(Object key) {
+            return entries.get(key);
+        }
+
+        @Override
+        protected int doPut(Object key, Entry entry) {
+            Entry previous = entries.put(key, entry);
+            if (previous != null) {
+                onRemoved(previous);
+            }
+            onAdded(entry);
+            // 新条目在队尾且不超过段容量，从队首淘汰不会淘汰到它
+            int evicted = 0;
+            Iterator<Map.Entry<Object, Entry>> iterator = entries.entrySet().iterator();
+            while (isOverflowing() && iterator.hasNext()) {
+                Entry eldest = iterator.next().getValue();
+                iterator.remove();
+                onRemoved(eldest);
+                evicted++;
+            }
+            return evicted;
+        }
+
+        @Override
+        protected Entry doRemove(Object key) {
+            return entries.remove(key);
+        }
+
+        @Override
+        protected void doClear() {
+            entries.clear();
+        }
+    }
+}
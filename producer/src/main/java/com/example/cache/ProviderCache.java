@@ -0,0 +1,40 @@
+package com.example.cache;
+
+import com.example.enums.CacheEviction;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 声明提供者方法的结果可以缓存，标注在@DubboService实现类的方法上
+ * 缓存键为方法签名和参数值，参数需要正确实现equals/hashCode；发布状态变化时所有缓存自动失效。
+ * 只缓存正常返回的非空结果，业务异常和RPC异常都不缓存。
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ProviderCache {
+
+    /**
+     * 条目写入后的存活时间
+     */
+    long ttlMs() default 60000;
+
+    /**
+     * 最多缓存的条目数
+     */
+    int maximumSize() default 1024;
+
+    /**
+     * 缓存结果估算占用的总字节数上限，超出时按淘汰策略继续淘汰；0表示只按条目数限制
+     */
+    long maximumBytes() default 4 * 1024 * 1024;
+
+    /**
+     * 超出条目数上限时的淘汰策略
+     */
+    CacheEviction eviction() default CacheEviction.TINY_LFU;
+}
@@ -0,0 +1,52 @@
+package com.example.cache;
+
+import com.example.config.ProviderCacheProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * 将配置注入 {@link ProviderCacheRegistry}，并把每个方法缓存的命中、淘汰情况注册为Micrometer指标
+ */
+@Component
+public class ProviderCacheMetrics implements MeterBinder {
+
+    @Autowired
+    private ProviderCacheProperties properties;
+
+    @PostConstruct
+    public void init() {
+        ProviderCacheRegistry.setEnabled(properties.isEnabled());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        ProviderCacheRegistry.onCacheCreated((name, cache) -> bind(registry, name, cache));
+    }
+
+    private void bind(MeterRegistry registry, String name, ResultCache cache) {
+        Tags tags = Tags.of("cache", name, "eviction", cache.getEviction().name());
+        FunctionCounter.builder("dubbo.provider.cache.hits", cache, ResultCache::getHits)
+                .tags(tags).register(registry);
+        FunctionCounter.builder("dubbo.provider.cache.misses", cache, ResultCache::getMisses)
+                .tags(tags).register(registry);
+        FunctionCounter.builder("dubbo.provider.cache.evictions", cache, ResultCache::getEvictions)
+                .tags(tags).register(registry);
+        FunctionCounter.builder("dubbo.provider.cache.invalidations", cache, ResultCache::getInvalidations)
+                .tags(tags).register(registry);
+        FunctionCounter.builder("dubbo.provider.cache.oversized", cache, ResultCache::getOversized)
+                .tags(tags).register(registry);
+        Gauge.builder("dubbo.provider.cache.hit.ratio", cache, ResultCache::getHitRatio)
+                .tags(tags).register(registry);
+        Gauge.builder("dubbo.provider.cache.size", cache, ResultCache::size)
+                .tags(tags).register(registry);
+        Gauge.builder("dubbo.provider.cache.weight", cache, ResultCache::weightBytes)
+                .tags(tags).baseUnit("bytes").register(registry);
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+
+/**
+ * 提供者结果缓存注册表，按 接口 -> 方法签名 保存 {@link ResultCache}
+ * Filter由Dubbo SPI创建，发布状态变化由 {@link com.example.service.ProviderServiceManager} 通知这里统一失效。
+ */
+@Slf4j
+public final class ProviderCacheRegistry {
+
+    private static final Map<String, Map<String, ResultCache>> CACHES = new ConcurrentHashMap<>();
+    private static final List<BiConsumer<String, ResultCache>> LISTENERS = new CopyOnWriteArrayList<>();
+    private static volatile boolean enabled = true;
+
+    private ProviderCacheRegistry() {
+    }
+
+    public static void setEnabled(boolean value) {
+        enabled = value;
+        if (!value) {
+            invalidateAll("cache disabled");
+        }
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static ResultCache cache(String interfaceName, String methodKey, ProviderCache spec) {
+        Map<String, ResultCache> methods = CACHES.get(interfaceName);
+        if (methods == null) {
+            methods = CACHES.computeIfAbsent(interfaceName, k -> new ConcurrentHashMap<>());
+        }
+        ResultCache cache = methods.get(methodKey);
+        if (cache == null) {
+            boolean[] created = {false};
+            cache = methods.computeIfAbsent(methodKey, k -> {
+                created[0] = true;
+                return ResultCache.create(spec);
+            });
+            if (created[0]) {
+                for (BiConsumer<String, ResultCache> listener : LISTENERS) {
+                    listener.accept(interfaceName + "." + methodKey, cache);
+                }
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * 注册新建缓存的回调，并对已存在的立即回调一次，参数为 接口.方法签名 和缓存
+     */
+    public static void onCacheCreated(BiConsumer<String, ResultCache> listener) {
+        LISTENERS.add(listener);
+        CACHES.forEach((interfaceName, methods) ->
+                methods.forEach((methodKey, cache) -> listener.accept(interfaceName + "." + methodKey, cache)));
+    }
+
+    /**
+     * 清空所有缓存，发布状态切换后旧状态下的结果不能再返回
+     */
+    public static void invalidateAll(String reason) {
+        int cleared = 0;
+        for (Map<String, ResultCache> methods : CACHES.values()) {
+            for (ResultCache cache : methods.values()) {
+                cleared += cache.invalidateAll();
+            }
+        }
+        if (cleared > 0) {
+            log.info("Invalidated {} cached provider results: {}", cleared, reason);
+        }
+    }
+
+    public static Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        CACHES.forEach((interfaceName, methods) -> {
+            Map<String, Object> methodMap = new LinkedHashMap<>();
+            methods.forEach((methodKey, cache) -> methodMap.put(methodKey, cache.toMap()));
+            snapshot.put(interfaceName, methodMap);
+        });
+        return snapshot;
+    }
+}
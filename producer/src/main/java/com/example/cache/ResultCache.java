@@ -0,0 +1,311 @@
+package com.example.cache;
+
+import com.example.enums.CacheEviction;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 有界、带TTL的结果缓存，具体的淘汰顺序由子类的分段实现
+ * 按键的哈希分成若干锁分段，每段独立加锁、独立按条目数和估算字节数淘汰，不同段的读写互不阻塞；
+ * 容量在各段间平均分配，淘汰顺序只在段内成立。统计计数器在锁外更新。
+ * 每次invalidateAll使失效代数加一，调用前取得代数、返回后按该代数写入，失效前算出的结果不会在失效后写回。
+ */
+public abstract class ResultCache {
+
+    private static final int MAX_STRIPES = 16;
+    private static final int MIN_STRIPE_SIZE = 64;
+
+    /**
+     * 缓存条目，过期时间按写入时刻计算，weight为 {@link ResultWeigher} 估算的字节数
+     */
+    protected static final class Entry {
+        final Object value;
+        final long expireAtNanos;
+        final long weight;
+
+        Entry(Object value, long expireAtNanos, long weight) {
+            this.value = value;
+            this.expireAtNanos = expireAtNanos;
+            this.weight = weight;
+        }
+
+        boolean isExpired(long now) {
+            return now - expireAtNanos >= 0;
+        }
+    }
+
+    /**
+     * 一个锁分段，所有方法都在分段对象的锁内调用
+     * 子类写入和淘汰条目时通过onAdded/onRemoved维护段内的估算字节数
+     */
+    protected abstract static class Stripe {
+        protected final int maximumSize;
+        protected final long maximumWeight;
+        private long weight;
+
+        protected Stripe(int maximumSize, long maximumWeight) {
+            this.maximumSize = maximumSize;
+            this.maximumWeight = maximumWeight;
+        }
+
+        protected final void onAdded(Entry entry) {
+            weight += entry.weight;
+        }
+
+        protected final void onRemoved(Entry entry) {
+            weight -= entry.weight;
+        }
+
+        /**
+         * 条目数或估算字节数超出段的容量
+         */
+        protected final boolean isOverflowing() {
+            return size() > maximumSize || weight > maximumWeight;
+        }
+
+        final void remove(Object key) {
+            Entry removed = doRemove(key);
+            if (removed != null) {
+                onRemoved(removed);
+            }
+        }
+
+        final int clear() {
+            int size = size();
+            doClear();
+            weight = 0;
+            return size;
+        }
+
+        protected abstract int size();
+
+        protected abstract Entry doGet(Object key);
+
+        /**
+         * 写入条目并淘汰到不再超出容量，返回被淘汰的条目数
+         */
+        protected abstract int doPut(Object key, Entry entry);
+
+        protected abstract Entry doRemove(Object key);
+
+        protected abstract void doClear();
+    }
+
+    protected interface StripeFactory {
+        Stripe create(int maximumSize, long maximumWeight);
+    }
+
+    private final CacheEviction eviction;
+    private final long ttlNanos;
+    protected final int maximumSize;
+    protected final long maximumBytes;
+    private final Stripe[] stripes;
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder oversized = new LongAdder();
+
+    protected ResultCache(CacheEviction eviction, long ttlMs, int maximumSize, long maximumBytes,
+                          StripeFactory stripeFactory) {
+        this.eviction = eviction;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, ttlMs));
+        this.maximumSize = Math.max(1, maximumSize);
+        this.maximumBytes = maximumBytes > 0 ? maximumBytes : Long.MAX_VALUE;
+        int count = stripeCount(this.maximumSize);
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            int stripeSize = this.maximumSize / count + (i < this.maximumSize % count ? 1 : 0);
+            long stripeWeight = this.maximumBytes == Long.MAX_VALUE ? Long.MAX_VALUE
+                    : Math.max(1, this.maximumBytes / count);
+            stripes[i] = stripeFactory.create(stripeSize, stripeWeight);
+        }
+    }
+
+    public static ResultCache create(ProviderCache spec) {
+        if (spec.eviction() == CacheEviction.LRU) {
+            return new LruResultCache(spec.ttlMs(), spec.maximumSize(), spec.maximumBytes());
+        }
+        return new TinyLfuResultCache(spec.ttlMs(), spec.maximumSize(), spec.maximumBytes());
+    }
+
+    /**
+     * 分段数为2的幂，每段至少MIN_STRIPE_SIZE个条目，小缓存不分段以免段内淘汰失真
+     */
+    static int stripeCount(int maximumSize) {
+        int count = Math.min(MAX_STRIPES, maximumSize / MIN_STRIPE_SIZE);
+        return count <= 1 ? 1 : Integer.highestOneBit(count);
+    }
+
+    private Stripe stripeFor(Object key) {
+        int hash = key.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+    }
+
+    /**
+     * 查询缓存，未命中或已过期时返回null
+     */
+    public final Object get(Object key) {
+        long now = System.nanoTime();
+        Stripe stripe = stripeFor(key);
+        Entry entry;
+        boolean expired = false;
+        synchronized (stripe) {
+            entry = stripe.doGet(key);
+            if (entry != null && entry.isExpired(now)) {
+                stripe.remove(key);
+                expired = true;
+                entry = null;
+            }
+        }
+        if (expired) {
+            expirations.increment();
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value;
+    }
+
+    /**
+     * 当前的失效代数，调用业务实现前取得，写入时传给 {@link #put(Object, Object, long)}
+     */
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    public final void put(Object key, Object value) {
+        put(key, value, generation.get());
+    }
+
+    /**
+     * 写入缓存，代数与expectedGeneration不同时说明期间已失效，结果丢弃
+     */
+    public final void put(Object key, Object value, long expectedGeneration) {
+        if (value == null) {
+            return;
+        }
+        // 估算在锁外进行，大结果不会拖慢同段的其他调用
+        Entry entry = new Entry(value, System.nanoTime() + ttlNanos, ResultWeigher.weigh(value));
+        Stripe stripe = stripeFor(key);
+        int evicted;
+        synchronized (stripe) {
+            // invalidateAll先加代数再逐段清空，在段锁内检查即可保证失效前的结果不会留在缓存里
+            if (generation.get() != expectedGeneration) {
+                return;
+            }
+            if (entry.weight > stripe.maximumWeight) {
+                // 单个结果超过段的字节预算，不缓存，同时移除旧值
+                stripe.remove(key);
+                evicted = -1;
+            } else {
+                evicted = stripe.doPut(key, entry);
+            }
+        }
+        if (evicted < 0) {
+            oversized.increment();
+        } else if (evicted > 0) {
+            evictions.add(evicted);
+        }
+    }
+
+    /**
+     * 清空缓存，返回被清除的条目数
+     */
+    public final int invalidateAll() {
+        generation.incrementAndGet();
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.clear();
+            }
+        }
+        invalidations.increment();
+        return size;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * 所有条目的估算字节数
+     */
+    public long weightBytes() {
+        long weight = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                weight += stripe.weight;
+            }
+        }
+        return weight;
+    }
+
+    public CacheEviction getEviction() {
+        return eviction;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public long getExpirations() {
+        return expirations.sum();
+    }
+
+    public long getInvalidations() {
+        return invalidations.sum();
+    }
+
+    public long getOversized() {
+        return oversized.sum();
+    }
+
+    public double getHitRatio() {
+        long hit = getHits();
+        long total = hit + getMisses();
+        return total == 0 ? 0 : hit / (double) total;
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("eviction", eviction);
+        map.put("size", size());
+        map.put("maximumSize", maximumSize);
+        map.put("weightBytes", weightBytes());
+        map.put("maximumBytes", maximumBytes == Long.MAX_VALUE ? 0 : maximumBytes);
+        map.put("stripes", stripes.length);
+        map.put("ttlMs", TimeUnit.NANOSECONDS.toMillis(ttlNanos));
+        map.put("hits", getHits());
+        map.put("misses", getMisses());
+        map.put("hitRatio", getHitRatio());
+        map.put("evictions", getEvictions());
+        map.put("expirations", getExpirations());
+        map.put("invalidations", getInvalidations());
+        map.put("oversized", getOversized());
+        return map;
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.cache;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * 估算缓存结果占用的堆内存字节数，用于 {@link ProviderCache#maximumBytes()} 限制
+ * 只做粗略估计：字符串、数组、集合和Map按内容累加，其他对象按固定大小计；
+ * 嵌套超过一定深度后不再展开，避免大对象图和循环引用拖慢写入。
+ */
+final class ResultWeigher {
+
+    private static final int OBJECT_HEADER = 16;
+    private static final int REFERENCE = 8;
+    private static final int DEFAULT_OBJECT = 64;
+    private static final int MAX_DEPTH = 4;
+
+    private ResultWeigher() {
+    }
+
+    static long weigh(Object value) {
+        return weigh(value, 0);
+    }
+
+    private static long weigh(Object value, int depth) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof CharSequence) {
+            return OBJECT_HEADER + 24 + 2L * ((CharSequence) value).length();
+        }
+        if (value instanceof Number || value instanceof Boolean || value instanceof Character) {
+            return OBJECT_HEADER + REFERENCE;
+        }
+        if (value instanceof byte[]) {
+            return OBJECT_HEADER + ((byte[]) value).length;
+        }
+        if (value instanceof char[]) {
+            return OBJECT_HEADER + 2L * ((char[]) value).length;
+        }
+        if (depth >= MAX_DEPTH) {
+            return DEFAULT_OBJECT;
+        }
+        if (value instanceof Object[]) {
+            long weight = OBJECT_HEADER;
+            for (Object element : (Object[]) value) {
+                weight += REFERENCE + weigh(element, depth + 1);
+            }
+            return weight;
+        }
+        if (value instanceof Collection) {
+            long weight = OBJECT_HEADER * 2;
+            for (Object element : (Collection<?>) value) {
+                weight += REFERENCE + weigh(element, depth + 1);
+            }
+            return weight;
+        }
+        if (value instanceof Map) {
+            long weight = OBJECT_HEADER * 2;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                weight += OBJECT_HEADER + 2 * REFERENCE + weigh(entry.getKey(), depth + 1)
+                        + weigh(entry.getValue(), depth + 1);
+            }
+            return weight;
+        }
+        return DEFAULT_OBJECT;
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.cache;
+
+import com.example.enums.CacheEviction;
+
+import java.util.AbstractMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * W-TinyLFU缓存，每个分段各有一套窗口、主区和频率估计
+ * 新条目先进入约占1%容量的窗口LRU；被挤出窗口时与主区probation段的淘汰对象比较访问频率，
+ * 频率更高者留下。主区是分段LRU，probation段再次命中的条目晋升到占80%主区容量的protected段。
+ * 每段用插入顺序的LinkedHashMap表示，访问时删除再插入即移到队尾。
+ * 超出字节预算时依次从probation、protected、窗口的队首淘汰。
+ */
+public class TinyLfuResultCache extends ResultCache {
+
+    TinyLfuResultCache(long ttlMs, int maximumSize, long maximumBytes) {
+        super(CacheEviction.TINY_LFU, ttlMs, maximumSize, maximumBytes, TinyLfuStripe::new);
+    }
+
+    private enum Segment {
+        WINDOW, PROBATION, PROTECTED
+    }
+
+    private static final class TinyLfuStripe extends Stripe {
+
+        private final int windowCapacity;
+        private final int protectedCapacity;
+        private final int mainCapacity;
+        private final FrequencySketch sketch;
+
+        private final Map<Object, Segment> segments = new HashMap<>();
+        private final LinkedHashMap<Object, Entry> window = new LinkedHashMap<>();
+        private final LinkedHashMap<Object, Entry> probation = new LinkedHashMap<>();
+        private final LinkedHashMap<Object, Entry> protectedSegment = new LinkedHashMap<>();
+
+        TinyLfuStripe(int maximumSize, long maximumWeight) {
+            super(maximumSize, maximumWeight);
+            this.windowCapacity = Math.max(1, maximumSize / 100);
+            this.mainCapacity = Math.max(0, maximumSize - windowCapacity);
+            this.protectedCapacity = (int) (mainCapacity * 0.8);
+            this.sketch = new FrequencySketch(maximumSize);
+        }
+
+        @Override
+        protected int size() {
+            return segments.size();
+        }
+
+        @Override
+        protected Entry doGet(Object key) {
+            sketch.increment(key);
+            Segment segment = segments.get(key);
+            if (segment == null) {
+                return null;
+            }
+            switch (segment) {
+                case WINDOW:
+                    return touch(window, key);
+                case PROBATION:
+                    Entry entry = probation.remove(key);
+                    promote(key, entry);
+                    return entry;
+                default:
+                    return touch(protectedSegment, key);
+            }
+        }
+
+        @Override
+        protected int doPut(Object key, Entry entry) {
+            Segment segment = segments.get(key);
+            int evicted = 0;
+            if (segment != null) {
+                // 已存在时原位更新值并视为一次访问
+                onRemoved(segmentMap(segment).remove(key));
+                segmentMap(segment).put(key, entry);
+                onAdded(entry);
+            } else {
+                sketch.increment(key);
+                window.put(key, entry);
+                segments.put(key, Segment.WINDOW);
+                onAdded(entry);
+                if (window.size() > windowCapacity) {
+                    evicted += evictFromWindow();
+                }
+            }
+            while (isOverflowing()) {
+                evicted += evictForWeight();
+            }
+            return evicted;
+        }
+
+        /**
+         * 窗口溢出的条目尝试进入主区，返回淘汰的条目数
+         */
+        private int evictFromWindow() {
+            Map.Entry<Object, Entry> candidate = pollFirst(window);
+            if (probation.size() + protectedSegment.size() < mainCapacity) {
+                probation.put(candidate.getKey(), candidate.getValue());
+                segments.put(candidate.getKey(), Segment.PROBATION);
+                return 0;
+            }
+            LinkedHashMap<Object, Entry> victimSegment = probation.isEmpty() ? protectedSegment : probation;
+            if (victimSegment.isEmpty()) {
+                // 主区容量为0，窗口即全部缓存
+                segments.remove(candidate.getKey());
+                onRemoved(candidate.getValue());
+                return 1;
+            }
+            Object victim = victimSegment.keySet().iterator().next();
+            if (sketch.frequency(candidate.getKey()) > sketch.frequency(victim)) {
+                onRemoved(victimSegment.remove(victim));
+                segments.remove(victim);
+                probation.put(candidate.getKey(), candidate.getValue());
+                segments.put(candidate.getKey(), Segment.PROBATION);
+            } else {
+                segments.remove(candidate.getKey());
+                onRemoved(candidate.getValue());
+            }
+            return 1;
+        }
+
+        /**
+         * 超出字节预算时淘汰一个条目，主区的冷数据优先
+         */
+        private int evictForWeight() {
+            LinkedHashMap<Object, Entry> victimSegment = !probation.isEmpty() ? probation
+                    : !protectedSegment.isEmpty() ? protectedSegment : window;
+            Map.Entry<Object, Entry> victim = pollFirst(victimSegment);
+            segments.remove(victim.getKey());
+            onRemoved(victim.getValue());
+            return 1;
+        }
+
+        private void promote(Object key, Entry entry) {
+            protectedSegment.put(key, entry);
+            segments.put(key, Segment.PROTECTED);
+            if (protectedSegment.size() > protectedCapacity) {
+                Map.Entry<Object, Entry> demoted = pollFirst(protectedSegment);
+                probation.put(demoted.getKey(), demoted.getValue());
+                segments.put(demoted.getKey(), Segment.PROBATION);
+            }
+        }
+
+        private static Entry touch(LinkedHashMap<Object, Entry> segment, Object key) {
+            Entry entry = segment.remove(key);
+            segment.put(key, entry);
+            return entry;
+        }
+
+        private static Map.Entry<Object, Entry> pollFirst(LinkedHashMap<Object, Entry> segment) {
+            Iterator<Map.Entry<Object, Entry>> iterator = segment.entrySet().iterator();
+            Map.Entry<Object, Entry> first = iterator.next();
+            Map.Entry<Object, Entry> copy = new AbstractMap.SimpleImmutableEntry<>(first);
+            iterator.remove();
+            return copy;
+        }
+
+        private LinkedHashMap<Object, Entry> segmentMap(Segment segment) {
+            switch (segment) {
+                case WINDOW:
+                    return window;
+                case PROBATION:
+                    return probation;
+                default:
+                    return protectedSegment;
+            }
+        }
+
+        @Override
+        protected Entry doRemove(Object key) {
+            Segment segment = segments.remove(key);
+            return segment == null ? null : segmentMap(segment).remove(key);
+        }
+
+        @Override
+        protected void doClear() {
+            segments.clear();
+            window.clear();
+            probation.clear();
+            protectedSegment.clear();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 提供者结果缓存配置，缓存的方法和容量由@ProviderCache声明
+ */
+@Component
+@ConfigurationProperties(prefix = "provider.cache")
+public class ProviderCacheProperties {
+
+    /**
+     * 是否启用@ProviderCache声明的结果缓存
+     */
+    private boolean enabled = true;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+}
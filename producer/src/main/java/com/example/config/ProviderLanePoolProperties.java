@@ -0,0 +1,106 @@
+package com.example.config;
+
+import com.example.enums.LaneRejectionPolicy;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 提供者按灰度/生产泳道隔离的业务线程池配置
+ * 需要在dubbo协议上配置 dispatcher: graylane 才会生效
+ */
+@Component
+@ConfigurationProperties(prefix = "provider.lane-pool")
+public class ProviderLanePoolProperties {
+
+    /**
+     * 单个泳道线程池的配置
+     */
+    public static class Pool {
+
+        /**
+         * 线程数
+         */
+        private int threads;
+
+        /**
+         * 等待队列长度，0表示不排队，线程全忙时直接拒绝
+         */
+        private int queueCapacity;
+
+        /**
+         * 线程池满时的处理方式
+         */
+        private LaneRejectionPolicy rejection = LaneRejectionPolicy.ABORT;
+
+        public Pool() {
+        }
+
+        Pool(int threads, int queueCapacity) {
+            this.threads = threads;
+            this.queueCapacity = queueCapacity;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public LaneRejectionPolicy getRejection() {
+            return rejection;
+        }
+
+        public void setRejection(LaneRejectionPolicy rejection) {
+            this.rejection = rejection;
+        }
+    }
+
+    /**
+     * 是否按泳道分发，关闭后所有请求使用Dubbo默认线程池
+     */
+    private boolean enabled = true;
+
+    /**
+     * 灰度流量线程池，默认较小，避免测试流量挤占生产
+     */
+    private Pool gray = new Pool(20, 50);
+
+    /**
+     * 生产流量线程池，与Dubbo默认的fixed线程池大小一致
+     */
+    private Pool prd = new Pool(200, 0);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Pool getGray() {
+        return gray;
+    }
+
+    public void setGray(Pool gray) {
+        this.gray = gray;
+    }
+
+    public Pool getPrd() {
+        return prd;
+    }
+
+    public void setPrd(Pool prd) {
+        this.prd = prd;
+    }
+}
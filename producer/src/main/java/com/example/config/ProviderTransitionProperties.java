@@ -0,0 +1,91 @@
+package com.example.config;
+
+import com.example.enums.ProviderToggleMode;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Dubbo服务上下线切换配置
+ */
+@Component
+@ConfigurationProperties(prefix = "provider.transition")
+public class ProviderTransitionProperties {
+
+    /**
+     * 上下线方式：EXPORT为导出/注销，REGISTRY为仅注册中心注册/注销
+     */
+    private ProviderToggleMode mode = ProviderToggleMode.EXPORT;
+
+    /**
+     * 同时导出/注销的服务数上限
+     */
+    private int parallelism = 8;
+
+    /**
+     * 单个服务导出/注销的超时时间
+     */
+    private long perServiceTimeoutMs = 10000;
+
+    /**
+     * 导出/注销后等待注册中心事件确认的超时时间
+     */
+    private long registryConfirmTimeoutMs = 3000;
+
+    /**
+     * 注销后等待在途调用完成的最长时间，应小于单个服务的超时时间
+     */
+    private long drainTimeoutMs = 5000;
+
+    /**
+     * 在途调用归零后还需保持无新调用的时长，覆盖消费者收到注销通知前的延迟
+     */
+    private long drainQuietPeriodMs = 500;
+
+    public ProviderToggleMode getMode() {
+        return mode;
+    }
+
+    public void setMode(ProviderToggleMode mode) {
+        this.mode = mode;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public long getPerServiceTimeoutMs() {
+        return perServiceTimeoutMs;
+    }
+
+    public void setPerServiceTimeoutMs(long perServiceTimeoutMs) {
+        this.perServiceTimeoutMs = perServiceTimeoutMs;
+    }
+
+    public long getRegistryConfirmTimeoutMs() {
+        return registryConfirmTimeoutMs;
+    }
+
+    public void setRegistryConfirmTimeoutMs(long registryConfirmTimeoutMs) {
+        this.registryConfirmTimeoutMs = registryConfirmTimeoutMs;
+    }
+
+    public long getDrainTimeoutMs() {
+        return drainTimeoutMs;
+    }
+
+    public void setDrainTimeoutMs(long drainTimeoutMs) {
+        this.drainTimeoutMs = drainTimeoutMs;
+    }
+
+    public long getDrainQuietPeriodMs() {
+        return drainQuietPeriodMs;
+    }
+
+    public void setDrainQuietPeriodMs(long drainQuietPeriodMs) {
+        this.drainQuietPeriodMs = drainQuietPeriodMs;
+    }
+}
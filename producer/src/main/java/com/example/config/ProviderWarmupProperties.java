@@ -0,0 +1,130 @@
+package com.example.config;
+
+import com.example.enums.WarmupCurve;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 提供者上线预热与下线降权配置
+ */
+@Component
+@ConfigurationProperties(prefix = "provider.warmup")
+public class ProviderWarmupProperties {
+
+    /**
+     * 是否启用权重预热
+     */
+    private boolean enabled = false;
+
+    /**
+     * 上线时的初始权重
+     */
+    private int startWeight = 10;
+
+    /**
+     * 预热完成后的权重，与Dubbo默认权重一致
+     */
+    private int fullWeight = 100;
+
+    /**
+     * 预热总时长
+     */
+    private long durationMs = 60000;
+
+    /**
+     * 预热分几步完成
+     */
+    private int steps = 10;
+
+    /**
+     * 预热曲线
+     */
+    private WarmupCurve curve = WarmupCurve.LINEAR;
+
+    /**
+     * 平滑耗时超过该值时暂停升权，0表示不根据耗时调整
+     */
+    private long latencyGuardMs = 0;
+
+    /**
+     * 下线前降权的总时长，0表示直接下线
+     */
+    private long rampDownDurationMs = 5000;
+
+    /**
+     * 下线降权分几步完成
+     */
+    private int rampDownSteps = 5;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getStartWeight() {
+        return startWeight;
+    }
+
+    public void setStartWeight(int startWeight) {
+        this.startWeight = startWeight;
+    }
+
+    public int getFullWeight() {
+        return fullWeight;
+    }
+
+    public void setFullWeight(int fullWeight) {
+        this.fullWeight = fullWeight;
+    }
+
+    public long getDurationMs() {
+        return durationMs;
+    }
+
+    public void setDurationMs(long durationMs) {
+        this.durationMs = durationMs;
+    }
+
+    public int getSteps() {
+        return steps;
+    }
+
+    public void setSteps(int steps) {
+        this.steps = steps;
+    }
+
+    public WarmupCurve getCurve() {
+        return curve;
+    }
+
+    public void setCurve(WarmupCurve curve) {
+        this.curve = curve;
+    }
+
+    public long getLatencyGuardMs() {
+        return latencyGuardMs;
+    }
+
+    public void setLatencyGuardMs(long latencyGuardMs) {
+        this.latencyGuardMs = latencyGuardMs;
+    }
+
+    public long getRampDownDurationMs() {
+        return rampDownDurationMs;
+    }
+
+    public void setRampDownDurationMs(long rampDownDurationMs) {
+        this.rampDownDurationMs = rampDownDurationMs;
+    }
+
+    public int getRampDownSteps() {
+        return rampDownSteps;
+    }
+
+    public void setRampDownSteps(int rampDownSteps) {
+        this.rampDownSteps = rampDownSteps;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.config;
+
+import com.example.enums.ReleaseState;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 发布状态切换的去抖与驻留配置
+ */
+@Component
+@ConfigurationProperties(prefix = "release.flip")
+public class ReleaseFlipProperties {
+
+    /**
+     * 去抖窗口：收到状态通知后等待该时长再执行，窗口内的新通知会取代旧通知
+     */
+    private long settleWindowMs = 1000;
+
+    /**
+     * 最小驻留时间：进入某状态后至少保持该时长才允许再次切换
+     */
+    private long minDwellMs = 5000;
+
+    /**
+     * 按状态覆盖最小驻留时间
+     */
+    private Map<ReleaseState, Long> stateMinDwellMs = new HashMap<>();
+
+    public long getSettleWindowMs() {
+        return settleWindowMs;
+    }
+
+    public void setSettleWindowMs(long settleWindowMs) {
+        this.settleWindowMs = settleWindowMs;
+    }
+
+    public long getMinDwellMs() {
+        return minDwellMs;
+    }
+
+    public void setMinDwellMs(long minDwellMs) {
+        this.minDwellMs = minDwellMs;
+    }
+
+    public Map<ReleaseState, Long> getStateMinDwellMs() {
+        return stateMinDwellMs;
+    }
+
+    public void setStateMinDwellMs(Map<ReleaseState, Long> stateMinDwellMs) {
+        this.stateMinDwellMs = stateMinDwellMs;
+    }
+
+    public long minDwellFor(ReleaseState state) {
+        if (state == null) {
+            return 0;
+        }
+        Long override = stateMinDwellMs.get(state);
+        return override != null ? override : minDwellMs;
+    }
+}
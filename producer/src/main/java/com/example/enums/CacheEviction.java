@@ -0,0 +1,17 @@
+package com.example.enums;
+
+/**
+ * 提供者结果缓存的淘汰策略
+ */
+public enum CacheEviction {
+
+    /**
+     * 淘汰最久未访问的条目，适合访问集中在最近数据的方法
+     */
+    LRU,
+
+    /**
+     * 窗口LRU + 分段LRU，新条目需要比淘汰对象访问更频繁才能进入主区，抗一次性扫描
+     */
+    TINY_LFU
+}
@@ -0,0 +1,17 @@
+package com.example.enums;
+
+/**
+ * 泳道线程池满时的处理方式
+ */
+public enum LaneRejectionPolicy {
+
+    /**
+     * 立即向消费者返回线程池耗尽错误
+     */
+    ABORT,
+
+    /**
+     * 交给Dubbo共享线程池执行，泳道隔离在此时失效
+     */
+    SHARED
+}
@@ -0,0 +1,17 @@
+package com.example.enums;
+
+/**
+ * 提供者上下线方式
+ */
+public enum ProviderToggleMode {
+
+    /**
+     * 通过ServiceConfig的export/unexport上下线，会重建Exporter和Invoker
+     */
+    EXPORT,
+
+    /**
+     * 仅在注册中心注册/注销提供者URL，Exporter和Netty服务端保持运行
+     */
+    REGISTRY
+}
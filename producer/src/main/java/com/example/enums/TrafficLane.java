@@ -0,0 +1,17 @@
+package com.example.enums;
+
+/**
+ * 提供者收到请求所属的流量泳道
+ */
+public enum TrafficLane {
+
+    /**
+     * 带灰度标记的请求（gray=true附件或gray标签）
+     */
+    GRAY,
+
+    /**
+     * 其余请求均视为生产流量
+     */
+    PRD
+}
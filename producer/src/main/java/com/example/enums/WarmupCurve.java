@@ -0,0 +1,32 @@
+package com.example.enums;
+
+/**
+ * 预热权重曲线
+ */
+public enum WarmupCurve {
+
+    /**
+     * 权重随时间线性增长
+     */
+    LINEAR {
+        @Override
+        public double apply(double progress) {
+            return progress;
+        }
+    },
+
+    /**
+     * 前期增长缓慢，后期加速，适合JIT和缓存较冷的服务
+     */
+    QUADRATIC {
+        @Override
+        public double apply(double progress) {
+            return progress * progress;
+        }
+    };
+
+    /**
+     * 将进度(0~1)映射为权重比例(0~1)
+     */
+    public abstract double apply(double progress);
+}
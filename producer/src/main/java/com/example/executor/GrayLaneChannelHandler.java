@@ -0,0 +1,76 @@
+package com.example.executor;
+
+import com.example.enums.LaneRejectionPolicy;
+import com.example.enums.TrafficLane;
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.constants.CommonConstants;
+import org.apache.dubbo.remoting.Channel;
+import org.apache.dubbo.remoting.ChannelHandler;
+import org.apache.dubbo.remoting.Decodeable;
+import org.apache.dubbo.remoting.RemotingException;
+import org.apache.dubbo.remoting.exchange.Request;
+import org.apache.dubbo.remoting.transport.dispatcher.ChannelEventRunnable;
+import org.apache.dubbo.remoting.transport.dispatcher.all.AllChannelHandler;
+import org.apache.dubbo.rpc.Invocation;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 在all分发方式基础上，把收到的请求按泳道交给独立线程池执行
+ * 判断泳道需要读取附件，因此请求体在IO线程上解码（相当于decode.in.io.thread=true），
+ * 业务线程中的DecodeHandler发现已解码后不会重复解码。连接事件和响应仍走Dubbo共享线程池。
+ */
+public class GrayLaneChannelHandler extends AllChannelHandler {
+
+    // 与消费者GrayLaneStateRouter的附件名一致
+    static final String GRAY_ATTACHMENT = "gray";
+    private static final String GRAY_TAG = "gray";
+
+    public GrayLaneChannelHandler(ChannelHandler handler, URL url) {
+        super(handler, url);
+    }
+
+    @Override
+    public void received(Channel channel, Object message) throws RemotingException {
+        if (!LaneExecutors.isEnabled() || !(message instanceof Request) || ((Request) message).isEvent()) {
+            super.received(channel, message);
+            return;
+        }
+        Request request = (Request) message;
+        LaneExecutor lane = LaneExecutors.get(laneOf(request));
+        try {
+            lane.getExecutor().execute(new ChannelEventRunnable(channel, handler,
+                    ChannelEventRunnable.ChannelState.RECEIVED, message));
+        } catch (RejectedExecutionException e) {
+            if (lane.getRejection() == LaneRejectionPolicy.SHARED) {
+                lane.onOverflow();
+                super.received(channel, message);
+                return;
+            }
+            lane.onRejected();
+            // 单向请求无需应答，sendFeedback内部会忽略
+            sendFeedback(channel, request, e);
+        }
+    }
+
+    static TrafficLane laneOf(Request request) {
+        Object data = request.getData();
+        if (data instanceof Decodeable) {
+            try {
+                ((Decodeable) data).decode();
+            } catch (Exception e) {
+                // 解码失败交给业务线程按原流程报错
+                return TrafficLane.PRD;
+            }
+        }
+        if (!(data instanceof Invocation)) {
+            return TrafficLane.PRD;
+        }
+        Invocation invocation = (Invocation) data;
+        if (Boolean.parseBoolean(invocation.getAttachment(GRAY_ATTACHMENT))
+                || GRAY_TAG.equalsIgnoreCase(invocation.getAttachment(CommonConstants.TAG_KEY))) {
+            return TrafficLane.GRAY;
+        }
+        return TrafficLane.PRD;
+    }
+}
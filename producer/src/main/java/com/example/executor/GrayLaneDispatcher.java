@@ -0,0 +1,18 @@
+package com.example.executor;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.remoting.ChannelHandler;
+import org.apache.dubbo.remoting.Dispatcher;
+
+/**
+ * 按灰度/生产泳道分发请求的Dispatcher，在协议上配置 dispatcher: graylane 启用
+ */
+public class GrayLaneDispatcher implements Dispatcher {
+
+    public static final String NAME = "graylane";
+
+    @Override
+    public ChannelHandler dispatch(ChannelHandler handler, URL url) {
+        return new GrayLaneChannelHandler(handler, url);
+    }
+}
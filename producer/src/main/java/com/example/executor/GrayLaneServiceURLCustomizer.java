@@ -0,0 +1,21 @@
+package com.example.executor;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.registry.integration.ServiceURLCustomizer;
+import org.apache.dubbo.remoting.Constants;
+import org.apache.dubbo.rpc.model.ApplicationModel;
+
+/**
+ * 注册到注册中心的URL去掉 dispatcher=graylane
+ * Dispatcher只在提供者端使用，消费者合并提供者URL时会沿用该参数建立连接，而消费者端没有这个扩展。
+ */
+public class GrayLaneServiceURLCustomizer implements ServiceURLCustomizer {
+
+    @Override
+    public URL customize(URL serviceURL, ApplicationModel applicationModel) {
+        if (GrayLaneDispatcher.NAME.equals(serviceURL.getParameter(Constants.DISPATCHER_KEY))) {
+            return serviceURL.removeParameter(Constants.DISPATCHER_KEY);
+        }
+        return serviceURL;
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.executor;
+
+import com.example.config.ProviderLanePoolProperties;
+import com.example.enums.LaneRejectionPolicy;
+import com.example.enums.TrafficLane;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个泳道的有界业务线程池及其统计
+ */
+public class LaneExecutor {
+
+    private final TrafficLane lane;
+    private final LaneRejectionPolicy rejection;
+    private final int queueCapacity;
+    private final ThreadPoolExecutor executor;
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder overflowed = new LongAdder();
+
+    LaneExecutor(TrafficLane lane, ProviderLanePoolProperties.Pool pool) {
+        this.lane = lane;
+        this.rejection = pool.getRejection();
+        this.queueCapacity = Math.max(0, pool.getQueueCapacity());
+        int threads = Math.max(1, pool.getThreads());
+        BlockingQueue<Runnable> queue = queueCapacity == 0
+                ? new SynchronousQueue<>() : new LinkedBlockingQueue<>(queueCapacity);
+        String prefix = "dubbo-lane-" + lane.name().toLowerCase() + "-";
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, queue,
+                r -> {
+                    Thread thread = new Thread(r, prefix + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    ThreadPoolExecutor getExecutor() {
+        return executor;
+    }
+
+    void onRejected() {
+        rejected.increment();
+    }
+
+    void onOverflow() {
+        overflowed.increment();
+    }
+
+    public TrafficLane getLane() {
+        return lane;
+    }
+
+    public LaneRejectionPolicy getRejection() {
+        return rejection;
+    }
+
+    public int getMaxThreads() {
+        return executor.getMaximumPoolSize();
+    }
+
+    public int getActiveThreads() {
+        return executor.getActiveCount();
+    }
+
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public long getCompleted() {
+        return executor.getCompletedTaskCount();
+    }
+
+    /**
+     * 被拒绝并返回错误的请求数
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * 因泳道满而转入共享线程池的请求数
+     */
+    public long getOverflowed() {
+        return overflowed.sum();
+    }
+
+    public double getUtilization() {
+        return getActiveThreads() / (double) getMaxThreads();
+    }
+
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("maxThreads", getMaxThreads());
+        map.put("activeThreads", getActiveThreads());
+        map.put("utilization", getUtilization());
+        map.put("queueSize", getQueueSize());
+        map.put("queueCapacity", queueCapacity);
+        map.put("completed", getCompleted());
+        map.put("rejection", rejection);
+        map.put("rejected", getRejected());
+        map.put("overflowed", getOverflowed());
+        return map;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.executor;
+
+import com.example.config.ProviderLanePoolProperties;
+import com.example.enums.TrafficLane;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 将配置注入 {@link LaneExecutors}，并把每个泳道线程池的使用率、排队和拒绝情况注册为Micrometer指标
+ */
+@Component
+public class LaneExecutorMetrics implements MeterBinder {
+
+    @Autowired
+    private ProviderLanePoolProperties properties;
+
+    @PostConstruct
+    public void init() {
+        LaneExecutors.configure(properties);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        LaneExecutors.shutdown();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (TrafficLane lane : TrafficLane.values()) {
+            Tags tags = Tags.of("lane", lane.name());
+            gauge(registry, "dubbo.provider.lane.threads.max", tags, lane, LaneExecutor::getMaxThreads);
+            gauge(registry, "dubbo.provider.lane.threads.active", tags, lane, LaneExecutor::getActiveThreads);
+            gauge(registry, "dubbo.provider.lane.utilization", tags, lane, LaneExecutor::getUtilization);
+            gauge(registry, "dubbo.provider.lane.queue.size", tags, lane, LaneExecutor::getQueueSize);
+            FunctionCounter.builder("dubbo.provider.lane.rejected", lane, l -> LaneExecutors.get(l).getRejected())
+                    .tags(tags).register(registry);
+            FunctionCounter.builder("dubbo.provider.lane.overflowed", lane, l -> LaneExecutors.get(l).getOverflowed())
+                    .tags(tags).register(registry);
+        }
+    }
+
+    // 线程池可能随配置替换，指标每次都取当前的线程池
+    private static void gauge(MeterRegistry registry, String name, Tags tags, TrafficLane lane,
+                              ToDoubleFunction<LaneExecutor> value) {
+        Gauge.builder(name, lane, l -> value.applyAsDouble(LaneExecutors.get(l))).tags(tags).register(registry);
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.executor;
+
+import com.example.config.ProviderLanePoolProperties;
+import com.example.enums.TrafficLane;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 泳道线程池注册表
+ * Dispatcher由Dubbo SPI在服务导出时创建，可能早于Spring配置注入，线程池在首次使用时按当前配置创建；
+ * 配置更新后替换为新线程池，旧线程池执行完已提交的请求后关闭。
+ */
+public final class LaneExecutors {
+
+    private static volatile ProviderLanePoolProperties properties = new ProviderLanePoolProperties();
+    private static volatile Map<TrafficLane, LaneExecutor> executors;
+
+    private LaneExecutors() {
+    }
+
+    public static void configure(ProviderLanePoolProperties newProperties) {
+        properties = newProperties;
+        shutdown();
+    }
+
+    public static boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    public static LaneExecutor get(TrafficLane lane) {
+        return executors().get(lane);
+    }
+
+    private static Map<TrafficLane, LaneExecutor> executors() {
+        Map<TrafficLane, LaneExecutor> current = executors;
+        if (current == null) {
+            synchronized (LaneExecutors.class) {
+                current = executors;
+                if (current == null) {
+                    current = new EnumMap<>(TrafficLane.class);
+                    current.put(TrafficLane.GRAY, new LaneExecutor(TrafficLane.GRAY, properties.getGray()));
+                    current.put(TrafficLane.PRD, new LaneExecutor(TrafficLane.PRD, properties.getPrd()));
+                    executors = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    public static Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("enabled", isEnabled());
+        Map<TrafficLane, LaneExecutor> current = executors;
+        if (current != null) {
+            current.forEach((lane, executor) -> snapshot.put(lane.name(), executor.toMap()));
+        }
+        return snapshot;
+    }
+
+    /**
+     * 关闭当前线程池，之后再有请求时按当前配置重新创建
+     */
+    public static void shutdown() {
+        Map<TrafficLane, LaneExecutor> previous;
+        synchronized (LaneExecutors.class) {
+            previous = executors;
+            executors = null;
+        }
+        if (previous != null) {
+            previous.values().forEach(LaneExecutor::shutdown);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.filter;
+
+import com.example.cache.ProviderCache;
+import com.example.cache.ProviderCacheRegistry;
+import com.example.cache.ResultCache;
+import org.apache.dubbo.common.constants.CommonConstants;
+import org.apache.dubbo.common.extension.Activate;
+import org.apache.dubbo.rpc.AsyncRpcResult;
+import org.apache.dubbo.rpc.Filter;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.Result;
+import org.apache.dubbo.rpc.RpcException;
+import org.apache.dubbo.rpc.model.ServiceModel;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 提供者结果缓存Filter，对实现类上标注了 {@link ProviderCache} 的方法按参数缓存正常返回的结果
+ * 放在过滤链最内层，命中时仍经过流量统计和调用指标，只跳过业务实现本身。
+ */
+@Activate(group = CommonConstants.PROVIDER, order = 1000)
+public class ProviderCacheFilter implements Filter, Filter.Listener {
+
+    private static final String CACHE_KEY = "provider-cache.key";
+    private static final String CACHE_GENERATION = "provider-cache.generation";
+
+    /**
+     * 方法的缓存声明，未标注时为NONE，避免每次调用都反射查找
+     */
+    private static final class CacheSpec {
+        static final CacheSpec NONE = new CacheSpec(null, null);
+
+        final String methodKey;
+        final ProviderCache annotation;
+
+        CacheSpec(String methodKey, ProviderCache annotation) {
+            this.methodKey = methodKey;
+            this.annotation = annotation;
+        }
+    }
+
+    /**
+     * 参数列表作为缓存键，数组参数按内容比较
+     */
+    private static final class ArgumentsKey {
+        private final Object[] arguments;
+        private final int hash;
+
+        ArgumentsKey(Object[] arguments) {
+            this.arguments = arguments == null ? new Object[0] : arguments.clone();
+            this.hash = Arrays.deepHashCode(this.arguments);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof ArgumentsKey && Arrays.deepEquals(arguments, ((ArgumentsKey) o).arguments);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    // 接口 + 方法签名 -> 缓存声明
+    private final Map<String, CacheSpec> specs = new ConcurrentHashMap<>();
+
+    @Override
+    public Result invoke(Invoker<?> invoker, Invocation invocation) throws RpcException {
+        if (!ProviderCacheRegistry.isEnabled()) {
+            return invoker.invoke(invocation);
+        }
+        CacheSpec spec = specOf(invoker, invocation);
+        if (spec.annotation == null) {
+            return invoker.invoke(invocation);
+        }
+        ResultCache cache = ProviderCacheRegistry.cache(invoker.getInterface().getName(), spec.methodKey,
+                spec.annotation);
+        ArgumentsKey key = new ArgumentsKey(invocation.getArguments());
+        Object cached = cache.get(key);
+        if (cached != null) {
+            return AsyncRpcResult.newDefaultAsyncResult(cached, invocation);
+        }
+        invocation.put(CACHE_KEY, key);
+        // 调用期间发生发布状态切换时缓存已失效，这次的结果不能写回
+        invocation.put(CACHE_GENERATION, cache.getGeneration());
+        return invoker.invoke(invocation);
+    }
+
+    @Override
+    public void onResponse(Result appResponse, Invoker<?> invoker, Invocation invocation) {
+        Object key = invocation.getAttributes().remove(CACHE_KEY);
+        Object generation = invocation.getAttributes().remove(CACHE_GENERATION);
+        if (key == null || generation == null || appResponse.hasException() || !ProviderCacheRegistry.isEnabled()) {
+            return;
+        }
+        CacheSpec spec = specOf(invoker, invocation);
+        if (spec.annotation != null) {
+            ProviderCacheRegistry.cache(invoker.getInterface().getName(), spec.methodKey, spec.annotation)
+                    .put(key, appResponse.getValue(), (Long) generation);
+        }
+    }
+
+    @Override
+    public void onError(Throwable t, Invoker<?> invoker, Invocation invocation) {
+        invocation.getAttributes().remove(CACHE_KEY);
+        invocation.getAttributes().remove(CACHE_GENERATION);
+    }
+
+    private CacheSpec specOf(Invoker<?> invoker, Invocation invocation) {
+        String methodKey = methodKeyOf(invocation);
+        String specKey = invoker.getInterface().getName() + "#" + methodKey;
+        CacheSpec spec = specs.get(specKey);
+        if (spec == null) {
+            spec = specs.computeIfAbsent(specKey, k -> resolve(invocation, methodKey));
+        }
+        return spec;
+    }
+
+    private static String methodKeyOf(Invocation invocation) {
+        StringBuilder key = new StringBuilder(invocation.getMethodName()).append('(');
+        Class<?>[] parameterTypes = invocation.getParameterTypes();
+        for (int i = 0; parameterTypes != null && i < parameterTypes.length; i++) {
+            if (i > 0) {
+                key.append(',');
+            }
+            key.append(parameterTypes[i].getSimpleName());
+        }
+        return key.append(')').toString();
+    }
+
+    private static CacheSpec resolve(Invocation invocation, String methodKey) {
+        ServiceModel serviceModel = invocation.getServiceModel();
+        Object implementation = serviceModel == null ? null : serviceModel.getProxyObject();
+        if (implementation == null || invocation.getMethodName().startsWith("$")) {
+            return CacheSpec.NONE;
+        }
+        try {
+            // 实现类可能被Spring代理，从原始类上查找注解
+            Method method = ClassUtils.getUserClass(implementation)
+                    .getMethod(invocation.getMethodName(), invocation.getParameterTypes());
+            ProviderCache annotation = AnnotationUtils.findAnnotation(method, ProviderCache.class);
+            return annotation == null ? CacheSpec.NONE : new CacheSpec(methodKey, annotation);
+        } catch (NoSuchMethodException e) {
+            return CacheSpec.NONE;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.filter;
+
+import org.apache.dubbo.common.constants.CommonConstants;
+import org.apache.dubbo.common.extension.Activate;
+import org.apache.dubbo.rpc.Filter;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.Result;
+import org.apache.dubbo.rpc.RpcException;
+
+/**
+ * 提供者流量统计Filter，记录每个服务的调用耗时和在途调用数，供预热升权、下线排空等生命周期动作参考
+ */
+@Activate(group = CommonConstants.PROVIDER, order = -9000)
+public class ProviderTrafficFilter implements Filter, Filter.Listener {
+
+    private static final String START_KEY = "provider-traffic.start";
+
+    @Override
+    public Result invoke(Invoker<?> invoker, Invocation invocation) throws RpcException {
+        long start = System.nanoTime();
+        invocation.put(START_KEY, start);
+        ProviderTrafficStats.forService(invoker.getInterface().getName()).onStart(start);
+        return invoker.invoke(invocation);
+    }
+
+    @Override
+    public void onResponse(Result appResponse, Invoker<?> invoker, Invocation invocation) {
+        record(invoker, invocation);
+    }
+
+    @Override
+    public void onError(Throwable t, Invoker<?> invoker, Invocation invocation) {
+        record(invoker, invocation);
+    }
+
+    private void record(Invoker<?> invoker, Invocation invocation) {
+        // 移除开始时间，保证每次调用只结束一次
+        Object start = invocation.getAttributes().remove(START_KEY);
+        if (start instanceof Long) {
+            ProviderTrafficStats.forService(invoker.getInterface().getName())
+                    .onEnd(System.nanoTime() - (Long) start);
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.filter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 提供者侧按服务统计的流量信息（调用耗时、在途调用数），由 {@link ProviderTrafficFilter} 写入
+ * Dubbo的Filter由SPI创建而非Spring管理，因此统计数据放在静态注册表中供各组件读取。
+ */
+public final class ProviderTrafficStats {
+
+    private static final Map<String, ServiceTraffic> SERVICES = new ConcurrentHashMap<>();
+
+    private ProviderTrafficStats() {
+    }
+
+    public static ServiceTraffic forService(String interfaceName) {
+        ServiceTraffic traffic = SERVICES.get(interfaceName);
+        if (traffic == null) {
+            traffic = SERVICES.computeIfAbsent(interfaceName, ServiceTraffic::new);
+        }
+        return traffic;
+    }
+
+    public static Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        for (ServiceTraffic traffic : SERVICES.values()) {
+            snapshot.put(traffic.interfaceName, traffic.toMap());
+        }
+        return snapshot;
+    }
+
+    /**
+     * 单个服务的流量统计
+     */
+    public static final class ServiceTraffic {
+
+        // EWMA平滑系数（1/8），与TCP RTT估计一致
+        private static final int EWMA_SHIFT = 3;
+
+        private final String interfaceName;
+        private final AtomicLong ewmaLatencyMicros = new AtomicLong(-1);
+        private final AtomicLong invocations = new AtomicLong();
+        private final AtomicInteger active = new AtomicInteger();
+        private final AtomicLong lateArrivals = new AtomicLong();
+        private volatile long lastStartNanos = System.nanoTime();
+        private volatile boolean draining;
+        private final Object drainMonitor = new Object();
+
+        ServiceTraffic(String interfaceName) {
+            this.interfaceName = interfaceName;
+        }
+
+        void onStart(long startNanos) {
+            active.incrementAndGet();
+            lastStartNanos = startNanos;
+            if (draining) {
+                // 注册中心已注销后仍到达的调用（消费者尚未收到通知）
+                lateArrivals.incrementAndGet();
+            }
+        }
+
+        void onEnd(long elapsedNanos) {
+            if (active.decrementAndGet() == 0 && draining) {
+                synchronized (drainMonitor) {
+                    drainMonitor.notifyAll();
+                }
+            }
+            record(elapsedNanos);
+        }
+
+        private void record(long elapsedNanos) {
+            invocations.incrementAndGet();
+            long sample = TimeUnit.NANOSECONDS.toMicros(elapsedNanos);
+            long current;
+            long updated;
+            do {
+                current = ewmaLatencyMicros.get();
+                updated = current < 0 ? sample : current + ((sample - current) >> EWMA_SHIFT);
+            } while (!ewmaLatencyMicros.compareAndSet(current, updated));
+        }
+
+        /**
+         * 平滑后的调用耗时（毫秒），没有样本时返回-1
+         */
+        public double getEwmaLatencyMs() {
+            long micros = ewmaLatencyMicros.get();
+            return micros < 0 ? -1 : micros / 1000.0;
+        }
+
+        public long getInvocations() {
+            return invocations.get();
+        }
+
+        public int getActive() {
+            return active.get();
+        }
+
+        /**
+         * 开始排空：等待在途调用归零，并且在静默期内没有新调用到达
+         * 静默期从排空开始计算，用于覆盖消费者收到注销通知之前的传播延迟
+         */
+        public DrainResult drain(long quietPeriodMs, long timeoutMs) throws InterruptedException {
+            long start = System.nanoTime();
+            long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+            long quietNanos = TimeUnit.MILLISECONDS.toNanos(quietPeriodMs);
+            long lateBefore = lateArrivals.get();
+            draining = true;
+            synchronized (drainMonitor) {
+                while (true) {
+                    long now = System.nanoTime();
+                    long idleNanos = now - Math.max(start, lastStartNanos);
+                    int inFlight = active.get();
+                    if (inFlight == 0 && idleNanos >= quietNanos) {
+                        break;
+                    }
+                    long remainingNanos = deadline - now;
+                    if (remainingNanos <= 0) {
+                        break;
+                    }
+                    long waitNanos = inFlight > 0 ? remainingNanos : Math.min(remainingNanos, quietNanos - idleNanos);
+                    drainMonitor.wait(Math.max(1, TimeUnit.NANOSECONDS.toMillis(waitNanos)));
+                }
+            }
+            return new DrainResult(interfaceName, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                    active.get(), lateArrivals.get() - lateBefore);
+        }
+
+        /**
+         * 服务重新上线，停止统计迟到调用
+         */
+        public void resume() {
+            draining = false;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("invocations", getInvocations());
+            map.put("active", getActive());
+            map.put("draining", draining);
+            map.put("lateArrivals", lateArrivals.get());
+            map.put("ewmaLatencyMs", getEwmaLatencyMs());
+            return map;
+        }
+    }
+
+    /**
+     * 一次排空的结果
+     */
+    public static final class DrainResult {
+        private final String interfaceName;
+        private final long durationMs;
+        private final int inFlightAtDeadline;
+        private final long lateArrivals;
+        private volatile int dropped;
+
+        public DrainResult(String interfaceName, long durationMs, int inFlightAtDeadline, long lateArrivals) {
+            this.interfaceName = interfaceName;
+            this.durationMs = durationMs;
+            this.inFlightAtDeadline = inFlightAtDeadline;
+            this.lateArrivals = lateArrivals;
+        }
+
+        public boolean isDrained() {
+            return inFlightAtDeadline == 0;
+        }
+
+        public long getDurationMs() {
+            return durationMs;
+        }
+
+        public int getInFlightAtDeadline() {
+            return inFlightAtDeadline;
+        }
+
+        public long getLateArrivals() {
+            return lateArrivals;
+        }
+
+        public int getDropped() {
+            return dropped;
+        }
+
+        /**
+         * 排空超时后仍被unexport强制中断的调用数
+         */
+        public void markDropped() {
+            this.dropped = inFlightAtDeadline;
+        }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("service", interfaceName);
+            map.put("drained", isDrained());
+            map.put("durationMs", durationMs);
+            map.put("inFlightAtDeadline", inFlightAtDeadline);
+            map.put("lateArrivals", lateArrivals);
+            map.put("dropped", dropped);
+            return map;
+        }
+    }
+}
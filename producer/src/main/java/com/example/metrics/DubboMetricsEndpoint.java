@@ -0,0 +1,34 @@
+package com.example.metrics;
+
+import com.example.cache.ProviderCacheRegistry;
+import com.example.executor.LaneExecutors;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Dubbo调用指标端点：/actuator/dubbometrics
+ * 本节点作为提供者的耗时，按节点类型和灰度标签分组，与其他节点的数据并列即可对比GRAY和PRD
+ */
+@Component
+@Endpoint(id = "dubbometrics")
+public class DubboMetricsEndpoint {
+
+    @Value("${spring.application.name:default-service}")
+    private String serviceName;
+
+    @ReadOperation
+    public Map<String, Object> metrics() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("service", serviceName);
+        result.put("side", "provider");
+        result.put("interfaces", DubboMetricsRegistry.snapshot());
+        result.put("cache", ProviderCacheRegistry.snapshot());
+        result.put("lanePools", LaneExecutors.snapshot());
+        return result;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.service;
+
+import org.apache.dubbo.common.stream.StreamObserver;
+
+import java.util.List;
+
+/**
+ * 基于Triple协议的流式服务，逐条返回大批量查询结果
+ */
+public interface DubboDemoStreamService {
+
+    /**
+     * 服务端流：每个consumerName返回一条结果，全部发送后结束流
+     */
+    void streamServiceInfo(List<String> consumerNames, StreamObserver<String> responseObserver);
+}
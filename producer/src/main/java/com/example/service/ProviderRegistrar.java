@@ -0,0 +1,49 @@
+package com.example.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.config.ServiceConfig;
+import org.apache.dubbo.registry.Registry;
+import org.apache.dubbo.registry.RegistryFactory;
+import org.apache.dubbo.rpc.model.ProviderModel;
+
+/**
+ * 只操作注册中心的提供者上下线（与Dubbo QoS的online/offline命令一致）
+ * 已导出服务的Exporter、Invoker和协议端口保持不变，节点重新上线只需注册中心传播时间。
+ */
+@Slf4j
+public final class ProviderRegistrar {
+
+    private ProviderRegistrar() {
+    }
+
+    /**
+     * 将已导出服务的所有注册URL注册或注销
+     * @return false表示服务尚未导出，无法仅通过注册中心切换
+     */
+    public static boolean setRegistered(ServiceConfig<?> service, boolean registered) {
+        ProviderModel providerModel = service.getScopeModel().getServiceRepository()
+                .lookupExportedService(service.getUniqueServiceName());
+        if (providerModel == null || providerModel.getStatedUrl().isEmpty()) {
+            return false;
+        }
+        for (ProviderModel.RegisterStatedURL statedUrl : providerModel.getStatedUrl()) {
+            if (statedUrl.isRegistered() == registered) {
+                continue;
+            }
+            URL registryUrl = statedUrl.getRegistryUrl();
+            Registry registry = registryUrl.getOrDefaultApplicationModel()
+                    .getAdaptiveExtension(RegistryFactory.class)
+                    .getRegistry(registryUrl);
+            if (registered) {
+                registry.register(statedUrl.getProviderUrl());
+            } else {
+                registry.unregister(statedUrl.getProviderUrl());
+            }
+            statedUrl.setRegistered(registered);
+            log.info("{} {} on {}", registered ? "Registered" : "Unregistered",
+                    service.getUniqueServiceName(), registryUrl.getAddress());
+        }
+        return true;
+    }
+}
@@ -0,0 +1,240 @@
+package com.example.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.recipes.cache.ChildData;
+import org.apache.curator.framework.recipes.cache.PathChildrenCache;
+import org.apache.curator.utils.ZKPaths;
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.constants.CommonConstants;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于ZooKeeper Watch的提供者注册视图
+ * 监听 /dubbo/{interface}/providers 下的子节点，URL只在节点变化时解析一次，
+ * 注册状态检查是常数时间的内存查找，导出/注销后可以等待注册事件到达而不是轮询ZooKeeper。
+ */
+@Slf4j
+public class ProviderRegistryView implements Closeable {
+
+    /**
+     * 解析后的提供者节点
+     */
+    public static final class ProviderEntry {
+        private final String interfaceName;
+        private final String host;
+        private final int port;
+        private final String version;
+        private final String group;
+        private final String tag;
+
+        ProviderEntry(String interfaceName, String host, int port, String version, String group, String tag) {
+            this.interfaceName = interfaceName;
+            this.host = host;
+            this.port = port;
+            this.version = version;
+            this.group = group;
+            this.tag = tag;
+        }
+
+        static ProviderEntry parse(String interfaceName, String node) {
+            URL url = URL.valueOf(URL.decode(node));
+            return new ProviderEntry(interfaceName, url.getHost(), url.getPort(),
+                    url.getParameter(CommonConstants.VERSION_KEY),
+                    url.getParameter(CommonConstants.GROUP_KEY),
+                    url.getParameter(CommonConstants.TAG_KEY));
+        }
+
+        String key() {
+            return keyOf(interfaceName, group, version, host, port);
+        }
+
+        public String getInterfaceName() {
+            return interfaceName;
+        }
+
+        public String getHost() {
+            return host;
+        }
+
+        public int getPort() {
+            return port;
+        }
+
+        public String getVersion() {
+            return version;
+        }
+
+        public String getGroup() {
+            return group;
+        }
+
+        public String getTag() {
+            return tag;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("address", host + ":" + port);
+            map.put("version", version);
+            map.put("group", group);
+            map.put("tag", tag);
+            return map;
+        }
+    }
+
+    private final CuratorFramework client;
+    private final Map<String, PathChildrenCache> caches = new ConcurrentHashMap<>();
+    // 节点全路径 -> 解析结果
+    private final Map<String, ProviderEntry> entriesByPath = new ConcurrentHashMap<>();
+    // interface|group|version|host:port -> 节点全路径集合
+    private final Map<String, Set<String>> pathsByKey = new ConcurrentHashMap<>();
+    private final Object monitor = new Object();
+
+    public ProviderRegistryView(CuratorFramework client) {
+        this.client = client;
+    }
+
+    static String keyOf(String interfaceName, String group, String version, String host, int port) {
+        return interfaceName + "|" + nullToEmpty(group) + "|" + nullToEmpty(version) + "|" + host + ":" + port;
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    /**
+     * 开始监听指定接口的提供者节点，重复调用无副作用
+     */
+    public void watch(String interfaceName) throws Exception {
+        if (caches.containsKey(interfaceName)) {
+            return;
+        }
+        String path = "/dubbo/" + interfaceName + "/providers";
+        PathChildrenCache cache = new PathChildrenCache(client, path, false);
+        if (caches.putIfAbsent(interfaceName, cache) != null) {
+            return;
+        }
+        cache.getListenable().addListener((c, event) -> {
+            ChildData data = event.getData();
+            switch (event.getType()) {
+                case CHILD_ADDED:
+                case CHILD_UPDATED:
+                    add(interfaceName, data.getPath());
+                    break;
+                case CHILD_REMOVED:
+                    remove(data.getPath());
+                    break;
+                default:
+                    return;
+            }
+            synchronized (monitor) {
+                monitor.notifyAll();
+            }
+        });
+        cache.start(PathChildrenCache.StartMode.BUILD_INITIAL_CACHE);
+        for (ChildData data : cache.getCurrentData()) {
+            add(interfaceName, data.getPath());
+        }
+        log.info("Watching provider registry at: {}", path);
+    }
+
+    private void add(String interfaceName, String path) {
+        if (entriesByPath.containsKey(path)) {
+            return;
+        }
+        try {
+            ProviderEntry entry = ProviderEntry.parse(interfaceName, ZKPaths.getNodeFromPath(path));
+            entriesByPath.put(path, entry);
+            pathsByKey.computeIfAbsent(entry.key(), k -> ConcurrentHashMap.newKeySet()).add(path);
+            log.debug("Provider registered: {}", entry.key());
+        } catch (Exception e) {
+            log.warn("Ignoring unparseable provider node: {}", path, e);
+        }
+    }
+
+    private void remove(String path) {
+        ProviderEntry entry = entriesByPath.remove(path);
+        if (entry == null) {
+            return;
+        }
+        pathsByKey.computeIfPresent(entry.key(), (k, paths) -> {
+            paths.remove(path);
+            return paths.isEmpty() ? null : paths;
+        });
+        log.debug("Provider unregistered: {}", entry.key());
+    }
+
+    /**
+     * 指定地址的提供者当前是否已注册
+     */
+    public boolean isRegistered(String interfaceName, String group, String version, String host, int port) {
+        return pathsByKey.containsKey(keyOf(interfaceName, group, version, host, port));
+    }
+
+    /**
+     * 等待注册状态变为期望值，返回最终是否达到期望值
+     */
+    public boolean awaitRegistered(String interfaceName, String group, String version, String host, int port,
+                                   boolean expected, long timeoutMs) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        synchronized (monitor) {
+            while (isRegistered(interfaceName, group, version, host, port) != expected) {
+                long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remainingMs <= 0) {
+                    return false;
+                }
+                monitor.wait(remainingMs);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 指定接口当前的所有提供者
+     */
+    public List<ProviderEntry> getProviders(String interfaceName) {
+        List<ProviderEntry> providers = new ArrayList<>();
+        for (ProviderEntry entry : entriesByPath.values()) {
+            if (entry.getInterfaceName().equals(interfaceName)) {
+                providers.add(entry);
+            }
+        }
+        return providers;
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        for (String interfaceName : caches.keySet()) {
+            List<Map<String, Object>> providers = new ArrayList<>();
+            for (ProviderEntry entry : getProviders(interfaceName)) {
+                providers.add(entry.toMap());
+            }
+            snapshot.put(interfaceName, providers);
+        }
+        return snapshot;
+    }
+
+    @Override
+    public void close() {
+        for (PathChildrenCache cache : caches.values()) {
+            try {
+                cache.close();
+            } catch (IOException e) {
+                log.warn("Failed to close provider registry cache", e);
+            }
+        }
+        caches.clear();
+        entriesByPath.clear();
+        pathsByKey.clear();
+    }
+}
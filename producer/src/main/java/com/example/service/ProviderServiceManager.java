@@ -1,17 +1,27 @@
 package com.example.service;
 
+import com.example.cache.ProviderCacheRegistry;
+import com.example.config.ProviderTransitionProperties;
+import com.example.config.ProviderWarmupProperties;
+import com.example.config.ReleaseFlipProperties;
+import com.example.enums.ProviderToggleMode;
 import com.example.enums.ReleaseState;
+import com.example.filter.ProviderTrafficStats;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.curator.framework.CuratorFramework;
 import org.apache.curator.framework.CuratorFrameworkFactory;
 import org.apache.curator.framework.recipes.cache.NodeCache;
 import org.apache.curator.retry.ExponentialBackoffRetry;
 import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.utils.NetUtils;
 import org.apache.dubbo.config.RegistryConfig;
 import org.apache.dubbo.config.ServiceConfig;
+import org.apache.dubbo.rpc.model.ProviderModel;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
@@ -20,6 +30,7 @@ import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.locks.ReentrantLock;
 
 @Slf4j
@@ -45,20 +56,47 @@ public class ProviderServiceManager {
 
     private final ReentrantLock statusLock = new ReentrantLock();
 
+    @Autowired
+    private ReleaseFlipProperties releaseFlipProperties;
+
+    private ReleaseTransitionCoordinator transitionCoordinator;
+
     @Autowired
     private List<ServiceConfig<?>> serviceConfigs;
 
+    @Autowired
+    private ProviderTransitionProperties providerTransitionProperties;
+
+    private ServiceTransitionExecutor transitionExecutor;
+
+    @Autowired
+    private ProviderWarmupProperties providerWarmupProperties;
+
+    private WeightRampManager weightRampManager;
+
+    // 最近一次批量导出/注销的结果
+    private volatile ServiceTransitionExecutor.TransitionReport lastStartReport;
+    private volatile ServiceTransitionExecutor.TransitionReport lastStopReport;
+
+    // 接口 -> 最近一次下线排空结果
+    private final Map<String, ProviderTrafficStats.DrainResult> lastDrainResults = new ConcurrentHashMap<>();
+
     // 修复关键：记录每个服务的真实状态
     private final Map<String, ServiceStatus> serviceStatusMap = new ConcurrentHashMap<>();
-    private final Set<String> registryCache = new HashSet<>();
+    private ProviderRegistryView registryView;
+    // 接口 -> 注册到ZK的提供者URL（服务可能导出在不同协议和端口上）
+    private final Map<String, URL> registeredUrls = new ConcurrentHashMap<>();
     
-    // 修复：确保协议端口一致
-    @Value("${dubbo.protocol.port}")
+    // 修复：确保协议端口一致（服务尚未导出时的默认端口）
+    @Value("${dubbo.protocols.dubbo.port}")
     private int protocolPort;
 
     // 记录上次ZK节点数据，避免重复处理
     private volatile String lastZkState = "";
 
+    // 上一次切换是否被中途取代
+    private volatile boolean transitionIncomplete = false;
+
     private static class ServiceStatus {
         volatile boolean shouldBeRegistered;
         volatile boolean actuallyRegistered;
@@ -89,6 +127,24 @@ public class ProviderServiceManager {
             curatorFramework.blockUntilConnected();
             log.info("Successfully connected to ZooKeeper");
 
+            // 服务列表会在并行导出时被替换，改为线程安全的副本
+            serviceConfigs = new CopyOnWriteArrayList<>(serviceConfigs);
+            transitionExecutor = new ServiceTransitionExecutor(providerTransitionProperties);
+
+            // 监听本节点服务的提供者节点，替代逐次getChildren查询
+            registryView = new ProviderRegistryView(curatorFramework);
+            for (ServiceConfig<?> service : serviceConfigs) {
+                registryView.watch(service.getInterface());
+            }
+
+            weightRampManager = new WeightRampManager(curatorFramework, providerWarmupProperties, service -> {
+                URL providerUrl = registeredUrl(service);
+                return providerUrl != null ? providerUrl.getHost() + ":" + providerUrl.getPort() : null;
+            });
+
+            transitionCoordinator = new ReleaseTransitionCoordinator("provider-" + serviceName,
+                    releaseFlipProperties, this::handleReleaseStateChange);
+
             // 2. 设置状态监听器
             setupReleaseStateListener();
 
@@ -121,7 +177,8 @@ public class ProviderServiceManager {
                 // 修复：避免重复处理相同状态
                 if (!newState.equals(lastZkState)) {
                     lastZkState = newState;
-                    handleReleaseStateChange(ReleaseState.valueOf(newState));
+                    // 交给协调器去抖，避免短时间内反复导出/注销
+                    transitionCoordinator.submit(ReleaseState.valueOf(newState));
                 } else {
                     log.info("Skipping duplicate state change for service {}: {}", serviceName, newState);
                 }
@@ -139,10 +196,10 @@ public class ProviderServiceManager {
                 String currentState = new String(data);
                 log.info("Initial state for service {}: {}, processing for node type: {}", serviceName, currentState, nodeType);
                 lastZkState = currentState;
-                handleReleaseStateChange(ReleaseState.valueOf(currentState));
+                transitionCoordinator.applyNow(ReleaseState.valueOf(currentState));
             } else {
                 log.warn("No data in release state node for service {}, using default state", serviceName);
-                handleReleaseStateChange(ReleaseState.ALL_ACCESSABLE);
+                transitionCoordinator.applyNow(ReleaseState.ALL_ACCESSABLE);
             }
         } catch (Exception e) {
             log.error("Failed to check release state for service: {}", serviceName, e);
@@ -152,12 +209,14 @@ public class ProviderServiceManager {
         }
     }
 
-    private void handleReleaseStateChange(ReleaseState newState) {
+    private void handleReleaseStateChange(ReleaseState newState, ReleaseTransitionCoordinator.Transition transition) {
         statusLock.lock();
         try {
+            // 缓存的结果属于旧的发布状态，无论本节点是否上下线都要清空
+            ProviderCacheRegistry.invalidateAll("release state changed to " + newState);
             boolean shouldBeOnline = determineServiceStatus(newState);
             
-            if (shouldBeOnline == isServiceOnline) {
+            if (shouldBeOnline == isServiceOnline && !transitionIncomplete) {
                 log.info("Service status unchanged ({}). Skipping operation.", 
                          shouldBeOnline ? "ONLINE" : "OFFLINE");
                 return;
@@ -170,13 +229,47 @@ public class ProviderServiceManager {
             
             isServiceOnline = shouldBeOnline;
             
+            boolean warmup = providerWarmupProperties.isEnabled();
             if (shouldBeOnline) {
-                registerService();
+                if (warmup) {
+                    weightRampManager.prepareOnline(serviceConfigs);
+                }
+                registerService(transition);
+                if (warmup && !transition.isSuperseded()) {
+                    weightRampManager.startRampUp(serviceConfigs);
+                }
                 log.info("Services set to ONLINE for node: {}", nodeType);
             } else {
-                unregisterService();
+                // 降权在调度线程上进行，降完再注销；期间不持有statusLock，新的切换可以随时取消它
+                if (warmup && weightRampManager.rampDown(serviceConfigs, transition,
+                        () -> completeOffline(transition))) {
+                    transitionIncomplete = true;
+                    log.info("Services ramping down before going OFFLINE for node: {}", nodeType);
+                    return;
+                }
+                unregisterService(transition);
                 log.info("Services set to OFFLINE for node: {}", nodeType);
             }
+
+            // 被新状态中途取代时只处理了部分服务，下一次切换必须重新处理
+            transitionIncomplete = transition.isSuperseded();
+        } finally {
+            statusLock.unlock();
+        }
+    }
+
+    /**
+     * 降权完成后注销服务，期间已被新的切换取代时不做处理
+     */
+    private void completeOffline(ReleaseTransitionCoordinator.Transition transition) {
+        statusLock.lock();
+        try {
+            if (transition.isSuperseded() || isServiceOnline) {
+                return;
+            }
+            unregisterService(transition);
+            transitionIncomplete = transition.isSuperseded();
+            log.info("Services set to OFFLINE for node: {}", nodeType);
         } finally {
             statusLock.unlock();
         }
@@ -202,20 +295,20 @@ public class ProviderServiceManager {
         return result;
     }
 
-    private void registerService() {
+    private void registerService(ReleaseTransitionCoordinator.Transition transition) {
         try {
             log.info("Registering services via Dubbo API...");
-            startAllServices();
+            startAllServices(transition);
             log.info("Service registration complete");
         } catch (Exception e) {
             log.error("Failed to register services", e);
         }
     }
 
-    private void unregisterService() {
+    private void unregisterService(ReleaseTransitionCoordinator.Transition transition) {
         try {
             log.info("Unregistering services via Dubbo API...");
-            stopAllServices();
+            stopAllServices(transition);
             log.info("Service unregistration complete");
         } catch (Exception e) {
             log.error("Failed to unregister services", e);
@@ -227,7 +320,7 @@ public class ProviderServiceManager {
         log.warn("Performing safe service shutdown");
         statusLock.lock();
         try {
-            stopAllServices();
+            stopAllServices(ReleaseTransitionCoordinator.Transition.unconditional(null));
             isServiceOnline = false;
         } finally {
             statusLock.unlock();
@@ -243,17 +336,29 @@ public class ProviderServiceManager {
                 releaseStateCache.close();
                 log.info("ZK state listener closed");
             }
+            if (transitionCoordinator != null) {
+                transitionCoordinator.shutdown();
+            }
+            if (weightRampManager != null) {
+                weightRampManager.shutdown();
+            }
+            // 注销时要等待注册中心确认和连接排空，注册视图和ZooKeeper连接须在注销之后关闭
+            safeUnregisterAllServices();
+            if (transitionExecutor != null) {
+                transitionExecutor.shutdown();
+            }
+            if (registryView != null) {
+                registryView.close();
+            }
             if (curatorFramework != null) {
                 curatorFramework.close();
                 log.info("ZK connection closed");
             }
-            // 最后注销服务
-            safeUnregisterAllServices();
         } catch (Exception e) {
             log.error("Error during cleanup", e);
         } finally {
             // 修复：清除所有服务状态
-            registryCache.clear();
+            registeredUrls.clear();
             serviceStatusMap.clear();
         }
     }
@@ -262,63 +367,97 @@ public class ProviderServiceManager {
         return isServiceOnline;
     }
 
-    private void startAllServices() {
+    /**
+     * 获取发布状态切换的快照（生效状态、最近一次切换耗时等）
+     */
+    public Map<String, Object> getTransitionSnapshot() {
+        Map<String, Object> snapshot = transitionCoordinator.snapshot();
+        snapshot.put("serviceOnline", isServiceOnline);
+        if (lastStartReport != null) {
+            snapshot.put("lastExport", lastStartReport.toMap());
+        }
+        if (lastStopReport != null) {
+            snapshot.put("lastUnexport", lastStopReport.toMap());
+        }
+        if (registryView != null) {
+            snapshot.put("registry", registryView.snapshot());
+        }
+        if (weightRampManager != null) {
+            snapshot.put("weight", weightRampManager.snapshot());
+        }
+        List<Map<String, Object>> drains = new ArrayList<>();
+        for (ProviderTrafficStats.DrainResult drain : lastDrainResults.values()) {
+            drains.add(drain.toMap());
+        }
+        snapshot.put("lastDrain", drains);
+        return snapshot;
+    }
+
+    private void startAllServices(ReleaseTransitionCoordinator.Transition transition) {
         log.info("Starting services for node: {}", nodeType);
-        int startedCount = 0;
 
         // 修复：创建服务副本列表用于遍历
         List<ServiceConfig<?>> servicesToProcess = new ArrayList<>(serviceConfigs);
 
-        for (ServiceConfig<?> service : servicesToProcess) {
-            String serviceKey = service.getInterface();
-            ServiceStatus status = serviceStatusMap.computeIfAbsent(
-                    serviceKey, k -> new ServiceStatus(true)
-            );
-            status.shouldBeRegistered = true;
-
-            try {
-                // 修复：总是先尝试注销（确保刷新状态）
-                if (service.isExported()) {
-                    service.unexport();
-                }
+        ServiceTransitionExecutor.TransitionReport report =
+                transitionExecutor.runAll("export", servicesToProcess, this::startService, transition);
+        lastStartReport = report;
 
-                // 重新导出服务
-                service.export();
+        int startedCount = report.count(ServiceTransitionExecutor.Status.SUCCESS);
+        if (startedCount > 0) {
+            log.info("Successfully started {} Dubbo services", startedCount);
+        } else {
+            log.error("No services successfully started!");
+        }
+    }
 
-                // 检查注册情况
-                if (isRegisteredInZk(service)) {
-                    startedCount++;
-                    status.actuallyRegistered = true;
-                    log.info("Exported service: {} -> SUCCESS", serviceKey);
-                } else {
-                    log.error("Failed to register service in ZK: {}", serviceKey);
-                    status.actuallyRegistered = false;
+    private boolean startService(ServiceConfig<?> service) {
+        String serviceKey = service.getInterface();
+        ServiceStatus status = serviceStatusMap.computeIfAbsent(
+                serviceKey, k -> new ServiceStatus(true)
+        );
+        status.shouldBeRegistered = true;
+        ProviderTrafficStats.forService(serviceKey).resume();
+
+        // 注册中心模式：服务已导出时只重新注册URL，Exporter保持不变
+        if (isRegistryMode() && ProviderRegistrar.setRegistered(service, true)) {
+            status.actuallyRegistered = awaitRegistration(service, true);
+            if (status.actuallyRegistered) {
+                log.info("Registered service: {} -> SUCCESS", serviceKey);
+            } else {
+                log.error("Service not visible in ZK after register: {}", serviceKey);
+            }
+            return status.actuallyRegistered;
+        }
 
-                    // 修复：需要重新导出的服务单独处理
-                    if (shouldReexportOnFailure(service)) {
-                        reExportService(service);
-                    }
-                }
-            } catch (Exception e) {
-                log.error("Failed to export service: {}", serviceKey, e);
-                status.actuallyRegistered = false;
+        try {
+            // 修复：总是先尝试注销（确保刷新状态）
+            if (service.isExported()) {
+                service.unexport();
+            }
 
-                // 修复：需要重新导出的服务单独处理
-                if (shouldReexportOnFailure(service)) {
-                    reExportService(service);
-                }
+            // 重新导出服务
+            service.export();
+
+            // 等待注册事件确认
+            if (awaitRegistration(service, true)) {
+                status.actuallyRegistered = true;
+                log.info("Exported service: {} -> SUCCESS", serviceKey);
+                return true;
             }
+            log.error("Failed to register service in ZK: {}", serviceKey);
+            status.actuallyRegistered = false;
+        } catch (Exception e) {
+            log.error("Failed to export service: {}", serviceKey, e);
+            status.actuallyRegistered = false;
         }
 
-        if (startedCount > 0) {
-            log.info("Successfully started {} Dubbo services", startedCount);
-        } else {
-            log.error("No services successfully started!");
-        }
+        // 修复：需要重新导出的服务单独处理
+        return shouldReexportOnFailure(service) && reExportService(service);
     }
 
     // 修复：避免在遍历过程中修改原始列表
-    private void reExportService(ServiceConfig<?> service) {
+    private boolean reExportService(ServiceConfig<?> service) {
         try {
             String serviceKey = service.getInterface();
             log.warn("Re-exporting service: {}", serviceKey);
@@ -344,118 +483,189 @@ public class ProviderServiceManager {
             updateServiceConfig(service, newServiceConfig);
 
             log.info("Successfully re-exported service: {}", serviceKey);
-            registryCache.remove(serviceKey);
+            registeredUrls.remove(serviceKey);
+            return true;
         } catch (Exception e) {
             log.error("Failed to re-export service: {}", service.getInterface(), e);
+            return false;
         }
     }
 
-    // 修复：线程安全地更新服务配置
+    // 修复：线程安全地更新服务配置（serviceConfigs为CopyOnWriteArrayList，切换线程持有statusLock时也可在工作线程中调用）
     private void updateServiceConfig(ServiceConfig<?> oldService, ServiceConfig<?> newService) {
-        statusLock.lock();
-        try {
-            // 从列表中移除旧服务配置
-            serviceConfigs.remove(oldService);
+        // 从列表中移除旧服务配置
+        serviceConfigs.remove(oldService);
 
-            // 添加新服务配置
-            serviceConfigs.add(newService);
+        // 添加新服务配置
+        serviceConfigs.add(newService);
 
-            // 更新状态映射
-            ServiceStatus status = serviceStatusMap.get(oldService.getInterface());
-            if (status != null) {
-                serviceStatusMap.put(newService.getInterface(), status);
-            }
-        } finally {
-            statusLock.unlock();
+        // 更新状态映射
+        ServiceStatus status = serviceStatusMap.get(oldService.getInterface());
+        if (status != null) {
+            serviceStatusMap.put(newService.getInterface(), status);
         }
     }
 
     // 判断是否需要重新导出
     private boolean shouldReexportOnFailure(ServiceConfig<?> service) {
-        // 根据实际情况添加判断条件
-        return true;
+        // 注册中心模式下不重建ServiceConfig，避免服务列表反复替换
+        return !isRegistryMode();
+    }
+
+    private boolean isRegistryMode() {
+        return providerTransitionProperties.getMode() == ProviderToggleMode.REGISTRY;
+    }
+
+    /**
+     * Dubbo在容器刷新后才导出并注册服务，若此时本节点应处于下线状态，需要补一次下线
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileAfterStartup() {
+        if (!isServiceOnline) {
+            log.info("Node should be OFFLINE after startup, unregistering services exported by Dubbo");
+            safeUnregisterAllServices();
+        }
     }
 
     /**
      * 停止所有Dubbo服务（关键修复版）
      */
-    private void stopAllServices() {
+    private void stopAllServices(ReleaseTransitionCoordinator.Transition transition) {
         log.info("Stopping services for node: {}", nodeType);
-        int stoppedCount = 0;
-        
-        for (ServiceConfig<?> service : serviceConfigs) {
-            String serviceKey = service.getInterface();
-            ServiceStatus status = serviceStatusMap.computeIfAbsent(
-                serviceKey, k -> new ServiceStatus(false)
-            );
-            status.shouldBeRegistered = false;
-            
-            try {
-                if (service.isExported()) {
-                    service.unexport();
-                    stoppedCount++;
-                    log.info("Unexported service: {}", serviceKey);
-                    
-                    // 验证是否从ZK注销
-                    if (!isRegisteredInZk(service)) {
-                        status.actuallyRegistered = false;
-                        log.info("Successfully unregistered service: {}", serviceKey);
-                    } else {
-                        log.error("Service still registered in ZK after unexport: {}", serviceKey);
-                        status.actuallyRegistered = true;
-                    }
-                } else {
-                    log.debug("Service was not exported: {}", serviceKey);
-                }
-            } catch (Exception e) {
-                log.error("Failed to unexport service: {}", serviceKey, e);
-            }
-        }
-        
+
+        ServiceTransitionExecutor.TransitionReport report =
+                transitionExecutor.runAll("unexport", new ArrayList<>(serviceConfigs), this::stopService, transition);
+        lastStopReport = report;
+
+        int stoppedCount = report.count(ServiceTransitionExecutor.Status.SUCCESS);
         if (stoppedCount > 0) {
             log.info("Successfully stopped {} Dubbo services", stoppedCount);
         } else {
             log.info("All services are already stopped");
         }
     }
-    
+
+    private boolean stopService(ServiceConfig<?> service) {
+        String serviceKey = service.getInterface();
+        ServiceStatus status = serviceStatusMap.computeIfAbsent(
+            serviceKey, k -> new ServiceStatus(false)
+        );
+        status.shouldBeRegistered = false;
+
+        if (!service.isExported()) {
+            log.debug("Service was not exported: {}", serviceKey);
+            return false;
+        }
+
+        // 先从注册中心摘除，消费者不再路由到本节点后再排空在途调用
+        if (!ProviderRegistrar.setRegistered(service, false)) {
+            service.unexport();
+            log.info("Unexported service without draining: {}", serviceKey);
+            return confirmUnregistered(service, status);
+        }
+        boolean confirmed = confirmUnregistered(service, status);
+
+        ProviderTrafficStats.DrainResult drain = drainService(serviceKey);
+        if (isRegistryMode()) {
+            log.info("Unregistered service (exporter kept warm): {}", serviceKey);
+        } else {
+            if (!drain.isDrained()) {
+                drain.markDropped();
+            }
+            service.unexport();
+            log.info("Unexported service: {}", serviceKey);
+        }
+        return confirmed;
+    }
+
+    private boolean confirmUnregistered(ServiceConfig<?> service, ServiceStatus status) {
+        String serviceKey = service.getInterface();
+        // 等待注销事件确认
+        if (awaitRegistration(service, false)) {
+            status.actuallyRegistered = false;
+            log.info("Successfully unregistered service: {}", serviceKey);
+            return true;
+        }
+        log.error("Service still registered in ZK after unexport: {}", serviceKey);
+        status.actuallyRegistered = true;
+        return false;
+    }
+
+    /**
+     * 等待服务的在途调用完成（有超时），记录排空耗时和未完成的调用数
+     */
+    private ProviderTrafficStats.DrainResult drainService(String serviceKey) {
+        ProviderTrafficStats.ServiceTraffic traffic = ProviderTrafficStats.forService(serviceKey);
+        ProviderTrafficStats.DrainResult result;
+        try {
+            result = traffic.drain(providerTransitionProperties.getDrainQuietPeriodMs(),
+                    providerTransitionProperties.getDrainTimeoutMs());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result = new ProviderTrafficStats.DrainResult(serviceKey, 0, traffic.getActive(), 0);
+        }
+        lastDrainResults.put(serviceKey, result);
+        if (result.isDrained()) {
+            log.info("Drained service {} in {} ms ({} late arrivals)", serviceKey, result.getDurationMs(),
+                    result.getLateArrivals());
+        } else {
+            log.warn("Drain timed out for service {} after {} ms with {} calls in flight", serviceKey,
+                    result.getDurationMs(), result.getInFlightAtDeadline());
+        }
+        return result;
+    }
+
     /**
-     * 修复关键：检查服务是否实际在ZK注册
+     * 检查服务是否实际在ZK注册（基于Watch的内存视图，常数时间，不读ZK）
      */
     private boolean isRegisteredInZk(ServiceConfig<?> service) {
+        return registryView.isRegistered(service.getInterface(), service.getGroup(), service.getVersion(),
+                registeredHost(service), registeredPort(service));
+    }
+
+    /**
+     * 等待注册中心事件确认服务的注册状态
+     */
+    private boolean awaitRegistration(ServiceConfig<?> service, boolean expected) {
         try {
-            String serviceKey = getServicePath(service);
-            
-            // 修复：使用缓存避免过多ZK查询
-            if (registryCache.contains(serviceKey)) {
-                return true;
-            }
-            
-            // 实际检查ZK节点
-            String zkPath = String.format("/dubbo/%s/providers", 
-                    service.getInterface());
-            List<String> providers = curatorFramework.getChildren().forPath(zkPath);
-            
-            boolean registered = providers.stream()
-                .anyMatch(url -> url.contains(":" + protocolPort) && url.contains(service.getInterface()));
-            
-            if (registered) {
-                registryCache.add(serviceKey);
-            } else {
-                registryCache.remove(serviceKey);
-            }
-            
-            return registered;
-        } catch (Exception e) {
-            log.error("Failed to check registration status for service {}", service.getInterface(), e);
-            return false;
+            return registryView.awaitRegistered(service.getInterface(), service.getGroup(), service.getVersion(),
+                    registeredHost(service), registeredPort(service), expected,
+                    providerTransitionProperties.getRegistryConfirmTimeoutMs());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return isRegisteredInZk(service) == expected;
         }
     }
-    
-    private String getServicePath(ServiceConfig<?> service) {
-        return String.format("%s:%s:%d",
-                service.getInterface(),
-                service.getVersion(),
-                protocolPort);
+
+    /**
+     * 服务注册到ZK时使用的主机地址：优先取Dubbo实际注册的URL，未导出时退回本机地址
+     */
+    private String registeredHost(ServiceConfig<?> service) {
+        URL providerUrl = registeredUrl(service);
+        return providerUrl != null ? providerUrl.getHost() : NetUtils.getLocalHost();
+    }
+
+    /**
+     * 服务注册到ZK时使用的端口：优先取Dubbo实际注册的URL，未导出时退回默认协议端口
+     */
+    private int registeredPort(ServiceConfig<?> service) {
+        URL providerUrl = registeredUrl(service);
+        return providerUrl != null ? providerUrl.getPort() : protocolPort;
+    }
+
+    private URL registeredUrl(ServiceConfig<?> service) {
+        URL cached = registeredUrls.get(service.getInterface());
+        if (cached != null) {
+            return cached;
+        }
+        ProviderModel providerModel = service.getScopeModel().getServiceRepository()
+                .lookupExportedService(service.getUniqueServiceName());
+        if (providerModel == null || providerModel.getStatedUrl().isEmpty()) {
+            return null;
+        }
+        // 每个服务只绑定一个协议，取第一个注册URL即可
+        URL providerUrl = providerModel.getStatedUrl().get(0).getProviderUrl();
+        registeredUrls.put(service.getInterface(), providerUrl);
+        return providerUrl;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,242 @@
+package com.example.service;
+
+import com.example.config.ReleaseFlipProperties;
+import com.example.enums.ReleaseState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 发布状态切换协调器
+ * 对ZooKeeper的状态通知做去抖（settle window）和最小驻留（min dwell）控制，
+ * 所有切换在单线程上串行执行；新的切换请求会取消尚未执行的请求，并让正在执行的切换尽快放弃。
+ */
+public class ReleaseTransitionCoordinator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReleaseTransitionCoordinator.class);
+
+    /**
+     * 切换动作，实现方应在耗时步骤之间检查 {@link Transition#isSuperseded()}
+     */
+    public interface TransitionHandler {
+        void apply(ReleaseState state, Transition transition) throws Exception;
+    }
+
+    /**
+     * 一次切换请求
+     */
+    public static final class Transition {
+        private final ReleaseState target;
+        private final long requestedAt;
+        private final long generation;
+        private final AtomicLong currentGeneration;
+
+        private Transition(ReleaseState target, long requestedAt, long generation, AtomicLong currentGeneration) {
+            this.target = target;
+            this.requestedAt = requestedAt;
+            this.generation = generation;
+            this.currentGeneration = currentGeneration;
+        }
+
+        /**
+         * 不受协调器控制、不会被取代的切换（用于关闭等场景）
+         */
+        public static Transition unconditional(ReleaseState target) {
+            return new Transition(target, System.currentTimeMillis(), 0, null);
+        }
+
+        public ReleaseState getTarget() {
+            return target;
+        }
+
+        public long getRequestedAt() {
+            return requestedAt;
+        }
+
+        /**
+         * 是否已被更新的切换请求取代
+         */
+        public boolean isSuperseded() {
+            return currentGeneration != null && currentGeneration.get() != generation;
+        }
+    }
+
+    private final String name;
+    private final ReleaseFlipProperties properties;
+    private final TransitionHandler handler;
+    private final ScheduledExecutorService executor;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private volatile ReleaseState effectiveState;
+    private volatile long effectiveSince;
+    private volatile ReleaseState requestedState;
+    private volatile ReleaseState pendingState;
+    private volatile ReleaseState runningState;
+    private volatile long lastTransitionLatencyMs = -1;
+    private volatile long lastTransitionAt;
+
+    private ScheduledFuture<?> pendingFuture;
+
+    private final AtomicLong appliedCount = new AtomicLong();
+    private final AtomicLong supersededCount = new AtomicLong();
+    private final AtomicLong suppressedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+
+    public ReleaseTransitionCoordinator(String name, ReleaseFlipProperties properties, TransitionHandler handler) {
+        this.name = name;
+        this.properties = properties;
+        this.handler = handler;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "release-transition-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 立即执行切换并等待完成，不经过去抖窗口（用于启动时的初始状态）
+     */
+    public void applyNow(ReleaseState state) {
+        Transition transition;
+        synchronized (this) {
+            requestedState = state;
+            cancelPending();
+            transition = new Transition(state, System.currentTimeMillis(), generation.incrementAndGet(), generation);
+        }
+        try {
+            executor.submit(() -> execute(transition)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            logger.error("[{}] Initial transition to {} failed", name, state, e.getCause());
+        }
+    }
+
+    /**
+     * 提交一次状态通知，在去抖窗口和最小驻留时间到期后执行
+     */
+    public synchronized void submit(ReleaseState state) {
+        long now = System.currentTimeMillis();
+        requestedState = state;
+
+        if (state == pendingState || (state == runningState && pendingFuture == null)) {
+            logger.debug("[{}] Transition to {} already in flight", name, state);
+            return;
+        }
+
+        if (cancelPending()) {
+            supersededCount.incrementAndGet();
+        }
+        Transition transition = new Transition(state, now, generation.incrementAndGet(), generation);
+        if (runningState != null) {
+            supersededCount.incrementAndGet();
+            logger.info("[{}] Superseding running transition to {} with {}", name, runningState, state);
+        }
+
+        if (state == effectiveState && runningState == null) {
+            suppressedCount.incrementAndGet();
+            logger.info("[{}] State reverted to effective state {} within settle window, nothing to do", name, state);
+            return;
+        }
+
+        long delay = properties.getSettleWindowMs();
+        if (effectiveState != null) {
+            long dwellRemaining = effectiveSince + properties.minDwellFor(effectiveState) - now;
+            delay = Math.max(delay, dwellRemaining);
+        }
+        delay = Math.max(delay, 0);
+
+        pendingState = state;
+        pendingFuture = executor.schedule(() -> execute(transition), delay, TimeUnit.MILLISECONDS);
+        logger.info("[{}] Scheduled transition {} -> {} in {} ms", name, effectiveState, state, delay);
+    }
+
+    private boolean cancelPending() {
+        if (pendingFuture == null) {
+            return false;
+        }
+        boolean cancelled = pendingFuture.cancel(false);
+        pendingFuture = null;
+        pendingState = null;
+        return cancelled;
+    }
+
+    private void execute(Transition transition) {
+        synchronized (this) {
+            if (transition.isSuperseded()) {
+                return;
+            }
+            pendingFuture = null;
+            pendingState = null;
+            runningState = transition.getTarget();
+        }
+        try {
+            handler.apply(transition.getTarget(), transition);
+            if (transition.isSuperseded()) {
+                logger.info("[{}] Transition to {} was superseded before completion", name, transition.getTarget());
+                return;
+            }
+            long now = System.currentTimeMillis();
+            effectiveState = transition.getTarget();
+            effectiveSince = now;
+            lastTransitionAt = now;
+            lastTransitionLatencyMs = now - transition.getRequestedAt();
+            appliedCount.incrementAndGet();
+            logger.info("[{}] Effective state is now {} (latency {} ms)", name, effectiveState, lastTransitionLatencyMs);
+        } catch (Exception e) {
+            failedCount.incrementAndGet();
+            logger.error("[{}] Transition to {} failed", name, transition.getTarget(), e);
+        } finally {
+            synchronized (this) {
+                runningState = null;
+            }
+        }
+    }
+
+    public ReleaseState getEffectiveState() {
+        return effectiveState;
+    }
+
+    public long getLastTransitionLatencyMs() {
+        return lastTransitionLatencyMs;
+    }
+
+    /**
+     * 当前协调器状态快照
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("name", name);
+        snapshot.put("effectiveState", effectiveState);
+        snapshot.put("effectiveSince", effectiveSince);
+        snapshot.put("requestedState", requestedState);
+        snapshot.put("pendingState", pendingState);
+        snapshot.put("runningState", runningState);
+        snapshot.put("lastTransitionAt", lastTransitionAt);
+        snapshot.put("lastTransitionLatencyMs", lastTransitionLatencyMs);
+        snapshot.put("appliedCount", appliedCount.get());
+        snapshot.put("supersededCount", supersededCount.get());
+        snapshot.put("suppressedCount", suppressedCount.get());
+        snapshot.put("failedCount", failedCount.get());
+        snapshot.put("settleWindowMs", properties.getSettleWindowMs());
+        snapshot.put("minDwellMs", properties.minDwellFor(effectiveState));
+        return snapshot;
+    }
+
+    public void shutdown() {
+        synchronized (this) {
+            cancelPending();
+            generation.incrementAndGet();
+        }
+        executor.shutdownNow();
+    }
+}
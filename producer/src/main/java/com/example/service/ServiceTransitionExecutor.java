@@ -0,0 +1,253 @@
+package com.example.service;
+
+import com.example.config.ProviderTransitionProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.dubbo.config.ServiceConfig;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 并行执行Dubbo服务的导出/注销
+ * 使用有界线程池，单个服务有独立超时，整体耗时接近最慢的单个服务而不是所有服务之和
+ */
+@Slf4j
+public class ServiceTransitionExecutor {
+
+    /**
+     * 针对单个服务的动作，返回true表示动作成功并已在注册中心确认
+     */
+    public interface ServiceAction {
+        boolean apply(ServiceConfig<?> service) throws Exception;
+    }
+
+    public enum Status {
+        SUCCESS, FAILED, TIMEOUT, SKIPPED
+    }
+
+    /**
+     * 单个服务的执行结果
+     * 结果只写入一次：工作线程和等待超时的调用线程谁先写入以谁为准，超时后工作线程的结果被忽略
+     */
+    public static final class ServiceResult {
+        private final String serviceKey;
+        private final AtomicReference<Outcome> outcome = new AtomicReference<>();
+
+        ServiceResult(String serviceKey) {
+            this.serviceKey = serviceKey;
+        }
+
+        /**
+         * 写入结果，已有结果时返回false
+         */
+        boolean complete(Status status, long durationMs, String error) {
+            return outcome.compareAndSet(null, new Outcome(status, durationMs, error));
+        }
+
+        public String getServiceKey() {
+            return serviceKey;
+        }
+
+        public Status getStatus() {
+            Outcome current = outcome.get();
+            return current != null ? current.status : Status.SKIPPED;
+        }
+
+        public long getDurationMs() {
+            Outcome current = outcome.get();
+            return current != null ? current.durationMs : 0;
+        }
+
+        public String getError() {
+            Outcome current = outcome.get();
+            return current != null ? current.error : null;
+        }
+
+        Map<String, Object> toMap() {
+            Outcome current = outcome.get();
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("service", serviceKey);
+            map.put("status", current != null ? current.status : Status.SKIPPED);
+            map.put("durationMs", current != null ? current.durationMs : 0);
+            if (current != null && current.error != null) {
+                map.put("error", current.error);
+            }
+            return map;
+        }
+    }
+
+    private static final class Outcome {
+        private final Status status;
+        private final long durationMs;
+        private final String error;
+
+        Outcome(Status status, long durationMs, String error) {
+            this.status = status;
+            this.durationMs = durationMs;
+            this.error = error;
+        }
+    }
+
+    /**
+     * 一次批量切换的汇总结果
+     */
+    public static final class TransitionReport {
+        private final String action;
+        private final long startedAt;
+        private final List<ServiceResult> results;
+        private volatile long totalMs;
+
+        TransitionReport(String action, List<ServiceResult> results) {
+            this.action = action;
+            this.startedAt = System.currentTimeMillis();
+            this.results = results;
+        }
+
+        public String getAction() {
+            return action;
+        }
+
+        public long getTotalMs() {
+            return totalMs;
+        }
+
+        public List<ServiceResult> getResults() {
+            return results;
+        }
+
+        public int count(Status status) {
+            int count = 0;
+            for (ServiceResult result : results) {
+                if (result.getStatus() == status) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        public long slowestMs() {
+            long slowest = 0;
+            for (ServiceResult result : results) {
+                slowest = Math.max(slowest, result.getDurationMs());
+            }
+            return slowest;
+        }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("action", action);
+            map.put("startedAt", startedAt);
+            map.put("totalMs", totalMs);
+            map.put("slowestServiceMs", slowestMs());
+            for (Status status : Status.values()) {
+                map.put(status.name().toLowerCase(), count(status));
+            }
+            List<Map<String, Object>> services = new ArrayList<>();
+            for (ServiceResult result : results) {
+                services.add(result.toMap());
+            }
+            map.put("services", services);
+            return map;
+        }
+    }
+
+    private final ProviderTransitionProperties properties;
+    private final ThreadPoolExecutor executor;
+
+    public ServiceTransitionExecutor(ProviderTransitionProperties properties) {
+        this.properties = properties;
+        int parallelism = Math.max(1, properties.getParallelism());
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(parallelism, parallelism, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(1024),
+                r -> {
+                    Thread thread = new Thread(r, "provider-transition-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * 对所有服务并行执行动作并等待结果
+     */
+    public TransitionReport runAll(String actionName, List<ServiceConfig<?>> services, ServiceAction action,
+                                   ReleaseTransitionCoordinator.Transition transition) {
+        long start = System.nanoTime();
+        int total = services.size();
+        List<ServiceResult> results = new ArrayList<>(total);
+        List<Future<?>> futures = new ArrayList<>(total);
+        TransitionReport report = new TransitionReport(actionName, results);
+        AtomicInteger completed = new AtomicInteger();
+
+        for (ServiceConfig<?> service : services) {
+            ServiceResult result = new ServiceResult(service.getInterface());
+            results.add(result);
+            futures.add(executor.submit(() -> {
+                if (transition.isSuperseded()) {
+                    return;
+                }
+                long serviceStart = System.nanoTime();
+                Status status;
+                String error = null;
+                try {
+                    status = action.apply(service) ? Status.SUCCESS : Status.FAILED;
+                } catch (Exception e) {
+                    status = Status.FAILED;
+                    error = e.getMessage();
+                    log.error("Failed to {} service: {}", actionName, result.getServiceKey(), e);
+                }
+                long durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - serviceStart);
+                if (result.complete(status, durationMs, error)) {
+                    log.info("[{} {}/{}] {} -> {} in {} ms", actionName, completed.incrementAndGet(), total,
+                            result.getServiceKey(), status, durationMs);
+                } else {
+                    log.warn("{} of service {} finished as {} after {} ms, already reported as {}", actionName,
+                            result.getServiceKey(), status, durationMs, result.getStatus());
+                }
+            }));
+        }
+
+        // 按"波次"计算整体截止时间：每波最多parallelism个服务，每个服务最多perServiceTimeoutMs
+        int waves = (total + executor.getMaximumPoolSize() - 1) / executor.getMaximumPoolSize();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(properties.getPerServiceTimeoutMs() * Math.max(1, waves));
+        for (int i = 0; i < futures.size(); i++) {
+            Future<?> future = futures.get(i);
+            ServiceResult result = results.get(i);
+            try {
+                future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                // 先写入超时结果再取消，被中断的工作线程无法再覆盖
+                result.complete(Status.TIMEOUT, properties.getPerServiceTimeoutMs(), null);
+                future.cancel(true);
+                log.error("Timed out waiting to {} service: {}", actionName, result.getServiceKey());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                result.complete(Status.FAILED, 0, e.getCause().getMessage());
+            }
+        }
+
+        report.totalMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        log.info("{} finished for {} services in {} ms (slowest {} ms): success={}, failed={}, timeout={}, skipped={}",
+                actionName, total, report.getTotalMs(), report.slowestMs(), report.count(Status.SUCCESS),
+                report.count(Status.FAILED), report.count(Status.TIMEOUT), report.count(Status.SKIPPED));
+        return report;
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,403 @@
+package com.example.service;
+
+import com.example.config.ProviderWarmupProperties;
+import com.example.filter.ProviderTrafficStats;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.constants.CommonConstants;
+import org.apache.dubbo.config.ServiceConfig;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.data.Stat;
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.Yaml;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 通过Dubbo动态配置（configurators）调整本节点提供者权重
+ * 上线时从低权重按曲线逐步升到满权重，下线前反向降权，避免冷节点瞬间承接全部流量。
+ * 规则写入 /dubbo/config/dubbo/{interface}:{version}:{group}.configurators，
+ * 每个节点只增删自己地址对应的条目，多节点并发修改通过ZK版本号做乐观重试。
+ * 升权和降权都在独立的调度线程上推进，不占用切换线程；服务还没有注册URL时不写规则。
+ * Triple协议的服务不做升降权：覆盖规则会触发提供者重新导出，Triple重新导出时报 Already exists an invoker。
+ */
+@Slf4j
+public class WeightRampManager {
+
+    private static final String CONFIG_ROOT = "/dubbo/config/dubbo/";
+    private static final String CONFIGURATORS_SUFFIX = ".configurators";
+    private static final int MAX_WRITE_ATTEMPTS = 5;
+
+    private final CuratorFramework client;
+    private final ProviderWarmupProperties properties;
+    // 服务 -> 本节点注册地址(ip:port)，未导出时为null
+    private final Function<ServiceConfig<?>, String> addressResolver;
+    private final ScheduledExecutorService scheduler;
+    // 每次开始/取消升降权都递增，旧的任务据此退出
+    private final AtomicLong rampGeneration = new AtomicLong();
+    // 接口 -> 当前发布的权重，未覆盖时不在表中
+    private final Map<String, Integer> currentWeights = new ConcurrentHashMap<>();
+
+    private volatile ScheduledFuture<?> rampTask;
+    private volatile String phase = "IDLE";
+    private volatile long phaseStartedAt;
+    private volatile int heldSteps;
+
+    public WeightRampManager(CuratorFramework client, ProviderWarmupProperties properties,
+                             Function<ServiceConfig<?>, String> addressResolver) {
+        this.client = client;
+        this.properties = properties;
+        this.addressResolver = addressResolver;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "provider-weight-ramp");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 上线前先把权重压到初始值，保证注册后的第一批流量就是低权重
+     * 首次上线时服务还没有注册地址，这一步跳过，由startRampUp在注册后立即补上
+     */
+    public void prepareOnline(List<ServiceConfig<?>> services) {
+        cancelRamp();
+        for (ServiceConfig<?> service : services) {
+            publishWeight(service, properties.getStartWeight());
+        }
+    }
+
+    /**
+     * 异步按预热曲线升权，所有服务同步推进，完成后删除覆盖规则恢复默认权重
+     */
+    public void startRampUp(List<ServiceConfig<?>> services) {
+        long generation = rampGeneration.incrementAndGet();
+        int steps = Math.max(1, properties.getSteps());
+        phase = "RAMP_UP";
+        phaseStartedAt = System.currentTimeMillis();
+        heldSteps = 0;
+        log.info("Starting weight ramp-up for {} services: {} -> {} in {} steps ({} curve)",
+                services.size(), properties.getStartWeight(), properties.getFullWeight(), steps, properties.getCurve());
+        for (ServiceConfig<?> service : services) {
+            if (!currentWeights.containsKey(service.getInterface())) {
+                publishWeight(service, properties.getStartWeight());
+            }
+        }
+        scheduleRampUpStep(services, generation, 1, steps);
+    }
+
+    private void scheduleRampUpStep(List<ServiceConfig<?>> services, long generation, int step, int steps) {
+        long stepIntervalMs = Math.max(1, properties.getDurationMs() / steps);
+        rampTask = scheduler.schedule(() -> {
+            if (rampGeneration.get() != generation) {
+                return;
+            }
+            // 耗时保护最多把预热拉长一倍，避免节点一直停在低权重
+            if (heldSteps < steps && isLatencyAboveGuard(services)) {
+                heldSteps++;
+                log.info("Holding weight ramp-up at step {}/{}: latency above {} ms", step - 1, steps,
+                        properties.getLatencyGuardMs());
+                scheduleRampUpStep(services, generation, step, steps);
+                return;
+            }
+            if (step >= steps) {
+                for (ServiceConfig<?> service : services) {
+                    clearWeight(service);
+                }
+                phase = "IDLE";
+                rampTask = null;
+                log.info("Weight ramp-up finished in {} ms", System.currentTimeMillis() - phaseStartedAt);
+                return;
+            }
+            int weight = weightAt((double) step / steps);
+            for (ServiceConfig<?> service : services) {
+                publishWeight(service, weight);
+            }
+            log.info("Weight ramp-up step {}/{} -> {}", step, steps, weight);
+            scheduleRampUpStep(services, generation, step + 1, steps);
+        }, stepIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 取消正在进行的升权或降权，已发布的权重保持不变
+     */
+    public void cancelRamp() {
+        rampGeneration.incrementAndGet();
+        ScheduledFuture<?> task = rampTask;
+        if (task != null && !task.isDone()) {
+            task.cancel(false);
+            rampTask = null;
+            phase = "IDLE";
+            log.info("Cancelled weight ramp");
+        }
+    }
+
+    /**
+     * 下线前异步逐步降权，降完后在调度线程上执行onFinished
+     * 被新的切换取代或被取消时停止且不执行onFinished；未配置降权时间时返回false，由调用方直接下线
+     * 降到初始权重后保留覆盖规则，下次上线仍从低权重开始
+     */
+    public boolean rampDown(List<ServiceConfig<?>> services, ReleaseTransitionCoordinator.Transition transition,
+                            Runnable onFinished) {
+        cancelRamp();
+        int steps = Math.max(1, properties.getRampDownSteps());
+        long stepIntervalMs = properties.getRampDownDurationMs() / steps;
+        if (stepIntervalMs <= 0) {
+            return false;
+        }
+        long generation = rampGeneration.incrementAndGet();
+        phase = "RAMP_DOWN";
+        phaseStartedAt = System.currentTimeMillis();
+        int from = currentWeight(services);
+        log.info("Starting weight ramp-down for {} services: {} -> {} in {} steps",
+                services.size(), from, properties.getStartWeight(), steps);
+        scheduleRampDownStep(services, transition, onFinished, generation, from, 1, steps, 0, stepIntervalMs);
+        return true;
+    }
+
+    private void scheduleRampDownStep(List<ServiceConfig<?>> services,
+                                      ReleaseTransitionCoordinator.Transition transition, Runnable onFinished,
+                                      long generation, int from, int step, int steps, long delayMs,
+                                      long stepIntervalMs) {
+        rampTask = scheduler.schedule(() -> {
+            if (rampGeneration.get() != generation) {
+                return;
+            }
+            if (transition.isSuperseded()) {
+                phase = "IDLE";
+                rampTask = null;
+                log.info("Weight ramp-down superseded at step {}/{}", step - 1, steps);
+                return;
+            }
+            if (step > steps) {
+                phase = "IDLE";
+                rampTask = null;
+                log.info("Weight ramp-down finished in {} ms", System.currentTimeMillis() - phaseStartedAt);
+                onFinished.run();
+                return;
+            }
+            int weight = from - (int) Math.round((from - properties.getStartWeight()) * ((double) step / steps));
+            for (ServiceConfig<?> service : services) {
+                publishWeight(service, weight);
+            }
+            log.info("Weight ramp-down step {}/{} -> {}", step, steps, weight);
+            scheduleRampDownStep(services, transition, onFinished, generation, from, step + 1, steps,
+                    stepIntervalMs, stepIntervalMs);
+        }, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private int weightAt(double progress) {
+        double ratio = properties.getCurve().apply(Math.min(1.0, Math.max(0.0, progress)));
+        return properties.getStartWeight()
+                + (int) Math.round((properties.getFullWeight() - properties.getStartWeight()) * ratio);
+    }
+
+    private int currentWeight(List<ServiceConfig<?>> services) {
+        int weight = properties.getFullWeight();
+        for (ServiceConfig<?> service : services) {
+            Integer published = currentWeights.get(service.getInterface());
+            if (published != null) {
+                weight = Math.min(weight, published);
+            }
+        }
+        return weight;
+    }
+
+    private boolean isLatencyAboveGuard(List<ServiceConfig<?>> services) {
+        if (properties.getLatencyGuardMs() <= 0) {
+            return false;
+        }
+        for (ServiceConfig<?> service : services) {
+            double latencyMs = ProviderTrafficStats.forService(service.getInterface()).getEwmaLatencyMs();
+            if (latencyMs > properties.getLatencyGuardMs()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void publishWeight(ServiceConfig<?> service, int weight) {
+        if (updateRule(service, weight)) {
+            currentWeights.put(service.getInterface(), weight);
+        }
+    }
+
+    private void clearWeight(ServiceConfig<?> service) {
+        if (updateRule(service, null)) {
+            currentWeights.remove(service.getInterface());
+        }
+    }
+
+    /**
+     * 读-改-写本节点在configurators规则中的条目，weight为null表示删除，返回是否已写入
+     */
+    private boolean updateRule(ServiceConfig<?> service, Integer weight) {
+        if (isTriple(service)) {
+            log.debug("Skipping weight {} for {}: Triple services cannot be re-exported", weight,
+                    service.getInterface());
+            return false;
+        }
+        String path = CONFIG_ROOT + ruleKey(service) + CONFIGURATORS_SUFFIX;
+        String address = addressResolver.apply(service);
+        if (address == null) {
+            // 未导出时猜测的地址可能与注册URL不一致，写入的规则不会生效
+            log.debug("Skipping weight {} for {}: no registered URL yet", weight, service.getInterface());
+            return false;
+        }
+        for (int attempt = 1; attempt <= MAX_WRITE_ATTEMPTS; attempt++) {
+            try {
+                Stat stat = new Stat();
+                byte[] data = null;
+                if (client.checkExists().forPath(path) != null) {
+                    data = client.getData().storingStatIn(stat).forPath(path);
+                }
+                Map<String, Object> rule = mergeRule(service, data, address, weight);
+                byte[] updated = newYaml().dump(rule).getBytes(StandardCharsets.UTF_8);
+                if (data == null) {
+                    if (weight == null) {
+                        return true;
+                    }
+                    client.create().creatingParentsIfNeeded().forPath(path, updated);
+                } else {
+                    client.setData().withVersion(stat.getVersion()).forPath(path, updated);
+                }
+                log.debug("Published weight {} for {} at {}", weight, address, path);
+                return true;
+            } catch (KeeperException.BadVersionException | KeeperException.NodeExistsException e) {
+                log.debug("Concurrent update on {}, retrying ({}/{})", path, attempt, MAX_WRITE_ATTEMPTS);
+            } catch (Exception e) {
+                log.error("Failed to publish weight {} for service: {}", weight, service.getInterface(), e);
+                return false;
+            }
+        }
+        log.error("Gave up publishing weight {} for service {} after {} attempts",
+                weight, service.getInterface(), MAX_WRITE_ATTEMPTS);
+        return false;
+    }
+
+    private static boolean isTriple(ServiceConfig<?> service) {
+        for (URL url : service.getExportedUrls()) {
+            if (CommonConstants.TRIPLE.equals(url.getProtocol())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> mergeRule(ServiceConfig<?> service, byte[] data, String address, Integer weight) {
+        Map<String, Object> rule = null;
+        if (data != null && data.length > 0) {
+            Object loaded = newYaml().load(new String(data, StandardCharsets.UTF_8));
+            if (loaded instanceof Map) {
+                rule = (Map<String, Object>) loaded;
+            }
+        }
+        if (rule == null) {
+            rule = new LinkedHashMap<>();
+            rule.put("configVersion", "v3.0");
+            rule.put("scope", "service");
+            rule.put("key", serviceKey(service));
+            rule.put("enabled", true);
+        }
+
+        List<Object> configs = new ArrayList<>();
+        Object existing = rule.get("configs");
+        if (existing instanceof List) {
+            configs.addAll((List<Object>) existing);
+        }
+        // 去掉本节点原有的权重条目，其他节点和其他规则原样保留
+        Iterator<Object> iterator = configs.iterator();
+        while (iterator.hasNext()) {
+            Object config = iterator.next();
+            if (config instanceof Map && isOwnWeightEntry((Map<String, Object>) config, address)) {
+                iterator.remove();
+            }
+        }
+        if (weight != null) {
+            Map<String, Object> parameters = new LinkedHashMap<>();
+            parameters.put("weight", weight);
+            Map<String, Object> config = new LinkedHashMap<>();
+            config.put("side", "provider");
+            config.put("addresses", Collections.singletonList(address));
+            config.put("parameters", parameters);
+            configs.add(config);
+        }
+        rule.put("configs", configs);
+        return rule;
+    }
+
+    private static boolean isOwnWeightEntry(Map<String, Object> config, String address) {
+        Object addresses = config.get("addresses");
+        Object parameters = config.get("parameters");
+        return addresses instanceof List && ((List<?>) addresses).size() == 1
+                && address.equals(((List<?>) addresses).get(0))
+                && parameters instanceof Map && ((Map<?, ?>) parameters).size() == 1
+                && ((Map<?, ?>) parameters).containsKey("weight");
+    }
+
+    /**
+     * 与Dubbo的规则键一致：interface[:version[:group]]
+     */
+    private static String ruleKey(ServiceConfig<?> service) {
+        StringBuilder key = new StringBuilder(service.getInterface());
+        boolean hasVersion = service.getVersion() != null && !service.getVersion().isEmpty();
+        boolean hasGroup = service.getGroup() != null && !service.getGroup().isEmpty();
+        if (hasVersion || hasGroup) {
+            key.append(':').append(hasVersion ? service.getVersion() : "");
+            if (hasGroup) {
+                key.append(':').append(service.getGroup());
+            }
+        }
+        return key.toString();
+    }
+
+    /**
+     * 规则内容里的服务键：[group/]interface[:version]
+     */
+    private static String serviceKey(ServiceConfig<?> service) {
+        StringBuilder key = new StringBuilder();
+        if (service.getGroup() != null && !service.getGroup().isEmpty()) {
+            key.append(service.getGroup()).append('/');
+        }
+        key.append(service.getInterface());
+        if (service.getVersion() != null && !service.getVersion().isEmpty()) {
+            key.append(':').append(service.getVersion());
+        }
+        return key.toString();
+    }
+
+    private static Yaml newYaml() {
+        DumperOptions options = new DumperOptions();
+        options.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
+        return new Yaml(options);
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("phase", phase);
+        snapshot.put("phaseStartedAt", phaseStartedAt);
+        snapshot.put("heldSteps", heldSteps);
+        snapshot.put("weights", new LinkedHashMap<>(currentWeights));
+        snapshot.put("traffic", ProviderTrafficStats.snapshot());
+        return snapshot;
+    }
+
+    public void shutdown() {
+        cancelRamp();
+        scheduler.shutdownNow();
+    }
+}
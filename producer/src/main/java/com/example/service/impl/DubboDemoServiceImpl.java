@@ -1,5 +1,7 @@
 package com.example.service.impl;
 
+import com.example.cache.ProviderCache;
+import com.example.enums.CacheEviction;
 import com.example.service.DubboDemoService;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.dubbo.config.annotation.DubboService;
@@ -7,9 +9,15 @@ import org.apache.dubbo.config.annotation.Method;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 @Component
-@DubboService(version = "1.0.0", group = "gray-demo", 
-              methods = {@Method(name = "getServiceInfo", timeout = 3000)})
+@DubboService(version = "1.0.0", group = "gray-demo", protocol = "dubbo",
+              methods = {@Method(name = "getServiceInfo", timeout = 3000),
+                         @Method(name = "getServiceInfoAsync", timeout = 3000),
+                         @Method(name = "getServiceInfoBatch", timeout = 5000)})
 @Slf4j
 public class DubboDemoServiceImpl implements DubboDemoService {
 
@@ -17,8 +25,31 @@ public class DubboDemoServiceImpl implements DubboDemoService {
     private String nodeType;
 
     @Override
+    @ProviderCache(ttlMs = 30000, maximumSize = 1024)
     public String getServiceInfo(String consumerName) {
         log.info("Service called by {} from {} provider", consumerName, nodeType);
+        return buildServiceInfo(consumerName);
+    }
+
+    @Override
+    @ProviderCache(ttlMs = 30000, maximumSize = 1024)
+    public CompletableFuture<String> getServiceInfoAsync(String consumerName) {
+        // 业务逻辑无阻塞操作，直接返回已完成的Future
+        return CompletableFuture.completedFuture(getServiceInfo(consumerName));
+    }
+
+    @Override
+    @ProviderCache(ttlMs = 30000, maximumSize = 256, eviction = CacheEviction.LRU)
+    public List<String> getServiceInfoBatch(List<String> consumerNames) {
+        List<String> results = new ArrayList<>(consumerNames.size());
+        for (String consumerName : consumerNames) {
+            results.add(buildServiceInfo(consumerName));
+        }
+        log.info("Batch service call with {} items from {} provider", results.size(), nodeType);
+        return results;
+    }
+
+    String buildServiceInfo(String consumerName) {
         return "Service called by " + consumerName + " from " + nodeType + " provider";
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,63 @@
+package com.example.service.impl;
+
+import com.example.service.DubboDemoStreamService;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.dubbo.common.stream.StreamObserver;
+import org.apache.dubbo.config.annotation.DubboService;
+import org.apache.dubbo.rpc.CancellationContext;
+import org.apache.dubbo.rpc.RpcContext;
+import org.apache.dubbo.rpc.TriRpcStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 流式查询的提供者实现
+ * Dubbo 3.2的Triple服务端观察者只有request(n)、setCompression和disableAutoFlowControl，没有isReady/onReady，
+ * onNext也不返回写出结果，提供者无法按连接可写状态调整发送速度，未发出的数据会积压在Netty的写队列里。
+ * 消费者的request(n)只控制已收到的数据何时交给回调。因此单个流的条数由max-items限制，
+ * 积压上限即一个流的全部结果。
+ */
+@Component
+@DubboService(version = "1.0.0", group = "gray-demo", protocol = "tri")
+@Slf4j
+public class DubboDemoStreamServiceImpl implements DubboDemoStreamService {
+
+    @Autowired
+    private DubboDemoServiceImpl dubboDemoService;
+
+    // 单个流最多返回的条数
+    @Value("${dubbo-demo.stream.max-items:1000}")
+    private int maxItems;
+
+    @Override
+    public void streamServiceInfo(List<String> consumerNames, StreamObserver<String> responseObserver) {
+        // 消费者取消或断开后停止生成，避免继续写入已关闭的流
+        CancellationContext cancellation = RpcContext.getCancellationContext();
+        if (consumerNames.size() > maxItems) {
+            log.warn("Rejecting stream of {} items, limit is {}", consumerNames.size(), maxItems);
+            responseObserver.onError(TriRpcStatus.fromCode(TriRpcStatus.Code.INVALID_ARGUMENT)
+                    .withDescription("Too many items: " + consumerNames.size() + ", limit is " + maxItems)
+                    .asException());
+            return;
+        }
+        int sent = 0;
+        try {
+            for (String consumerName : consumerNames) {
+                if (cancellation != null && cancellation.isCancelled()) {
+                    log.info("Stream cancelled by consumer after {} of {} items", sent, consumerNames.size());
+                    return;
+                }
+                responseObserver.onNext(dubboDemoService.buildServiceInfo(consumerName));
+                sent++;
+            }
+            responseObserver.onCompleted();
+            log.info("Streamed {} items", sent);
+        } catch (Exception e) {
+            log.error("Failed to stream service info after {} items", sent, e);
+            responseObserver.onError(e);
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.bench;
+
+import com.example.config.ProviderTransitionProperties;
+import com.example.config.ProviderWarmupProperties;
+import com.example.config.ReleaseFlipProperties;
+import com.example.enums.ProviderToggleMode;
+import com.example.enums.ReleaseState;
+import com.example.service.DubboDemoService;
+import com.example.service.ProviderRegistryView;
+import com.example.service.ProviderServiceManager;
+import com.example.service.impl.DubboDemoServiceImpl;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.retry.RetryOneTime;
+import org.apache.curator.test.TestingServer;
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.config.ApplicationConfig;
+import org.apache.dubbo.config.ProtocolConfig;
+import org.apache.dubbo.config.RegistryConfig;
+import org.apache.dubbo.config.ServiceConfig;
+import org.apache.dubbo.config.bootstrap.DubboBootstrap;
+import org.apache.dubbo.rpc.model.FrameworkModel;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 发布状态传播耗时基准（提供者侧）
+ * 在嵌入式ZooKeeper上启动N个进程内的ProviderServiceManager，灰度和生产节点交替，每个节点有独立的ZooKeeper连接。
+ * 每个节点用独立的FrameworkModel和DubboBootstrap（相当于独立进程）在该ZooKeeper上导出一个DubboDemoService，
+ * 接口级注册，与ProviderRegistryView监听的路径一致。
+ * 反复写入 /release/{service}/status 切换状态，统计从写入到基准自己的ProviderRegistryView看到该节点的提供者URL
+ * 注册或注销的耗时，包含通知、去抖、注册/注销和注册中心往返；fleet为每次切换中最慢节点的耗时。
+ * <p>
+ * 运行：mvn -pl producer test -Dtest=ReleaseStatePropagationBenchmark -Drelease.bench=true
+ * 可选参数：-Dbench.nodes=8 -Dbench.flips=50 -Dbench.settleWindowMs=0
+ */
+@EnabledIfSystemProperty(named = "release.bench", matches = "true")
+class ReleaseStatePropagationBenchmark {
+
+    private static final String SERVICE = "bench-service";
+    private static final String STATUS_PATH = "/release/" + SERVICE + "/status";
+    private static final ReleaseState[] FLIPS = {
+            ReleaseState.GRAY_ACCESSABLE, ReleaseState.PROD_ACCESSABLE, ReleaseState.ALL_ACCESSABLE};
+    private static final long FLIP_TIMEOUT_MS = 10000;
+
+    @Test
+    void measurePropagation() throws Exception {
+        int nodeCount = Integer.getInteger("bench.nodes", 8);
+        int flips = Integer.getInteger("bench.flips", 50);
+        ReleaseFlipProperties flipProperties = new ReleaseFlipProperties();
+        flipProperties.setSettleWindowMs(Long.getLong("bench.settleWindowMs", 0L));
+        flipProperties.setMinDwellMs(0);
+        ProviderWarmupProperties warmupProperties = new ProviderWarmupProperties();
+        warmupProperties.setEnabled(false);
+        ProviderTransitionProperties transitionProperties = new ProviderTransitionProperties();
+        // 与application.yml的默认切换方式一致：导出一次，之后只注册/注销
+        transitionProperties.setMode(ProviderToggleMode.REGISTRY);
+        // 基准不发起调用，下线时无需等待排空
+        transitionProperties.setDrainQuietPeriodMs(0);
+
+        LatencySummary provider = new LatencySummary("provider (per node)");
+        LatencySummary providerFleet = new LatencySummary("provider (fleet)");
+
+        try (TestingServer server = new TestingServer(true)) {
+            CuratorFramework writer = CuratorFrameworkFactory.newClient(server.getConnectString(),
+                    new RetryOneTime(100));
+            writer.start();
+            writer.blockUntilConnected();
+            writer.create().creatingParentsIfNeeded().forPath(STATUS_PATH,
+                    ReleaseState.ALL_ACCESSABLE.name().getBytes(StandardCharsets.UTF_8));
+
+            ProviderRegistryView registry = new ProviderRegistryView(writer);
+            registry.watch(DubboDemoService.class.getName());
+            List<DubboBootstrap> bootstraps = new ArrayList<>();
+            List<ServiceConfig<DubboDemoService>> services = new ArrayList<>();
+            List<ProviderServiceManager> nodes = new ArrayList<>();
+            try {
+                for (int i = 0; i < nodeCount; i++) {
+                    DubboBootstrap bootstrap = DubboBootstrap.newInstance(new FrameworkModel());
+                    bootstraps.add(bootstrap);
+                    ServiceConfig<DubboDemoService> service = exportService(bootstrap, server.getConnectString(), i);
+                    services.add(service);
+
+                    ProviderServiceManager node = new ProviderServiceManager();
+                    ReflectionTestUtils.setField(node, "nodeType", i % 2 == 0 ? "GRAY" : "PRD");
+                    ReflectionTestUtils.setField(node, "zookeeperConnectString", server.getConnectString());
+                    ReflectionTestUtils.setField(node, "serviceName", SERVICE);
+                    ReflectionTestUtils.setField(node, "releaseFlipProperties", flipProperties);
+                    ReflectionTestUtils.setField(node, "serviceConfigs", Collections.singletonList(service));
+                    ReflectionTestUtils.setField(node, "providerTransitionProperties", transitionProperties);
+                    ReflectionTestUtils.setField(node, "providerWarmupProperties", warmupProperties);
+                    ReflectionTestUtils.setField(node, "protocolPort", service.getExportedUrls().get(0).getPort());
+                    node.init();
+                    nodes.add(node);
+                }
+                for (int i = 0; i < flips; i++) {
+                    ReleaseState target = FLIPS[i % FLIPS.length];
+                    long writtenAt = System.currentTimeMillis();
+                    writer.setData().forPath(STATUS_PATH, target.name().getBytes(StandardCharsets.UTF_8));
+                    awaitFlip(nodes, services, registry, target, writtenAt, provider, providerFleet);
+                }
+                ReleaseState last = FLIPS[(flips - 1) % FLIPS.length];
+                for (int i = 0; i < nodes.size(); i++) {
+                    boolean gray = i % 2 == 0;
+                    boolean expectedOnline = last == ReleaseState.ALL_ACCESSABLE
+                            || (last == ReleaseState.GRAY_ACCESSABLE) == gray;
+                    assertEquals(expectedOnline, nodes.get(i).isServiceOnline());
+                }
+            } finally {
+                nodes.forEach(ProviderServiceManager::destroy);
+                bootstraps.forEach(DubboBootstrap::destroy);
+                registry.close();
+                writer.close();
+            }
+        }
+
+        System.out.printf("%nRelease state propagation: %d providers, %d flips, settle window %d ms%n",
+                nodeCount, flips, flipProperties.getSettleWindowMs());
+        System.out.println(provider);
+        System.out.println(providerFleet);
+    }
+
+    /**
+     * 在独立的Dubbo应用中导出一个DubboDemoService，每个节点使用不同的端口
+     */
+    private static ServiceConfig<DubboDemoService> exportService(DubboBootstrap bootstrap, String zookeeper, int index)
+            throws IOException {
+        ApplicationConfig application = new ApplicationConfig("bench-provider-" + index);
+        application.setQosEnable(false);
+        RegistryConfig registry = new RegistryConfig("zookeeper://" + zookeeper);
+        registry.setRegisterMode("interface");
+        ServiceConfig<DubboDemoService> service = new ServiceConfig<>();
+        service.setInterface(DubboDemoService.class);
+        service.setRef(new DubboDemoServiceImpl());
+        service.setVersion("1.0.0");
+        service.setGroup("gray-demo");
+        bootstrap.application(application)
+                .registry(registry)
+                .protocol(new ProtocolConfig("dubbo", freePort()))
+                .service(service)
+                .start();
+        return service;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * 节点的切换已生效，并且注册视图中该节点提供者URL的有无与在线状态一致
+     */
+    private static boolean isVisible(ProviderServiceManager node, ServiceConfig<DubboDemoService> service,
+                                     ProviderRegistryView registry, ReleaseState target) {
+        if (node.getTransitionSnapshot().get("effectiveState") != target) {
+            return false;
+        }
+        URL url = service.getExportedUrls().isEmpty() ? null : service.getExportedUrls().get(0);
+        boolean registered = url != null && registry.isRegistered(service.getInterface(), service.getGroup(),
+                service.getVersion(), url.getHost(), url.getPort());
+        return registered == node.isServiceOnline();
+    }
+
+    private static void awaitFlip(List<ProviderServiceManager> nodes, List<ServiceConfig<DubboDemoService>> services,
+                                  ProviderRegistryView registry, ReleaseState target, long writtenAt,
+                                  LatencySummary provider, LatencySummary providerFleet) throws InterruptedException {
+        boolean[] done = new boolean[nodes.size()];
+        long slowest = 0;
+        int remaining = nodes.size();
+        long deadline = writtenAt + FLIP_TIMEOUT_MS;
+        while (remaining > 0 && System.currentTimeMillis() < deadline) {
+            for (int i = 0; i < nodes.size(); i++) {
+                if (done[i]) {
+                    continue;
+                }
+                if (isVisible(nodes.get(i), services.get(i), registry, target)) {
+                    done[i] = true;
+                    remaining--;
+                    long latency = System.currentTimeMillis() - writtenAt;
+                    provider.add(latency);
+                    slowest = Math.max(slowest, latency);
+                }
+            }
+            Thread.sleep(1);
+        }
+        for (int i = 0; i < remaining; i++) {
+            provider.timeout();
+        }
+        if (remaining == 0) {
+            providerFleet.add(slowest);
+        } else {
+            providerFleet.timeout();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 结果缓存：条目数和字节预算两种上限、锁分段、失效前算出的结果不写回
+ */
+class ResultCacheTest {
+
+    private static String text(int length) {
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            builder.append('x');
+        }
+        return builder.toString();
+    }
+
+    @Test
+    void smallCachesAreNotStriped() {
+        assertEquals(1, ResultCache.stripeCount(1));
+        assertEquals(1, ResultCache.stripeCount(127));
+        assertEquals(4, ResultCache.stripeCount(256));
+        assertEquals(16, ResultCache.stripeCount(100000));
+    }
+
+    @Test
+    void lruEvictsEldestWhenByteBudgetExceeded() {
+        ResultCache cache = new LruResultCache(60000, 100, 2000);
+        String value = text(400);
+        long weight = ResultWeigher.weigh(value);
+
+        for (int i = 0; i < 10; i++) {
+            cache.put(i, value);
+        }
+
+        assertEquals(2000 / weight, cache.size());
+        assertTrue(cache.weightBytes() <= 2000);
+        assertNull(cache.get(0));
+        assertEquals(value, cache.get(9));
+        assertEquals(10 - 2000 / weight, cache.getEvictions());
+    }
+
+    @Test
+    void tinyLfuStaysWithinByteBudget() {
+        ResultCache cache = new TinyLfuResultCache(60000, 100, 2000);
+        String value = text(400);
+
+        for (int i = 0; i < 50; i++) {
+            cache.put(i, value);
+            cache.get(i);
+        }
+
+        assertTrue(cache.weightBytes() <= 2000);
+        assertEquals(cache.size() * ResultWeigher.weigh(value), cache.weightBytes());
+    }
+
+    @Test
+    void oversizedResultIsNotCachedAndDropsPreviousValue() {
+        ResultCache cache = new LruResultCache(60000, 100, 2000);
+        cache.put("key", "small");
+
+        cache.put("key", text(2000));
+
+        assertNull(cache.get("key"));
+        assertEquals(0, cache.weightBytes());
+        assertEquals(1, cache.getOversized());
+    }
+
+    @Test
+    void zeroByteBudgetBoundsOnlyByEntryCount() {
+        ResultCache cache = new LruResultCache(60000, 3, 0);
+        cache.put(1, text(100000));
+        cache.put(2, text(100000));
+        cache.put(3, text(100000));
+        cache.put(4, "small");
+
+        assertEquals(3, cache.size());
+        assertNull(cache.get(1));
+    }
+
+    @Test
+    void invalidateAllClearsEveryStripe() {
+        ResultCache cache = new TinyLfuResultCache(60000, 1024, 0);
+        for (int i = 0; i < 500; i++) {
+            cache.put(i, "value-" + i);
+        }
+        int size = cache.size();
+
+        assertEquals(size, cache.invalidateAll());
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.weightBytes());
+    }
+
+    @Test
+    void putAfterInvalidateIsDropped() {
+        ResultCache cache = new LruResultCache(60000, 100, 0);
+        long generation = cache.getGeneration();
+
+        cache.invalidateAll();
+        cache.put("key", "computed before the flip", generation);
+
+        assertNull(cache.get("key"));
+        assertEquals(0, cache.size());
+
+        cache.put("key", "fresh", cache.getGeneration());
+        assertEquals("fresh", cache.get("key"));
+    }
+
+    @Test
+    void concurrentAccessKeepsSizeAndWeightConsistent() throws Exception {
+        ResultCache cache = new TinyLfuResultCache(60000, 1024, 64 * 1024);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < 8; t++) {
+                int seed = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 20000; i++) {
+                        int key = (i * 31 + seed) % 4096;
+                        if (cache.get(key) == null) {
+                            cache.put(key, "value-" + key);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertTrue(cache.size() <= 1024);
+        assertTrue(cache.weightBytes() <= 64 * 1024);
+        assertEquals(8 * 20000, cache.getHits() + cache.getMisses());
+    }
+}
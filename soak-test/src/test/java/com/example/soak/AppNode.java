@@ -0,0 +1,151 @@
+package com.example.soak;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 在子进程中运行的一个应用节点
+ * 生产者和消费者模块有同名类，不能放在同一个类路径下，每个节点用各自的可执行包单独启动一个JVM。
+ * 子进程的输出写到工作目录下的 {name}.log，同时逐行交给行处理器解析。
+ */
+class AppNode implements AutoCloseable {
+
+    private final String name;
+    private final int httpPort;
+    private final Process process;
+    private final Thread reader;
+
+    AppNode(String name, File jar, int httpPort, Map<String, String> env, List<String> args,
+            File workDir, Consumer<String> lineHandler) throws IOException {
+        if (jar == null || !jar.isFile()) {
+            throw new IllegalStateException("Application jar not found: " + jar
+                    + ", build with: mvn -pl soak-test -am package -Dsoak=true");
+        }
+        this.name = name;
+        this.httpPort = httpPort;
+        List<String> command = new ArrayList<>();
+        command.add(new File(System.getProperty("java.home"), "bin/java").getPath());
+        command.add("-Xmx512m");
+        command.add("-jar");
+        command.add(jar.getPath());
+        command.add("--server.port=" + httpPort);
+        command.addAll(args);
+        ProcessBuilder builder = new ProcessBuilder(command).redirectErrorStream(true);
+        builder.environment().putAll(env);
+        process = builder.start();
+
+        File log = new File(workDir, name + ".log");
+        reader = new Thread(() -> pump(log, lineHandler), name + "-output");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    private void pump(File log, Consumer<String> lineHandler) {
+        try (BufferedReader in = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+             PrintWriter out = new PrintWriter(log, StandardCharsets.UTF_8.name())) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                out.println(line);
+                lineHandler.accept(line);
+            }
+        } catch (IOException e) {
+            // 进程退出时流被关闭
+        }
+    }
+
+    String name() {
+        return name;
+    }
+
+    int httpPort() {
+        return httpPort;
+    }
+
+    /**
+     * 等待HTTP端口有响应，内嵌Web服务器在上下文刷新完成后才启动
+     */
+    void awaitReady(String path, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (System.currentTimeMillis() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException(name + " exited with code " + process.exitValue()
+                        + " during startup, see " + name + ".log");
+            }
+            if (get(path, 1000) > 0) {
+                return;
+            }
+            Thread.sleep(500);
+        }
+        throw new IllegalStateException(name + " not ready after " + timeoutMs + " ms, see " + name + ".log");
+    }
+
+    /**
+     * 发送GET请求，返回状态码，连接失败返回-1
+     */
+    int get(String path, int timeoutMs) {
+        return get(path, timeoutMs, null);
+    }
+
+    /**
+     * 发送GET请求，响应体追加到body（为null时丢弃），返回状态码，连接失败返回-1
+     */
+    int get(String path, int timeoutMs, StringBuilder body) {
+        HttpURLConnection connection = null;
+        try {
+            connection = (HttpURLConnection) new URL("http://127.0.0.1:" + httpPort + path).openConnection();
+            connection.setConnectTimeout(timeoutMs);
+            connection.setReadTimeout(timeoutMs);
+            int status = connection.getResponseCode();
+            String content = drain(connection, status);
+            if (body != null) {
+                body.append(content);
+            }
+            return status;
+        } catch (IOException e) {
+            return -1;
+        } finally {
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+    }
+
+    /**
+     * 读完响应以便复用连接
+     */
+    private static String drain(HttpURLConnection connection, int status) throws IOException {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        try (InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            if (body != null) {
+                byte[] buffer = new byte[4096];
+                for (int n; (n = body.read(buffer)) >= 0; ) {
+                    content.write(buffer, 0, n);
+                }
+            }
+        }
+        return new String(content.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        process.destroy();
+        if (!process.waitFor(30, TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+        }
+        reader.join(5000);
+    }
+}
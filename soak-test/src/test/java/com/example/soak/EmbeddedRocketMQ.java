@@ -0,0 +1,96 @@
+package com.example.soak;
+
+import org.apache.rocketmq.broker.BrokerController;
+import org.apache.rocketmq.common.BrokerConfig;
+import org.apache.rocketmq.common.TopicConfig;
+import org.apache.rocketmq.common.namesrv.NamesrvConfig;
+import org.apache.rocketmq.namesrv.NamesrvController;
+import org.apache.rocketmq.remoting.netty.NettyClientConfig;
+import org.apache.rocketmq.remoting.netty.NettyServerConfig;
+import org.apache.rocketmq.store.config.MessageStoreConfig;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * 进程内的RocketMQ名称服务和单个Broker，数据写在指定目录，启动前清空，避免上一轮未消费的消息和消费位点混入
+ */
+class EmbeddedRocketMQ implements AutoCloseable {
+
+    private final NamesrvController namesrv;
+    private final BrokerController broker;
+    private final String nameServerAddress;
+
+    EmbeddedRocketMQ(File baseDir) throws Exception {
+        deleteRecursively(baseDir.toPath());
+        int namesrvPort = Ports.free();
+        NamesrvConfig namesrvConfig = new NamesrvConfig();
+        namesrvConfig.setKvConfigPath(new File(baseDir, "namesrv/kvConfig.json").getPath());
+        namesrvConfig.setConfigStorePath(new File(baseDir, "namesrv/namesrv.properties").getPath());
+        NettyServerConfig namesrvNetty = new NettyServerConfig();
+        namesrvNetty.setListenPort(namesrvPort);
+        namesrv = new NamesrvController(namesrvConfig, namesrvNetty);
+        if (!namesrv.initialize()) {
+            throw new IllegalStateException("Failed to initialize name server");
+        }
+        namesrv.start();
+        nameServerAddress = "127.0.0.1:" + namesrvPort;
+
+        // Broker还会监听 port-2（VIP通道），HA端口单独指定
+        int brokerPort = Ports.freeWithVipChannel();
+        BrokerConfig brokerConfig = new BrokerConfig();
+        brokerConfig.setBrokerName("soak-broker");
+        brokerConfig.setBrokerClusterName("soak-cluster");
+        brokerConfig.setBrokerIP1("127.0.0.1");
+        brokerConfig.setNamesrvAddr(nameServerAddress);
+        brokerConfig.setRocketmqHome(baseDir.getPath());
+        brokerConfig.setAutoCreateTopicEnable(true);
+        brokerConfig.setAutoCreateSubscriptionGroup(true);
+        MessageStoreConfig storeConfig = new MessageStoreConfig();
+        File storeDir = new File(baseDir, "store");
+        storeConfig.setStorePathRootDir(storeDir.getPath());
+        storeConfig.setStorePathCommitLog(new File(storeDir, "commitlog").getPath());
+        storeConfig.setMappedFileSizeCommitLog(64 * 1024 * 1024);
+        storeConfig.setHaListenPort(Ports.free());
+        NettyServerConfig brokerNetty = new NettyServerConfig();
+        brokerNetty.setListenPort(brokerPort);
+        broker = new BrokerController(brokerConfig, brokerNetty, new NettyClientConfig(), storeConfig);
+        if (!broker.initialize()) {
+            throw new IllegalStateException("Failed to initialize broker");
+        }
+        broker.start();
+    }
+
+    String nameServerAddress() {
+        return nameServerAddress;
+    }
+
+    /**
+     * 预先创建主题，消费者启动时即可拿到路由
+     */
+    void createTopic(String topic, int queues) {
+        broker.getTopicConfigManager().updateTopicConfig(new TopicConfig(topic, queues, queues, 6));
+        broker.registerBrokerAll(true, false, true);
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        broker.shutdown();
+        namesrv.shutdown();
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.soak;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+
+/**
+ * 分配本机空闲端口
+ */
+final class Ports {
+
+    private Ports() {
+    }
+
+    static int free() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            socket.setReuseAddress(true);
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 端口本身和 port-2 都空闲，供RocketMQ Broker使用
+     */
+    static int freeWithVipChannel() {
+        for (int i = 0; i < 50; i++) {
+            int port = free();
+            if (port > 1026 && available(port - 2)) {
+                return port;
+            }
+        }
+        throw new IllegalStateException("No free port pair for broker");
+    }
+
+    private static boolean available(int port) {
+        try (ServerSocket socket = new ServerSocket(port)) {
+            socket.setReuseAddress(true);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
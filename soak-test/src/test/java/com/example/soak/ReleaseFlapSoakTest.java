@@ -0,0 +1,362 @@
+package com.example.soak;
+
+import com.example.bench.LatencySummary;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.retry.RetryOneTime;
+import org.apache.curator.test.TestingServer;
+import org.apache.rocketmq.client.producer.DefaultMQProducer;
+import org.apache.rocketmq.client.producer.SendResult;
+import org.apache.rocketmq.client.producer.SendStatus;
+import org.apache.rocketmq.common.message.Message;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 灰度状态抖动下的端到端吞吐和浸泡测试
+ * 进程内启动ZooKeeper测试服务器、RocketMQ名称服务和Broker，生产者、消费者应用各以GRAY和PRD节点在子进程中运行，
+ * 消费者使用线上相同的消费组和标签。测试持续发送带序号的消息并通过消费者调用Dubbo，同时随机切换两个服务的发布状态。
+ * 负载结束后切回ALL_ACCESSABLE等待消费完，按消费者日志中的"Received: soak-{序号}"统计：
+ * 丢失（发送成功但始终未消费，不允许出现）、重复消费、吞吐、端到端延迟，
+ * 以及每次切换的恢复时间（切换后发送的消息最早被消费的时间减去切换时间）。
+ * <p>
+ * 运行：mvn -pl soak-test -am package -Dsoak=true
+ * 可选参数：-Dsoak.durationSec=120 -Dsoak.rate=200 -Dsoak.rpcRate=20 -Dsoak.flipIntervalMs=5000
+ * -Dsoak.drainSec=60 -Dsoak.seed=... -Dsoak.settleWindowMs=... -Dsoak.minDwellMs=...
+ * 报告和各节点日志在 soak-test/target/soak 下。
+ */
+@EnabledIfSystemProperty(named = "soak", matches = "true")
+class ReleaseFlapSoakTest {
+
+    private static final String TOPIC = "PRD_TOPIC";
+    private static final String TAG = "PRD_TAG";
+    private static final String CONSUMER_SERVICE = "rocketmq-gray-consumer";
+    private static final String PRODUCER_SERVICE = "rocketmq-gray-producer";
+    private static final String[] STATES = {"GRAY_ACCESSABLE", "PROD_ACCESSABLE", "ALL_ACCESSABLE"};
+    private static final Pattern RECEIVED = Pattern.compile("Received: soak-(\\d+)");
+    private static final long STARTUP_TIMEOUT_MS = 180000;
+
+    private final long durationMs = TimeUnit.SECONDS.toMillis(Long.getLong("soak.durationSec", 120));
+    private final int rate = Integer.getInteger("soak.rate", 200);
+    private final int rpcRate = Integer.getInteger("soak.rpcRate", 20);
+    private final long flipIntervalMs = Long.getLong("soak.flipIntervalMs", 5000);
+    private final long drainMs = TimeUnit.SECONDS.toMillis(Long.getLong("soak.drainSec", 60));
+    private final long seed = Long.getLong("soak.seed", System.currentTimeMillis());
+
+    // 序号 -> 发送成功的时间
+    private final Map<Long, Long> sentAt = new ConcurrentHashMap<>();
+    // 序号 -> 首次被消费的时间
+    private final Map<Long, Long> firstReceivedAt = new ConcurrentHashMap<>();
+    // 序号 -> 被消费的次数
+    private final Map<Long, AtomicInteger> receiveCounts = new ConcurrentHashMap<>();
+    // 节点 -> 消费条数
+    private final Map<String, AtomicLong> receivedByNode = new ConcurrentHashMap<>();
+    private final AtomicLong sendFailures = new AtomicLong();
+    private final AtomicLong rpcOk = new AtomicLong();
+    private final AtomicLong rpcFailed = new AtomicLong();
+    // 每次切换写入ZooKeeper的时间
+    private final List<Long> flips = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    void flapReleaseStateUnderLoad() throws Exception {
+        File workDir = new File(System.getProperty("soak.work.dir", "target/soak"));
+        if (!workDir.isDirectory() && !workDir.mkdirs()) {
+            throw new IOException("Cannot create " + workDir);
+        }
+        List<AppNode> nodes = new ArrayList<>();
+        try (TestingServer zookeeper = new TestingServer(true);
+             EmbeddedRocketMQ rocketmq = new EmbeddedRocketMQ(new File(workDir, "rocketmq"))) {
+            rocketmq.createTopic(TOPIC, 8);
+            CuratorFramework client = CuratorFrameworkFactory.newClient(zookeeper.getConnectString(),
+                    new RetryOneTime(100));
+            client.start();
+            client.blockUntilConnected();
+            DefaultMQProducer producer = new DefaultMQProducer("SOAK_LOAD_PRODUCER_GROUP");
+            producer.setNamesrvAddr(rocketmq.nameServerAddress());
+            producer.start();
+            try {
+                writeState(client, "ALL_ACCESSABLE");
+                nodes.add(startProducer("producer-gray", "GRAY", zookeeper, rocketmq, workDir));
+                nodes.add(startProducer("producer-prd", "PRD", zookeeper, rocketmq, workDir));
+                nodes.add(startConsumer("consumer-gray", "GRAY_CONSUMER", zookeeper, rocketmq, workDir));
+                nodes.add(startConsumer("consumer-prd", "PRD_CONSUMER", zookeeper, rocketmq, workDir));
+                for (AppNode node : nodes) {
+                    node.awaitReady("/actuator/health", STARTUP_TIMEOUT_MS);
+                }
+                List<AppNode> consumers = nodes.subList(2, 4);
+
+                long loadStart = System.currentTimeMillis();
+                long loadEnd = loadStart + durationMs;
+                AtomicBoolean running = new AtomicBoolean(true);
+                Thread sender = new Thread(() -> sendLoop(producer, running), "soak-sender");
+                Thread caller = new Thread(() -> rpcLoop(consumers, running), "soak-rpc");
+                sender.start();
+                caller.start();
+                flipLoop(client, loadEnd);
+                running.set(false);
+                sender.join();
+                caller.join();
+                long loadStopped = System.currentTimeMillis();
+
+                // 全部放开后等待剩余消息消费完
+                writeState(client, "ALL_ACCESSABLE");
+                long drainDeadline = System.currentTimeMillis() + drainMs;
+                while (firstReceivedAt.size() < sentAt.size() && System.currentTimeMillis() < drainDeadline) {
+                    Thread.sleep(200);
+                }
+
+                String report = report(loadStart, loadStopped);
+                System.out.println(report);
+                try (PrintWriter out = new PrintWriter(new File(workDir, "report.txt"), StandardCharsets.UTF_8.name())) {
+                    out.print(report);
+                }
+                assertEquals(0, lost().size(), "Messages acknowledged by the broker but never consumed");
+                assertTrue(rpcRate <= 0 || rpcOk.get() > 0, "No Dubbo call through the consumers succeeded");
+            } finally {
+                for (AppNode node : nodes) {
+                    node.close();
+                }
+                producer.shutdown();
+                client.close();
+            }
+        }
+    }
+
+    private AppNode startProducer(String name, String nodeType, TestingServer zookeeper, EmbeddedRocketMQ rocketmq,
+                                  File workDir) throws IOException {
+        List<String> args = new ArrayList<>(Arrays.asList(
+                "--spring.profiles.active=" + nodeType.toLowerCase(),
+                "--zookeeper.connect-string=" + zookeeper.getConnectString(),
+                "--rocketmq.name-server=" + rocketmq.nameServerAddress(),
+                "--dubbo.protocols.dubbo.port=" + Ports.free(),
+                "--dubbo.protocols.tri.port=" + Ports.free(),
+                "--dubbo.application.qos-enable=false"));
+        args.addAll(flipOverrides());
+        return new AppNode(name, jar("soak.producer.jar"), Ports.free(),
+                Collections.singletonMap("NODE_TYPE", nodeType), args, workDir, line -> { });
+    }
+
+    private AppNode startConsumer(String name, String nodeType, TestingServer zookeeper, EmbeddedRocketMQ rocketmq,
+                                  File workDir) throws IOException {
+        List<String> args = new ArrayList<>(Arrays.asList(
+                "--spring.profiles.active=" + (nodeType.startsWith("GRAY") ? "gray" : "prd"),
+                "--zookeeper.connect-string=" + zookeeper.getConnectString(),
+                "--dubbo.registry.address=zookeeper://" + zookeeper.getConnectString(),
+                "--rocketmq.name-server=" + rocketmq.nameServerAddress(),
+                // 两个消费者在同一台机器上，元数据服务不能都用默认的20880
+                "--dubbo.application.metadata-service-port=" + Ports.free(),
+                "--dubbo.application.qos-enable=false"));
+        args.addAll(flipOverrides());
+        AtomicLong received = receivedByNode.computeIfAbsent(name, k -> new AtomicLong());
+        return new AppNode(name, jar("soak.consumer.jar"), Ports.free(),
+                Collections.singletonMap("NODE_TYPE", nodeType), args, workDir, line -> {
+                    Matcher matcher = RECEIVED.matcher(line);
+                    if (matcher.find()) {
+                        long seq = Long.parseLong(matcher.group(1));
+                        firstReceivedAt.putIfAbsent(seq, System.currentTimeMillis());
+                        receiveCounts.computeIfAbsent(seq, k -> new AtomicInteger()).incrementAndGet();
+                        received.incrementAndGet();
+                    }
+                });
+    }
+
+    /**
+     * 未指定时使用应用自己的去抖和最短停留配置
+     */
+    private static List<String> flipOverrides() {
+        List<String> args = new ArrayList<>();
+        if (System.getProperty("soak.settleWindowMs") != null) {
+            args.add("--release.flip.settle-window-ms=" + System.getProperty("soak.settleWindowMs"));
+        }
+        if (System.getProperty("soak.minDwellMs") != null) {
+            args.add("--release.flip.min-dwell-ms=" + System.getProperty("soak.minDwellMs"));
+        }
+        return args;
+    }
+
+    private static File jar(String property) {
+        String path = System.getProperty(property);
+        return path == null ? null : new File(path);
+    }
+
+    private void sendLoop(DefaultMQProducer producer, AtomicBoolean running) {
+        long interval = TimeUnit.SECONDS.toNanos(1) / Math.max(1, rate);
+        long next = System.nanoTime();
+        long seq = 0;
+        while (running.get()) {
+            seq++;
+            try {
+                SendResult result = producer.send(new Message(TOPIC, TAG,
+                        ("soak-" + seq).getBytes(StandardCharsets.UTF_8)));
+                if (result.getSendStatus() == SendStatus.SEND_OK) {
+                    sentAt.put(seq, System.currentTimeMillis());
+                } else {
+                    sendFailures.incrementAndGet();
+                }
+            } catch (Exception e) {
+                sendFailures.incrementAndGet();
+            }
+            next += interval;
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+        }
+    }
+
+    private void rpcLoop(List<AppNode> consumers, AtomicBoolean running) {
+        if (rpcRate <= 0) {
+            return;
+        }
+        long interval = TimeUnit.SECONDS.toNanos(1) / rpcRate;
+        long next = System.nanoTime();
+        int index = 0;
+        while (running.get()) {
+            AppNode consumer = consumers.get(index++ % consumers.size());
+            StringBuilder body = new StringBuilder();
+            // 调用失败时接口仍返回200，错误信息在响应体中
+            if (consumer.get("/api/dubbo/test-sync", 5000, body) == 200 && !body.toString().startsWith("Error")) {
+                rpcOk.incrementAndGet();
+            } else {
+                rpcFailed.incrementAndGet();
+            }
+            next += interval;
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+        }
+    }
+
+    private void flipLoop(CuratorFramework client, long loadEnd) throws Exception {
+        Random random = new Random(seed);
+        String current = "ALL_ACCESSABLE";
+        while (true) {
+            // 间隔在配置值的50%到150%之间随机
+            long sleep = flipIntervalMs / 2 + (long) (random.nextDouble() * flipIntervalMs);
+            if (System.currentTimeMillis() + sleep >= loadEnd) {
+                Thread.sleep(Math.max(0, loadEnd - System.currentTimeMillis()));
+                return;
+            }
+            Thread.sleep(sleep);
+            String next;
+            do {
+                next = STATES[random.nextInt(STATES.length)];
+            } while (next.equals(current));
+            current = next;
+            flips.add(System.currentTimeMillis());
+            writeState(client, next);
+        }
+    }
+
+    private static void writeState(CuratorFramework client, String state) throws Exception {
+        byte[] data = state.getBytes(StandardCharsets.UTF_8);
+        for (String service : new String[]{CONSUMER_SERVICE, PRODUCER_SERVICE}) {
+            String path = "/release/" + service + "/status";
+            if (client.checkExists().forPath(path) == null) {
+                client.create().creatingParentsIfNeeded().forPath(path, data);
+            } else {
+                client.setData().forPath(path, data);
+            }
+        }
+    }
+
+    private List<Long> lost() {
+        List<Long> lost = new ArrayList<>();
+        for (Long seq : sentAt.keySet()) {
+            if (!firstReceivedAt.containsKey(seq)) {
+                lost.add(seq);
+            }
+        }
+        Collections.sort(lost);
+        return lost;
+    }
+
+    private String report(long loadStart, long loadStopped) {
+        double loadSeconds = (loadStopped - loadStart) / 1000.0;
+        long duplicates = 0;
+        for (AtomicInteger count : receiveCounts.values()) {
+            duplicates += Math.max(0, count.get() - 1);
+        }
+        long consumedDuringLoad = 0;
+        LatencySummary endToEnd = new LatencySummary("end-to-end latency");
+        for (Map.Entry<Long, Long> entry : firstReceivedAt.entrySet()) {
+            Long sent = sentAt.get(entry.getKey());
+            if (sent != null) {
+                endToEnd.add(entry.getValue() - sent);
+            }
+            if (entry.getValue() <= loadStopped) {
+                consumedDuringLoad++;
+            }
+        }
+        LatencySummary recovery = recovery(loadStopped);
+        List<Long> lost = lost();
+
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%nRelease flap soak: %.0f s load, %d msg/s target, %d rpc/s, %d flips, seed %d%n",
+                loadSeconds, rate, rpcRate, flips.size(), seed));
+        report.append(String.format("sent ok=%d failed=%d, throughput sent=%.1f/s consumed=%.1f/s%n",
+                sentAt.size(), sendFailures.get(), sentAt.size() / loadSeconds, consumedDuringLoad / loadSeconds));
+        report.append(String.format("consumed unique=%d lost=%d duplicates=%d by node=%s%n",
+                firstReceivedAt.size(), lost.size(), duplicates, receivedByNode));
+        report.append(String.format("rpc ok=%d failed=%d%n", rpcOk.get(), rpcFailed.get()));
+        report.append(endToEnd).append(System.lineSeparator());
+        report.append(recovery).append(System.lineSeparator());
+        if (!lost.isEmpty()) {
+            report.append("first lost sequences: ")
+                    .append(lost.subList(0, Math.min(20, lost.size()))).append(System.lineSeparator());
+        }
+        return report.toString();
+    }
+
+    /**
+     * 每次切换后，下一次切换前发送的消息中最早被消费的时间减去切换时间
+     */
+    private LatencySummary recovery(long loadStopped) {
+        LatencySummary recovery = new LatencySummary("flip recovery");
+        List<Long> snapshot;
+        synchronized (flips) {
+            snapshot = new ArrayList<>(flips);
+        }
+        for (int i = 0; i < snapshot.size(); i++) {
+            long from = snapshot.get(i);
+            long to = i + 1 < snapshot.size() ? snapshot.get(i + 1) : loadStopped;
+            long earliest = Long.MAX_VALUE;
+            for (Map.Entry<Long, Long> entry : sentAt.entrySet()) {
+                long sent = entry.getValue();
+                Long received = firstReceivedAt.get(entry.getKey());
+                if (sent >= from && sent < to && received != null) {
+                    earliest = Math.min(earliest, received);
+                }
+            }
+            if (earliest == Long.MAX_VALUE) {
+                recovery.timeout();
+            } else {
+                recovery.add(earliest - from);
+            }
+        }
+        return recovery;
+    }
+}
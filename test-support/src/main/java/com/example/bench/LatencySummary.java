@@ -0,0 +1,43 @@
+package com.example.bench;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 基准测试和稳定性测试共用的耗时样本，输出分位数
+ */
+public class LatencySummary {
+
+    private final String name;
+    private final List<Long> samples = new ArrayList<>();
+    private int timeouts;
+
+    public LatencySummary(String name) {
+        this.name = name;
+    }
+
+    public synchronized void add(long latencyMs) {
+        samples.add(latencyMs);
+    }
+
+    public synchronized void timeout() {
+        timeouts++;
+    }
+
+    public synchronized long percentile(double percentile) {
+        if (samples.isEmpty()) {
+            return -1;
+        }
+        List<Long> sorted = new ArrayList<>(samples);
+        Collections.sort(sorted);
+        int index = (int) Math.ceil(percentile * sorted.size()) - 1;
+        return sorted.get(Math.max(0, Math.min(index, sorted.size() - 1)));
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%-28s n=%-5d p50=%-5d p90=%-5d p99=%-5d max=%-5d timeouts=%d (ms)", name,
+                samples.size(), percentile(0.50), percentile(0.90), percentile(0.99), percentile(1.0), timeouts);
+    }
+}